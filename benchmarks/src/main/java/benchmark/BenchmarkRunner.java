@@ -0,0 +1,36 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmark suite with the GC profiler and writes the results as JSON.
+ * Usage: java -jar benchmarks.jar [benchmark-regex] [result-file]
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+  }
+
+  /**
+   * Entry point of the benchmark jar.
+   *
+   * @param args optional include pattern and result file.
+   * @throws RunnerException if JMH fails to run.
+   */
+  public static void main(String[] args) throws RunnerException {
+    String include = args.length > 0 ? args[0] : "benchmark\\..*Benchmark";
+    String resultFile = args.length > 1 ? args[1] : "jmh-result.json";
+    Options options = new OptionsBuilder()
+            .include(include)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(resultFile)
+            .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,74 @@
+package benchmark;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import model.CalendarManager;
+import model.Event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of copying one week of events into a calendar in another zone.
+ * The target calendar is recreated before every call so copies never collide.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CalendarManagerBenchmark {
+  private static final ZoneId TARGET_ZONE = ZoneId.of("Europe/Paris");
+
+  @Param({"1000", "100000", "1000000"})
+  public int events;
+
+  private CalendarManager manager;
+  private ZonedDateTime from;
+  private ZonedDateTime to;
+  private ZonedDateTime newStart;
+
+  /**
+   * Fills the source calendar once per trial.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    manager = new CalendarManager();
+    manager.createCalendar("source", Fixtures.ZONE);
+    manager.useCalendar("source");
+    for (int i = 0; i < events; i++) {
+      manager.addEvent(Fixtures.event(i));
+    }
+    Event middle = Fixtures.event(Math.max(0, events / 2 - 84));
+    from = middle.getStartDateTime();
+    to = from.plusWeeks(1);
+    newStart = from.withZoneSameInstant(TARGET_ZONE).plusYears(1);
+  }
+
+  /**
+   * Gives every call an empty target calendar.
+   */
+  @Setup(Level.Invocation)
+  public void resetTarget() {
+    manager.deleteCalendar("target");
+    manager.createCalendar("target", TARGET_ZONE);
+  }
+
+  @Benchmark
+  public int copyEventsBetween() {
+    return manager.copyEventsBetween(from, to, "target", newStart);
+  }
+}
@@ -0,0 +1,107 @@
+package benchmark;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import model.CalendarModel;
+import model.Event;
+import model.IEvent;
+import model.Status;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the CalendarModel operations at different calendar sizes.
+ * Every operation targets an event in the middle of the calendar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CalendarModelBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  public int events;
+
+  private CalendarModel calendar;
+  private Event extra;
+  private Event probe;
+  private Event edited;
+  private boolean probeStored;
+  private ZonedDateTime windowStart;
+  private ZonedDateTime windowEnd;
+  private LocalDate day;
+
+  /**
+   * Fills the calendar once per trial.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    calendar = Fixtures.calendar(events);
+    extra = Fixtures.event(events);
+    probe = Fixtures.event(events / 2);
+    edited = new Event(probe.getSubject(), probe.getStartDateTime(), probe.getEndDateTime(),
+            "Room 99", Status.Private, probe.getDescription());
+    probeStored = true;
+    windowStart = probe.getStartDateTime().toLocalDate().atStartOfDay(Fixtures.ZONE);
+    windowEnd = windowStart.plusDays(1).minusNanos(1);
+    day = windowStart.toLocalDate();
+  }
+
+  /**
+   * Adds an event that is not in the calendar.
+   * It is removed again so the calendar keeps its size.
+   */
+  @Benchmark
+  public boolean addEvent() {
+    boolean added = calendar.addEvent(extra);
+    calendar.removeEvent(extra);
+    return added;
+  }
+
+  @Benchmark
+  public List<IEvent> getEventsBetween() {
+    return calendar.getEventsBetween(windowStart, windowEnd);
+  }
+
+  @Benchmark
+  public List<IEvent> getEventsOn() {
+    return calendar.getEventsOn(day);
+  }
+
+  @Benchmark
+  public Optional<IEvent> findEvent() {
+    return calendar.findEvent(probe.getSubject(), probe.getStartDateTime().toLocalDateTime());
+  }
+
+  @Benchmark
+  public boolean busyDuring() {
+    return calendar.busyDuring(probe.getStartDateTime().plusMinutes(10));
+  }
+
+  /**
+   * Replaces the probe with an edited copy, then back again on the next call.
+   */
+  @Benchmark
+  public boolean editEvent() {
+    IEvent replacement = probeStored ? edited : probe;
+    probeStored = !probeStored;
+    return calendar.editEvent(probe.getSubject(), probe.getStartDateTime(), replacement);
+  }
+}
@@ -0,0 +1,128 @@
+package benchmark;
+
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import model.Event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hash set add, remove and contains with Event as the key.
+ * The legacy variants wrap each event in a key that hashes and compares the way Event
+ * did before it cached its identity, so both run on the same data in one run.
+ * Lookups use equal but distinct instances, like events parsed from a command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class EventIdentityBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  public int events;
+
+  private Set<Event> set;
+  private Set<LegacyKey> legacySet;
+  private Event[] probes;
+  private LegacyKey[] legacyProbes;
+  private Event extra;
+  private LegacyKey legacyExtra;
+  private int next;
+
+  /**
+   * Fills both sets once per trial.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    set = new HashSet<>();
+    legacySet = new HashSet<>();
+    for (int i = 0; i < events; i++) {
+      Event e = Fixtures.event(i);
+      set.add(e);
+      legacySet.add(new LegacyKey(e));
+    }
+    probes = new Event[1024];
+    legacyProbes = new LegacyKey[probes.length];
+    for (int i = 0; i < probes.length; i++) {
+      probes[i] = Fixtures.event((int) ((long) i * events / probes.length));
+      legacyProbes[i] = new LegacyKey(probes[i]);
+    }
+    extra = Fixtures.event(events);
+    legacyExtra = new LegacyKey(extra);
+  }
+
+  @Benchmark
+  public boolean contains() {
+    next = (next + 1) & (probes.length - 1);
+    return set.contains(probes[next]);
+  }
+
+  @Benchmark
+  public boolean containsLegacy() {
+    next = (next + 1) & (probes.length - 1);
+    return legacySet.contains(legacyProbes[next]);
+  }
+
+  /**
+   * Adds an event that is not in the set, then removes it again.
+   */
+  @Benchmark
+  public boolean addRemove() {
+    return set.add(extra) & set.remove(extra);
+  }
+
+  @Benchmark
+  public boolean addRemoveLegacy() {
+    return legacySet.add(legacyExtra) & legacySet.remove(legacyExtra);
+  }
+
+  /**
+   * Event identity as it was before: Objects.hash over the subject and both
+   * date-times on every call, and full ZonedDateTime comparison in equals.
+   */
+  private static final class LegacyKey {
+    private final String subject;
+    private final ZonedDateTime start;
+    private final ZonedDateTime end;
+
+    private LegacyKey(Event event) {
+      this.subject = event.getSubject();
+      this.start = event.getStartDateTime();
+      this.end = event.getEndDateTime();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof LegacyKey)) {
+        return false;
+      }
+      LegacyKey that = (LegacyKey) other;
+      return subject.equals(that.subject) && start.equals(that.start) && end.equals(that.end);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(subject, start, end);
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package benchmark;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import model.Event;
+import model.EventSeries;
+import model.Status;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of expanding a weekday series into its occurrences.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class EventSeriesBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  public int events;
+
+  private EventSeries series;
+
+  /**
+   * Builds a series with the requested number of occurrences.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    series = new EventSeries("Standup", LocalTime.of(9, 0), LocalTime.of(9, 15),
+            "Room 4", "Daily standup", Status.Public,
+            EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY),
+            LocalDate.of(2025, 1, 6), events, null);
+  }
+
+  @Benchmark
+  public List<Event> generateEvents() {
+    return series.generateEvents(Fixtures.ZONE);
+  }
+}
@@ -0,0 +1,49 @@
+package benchmark;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import model.CalendarModel;
+import model.Event;
+import model.Status;
+
+/**
+ * Shared data for the benchmarks.
+ * Event i starts i hours after the base time and lasts 45 minutes,
+ * so a calendar of n events covers n hours without duplicates.
+ */
+final class Fixtures {
+  static final ZoneId ZONE = ZoneId.of("America/New_York");
+  static final ZonedDateTime BASE = ZonedDateTime.of(
+          LocalDateTime.of(2025, 1, 1, 0, 0), ZONE);
+
+  private Fixtures() {
+  }
+
+  /**
+   * Builds the i-th event of the data set.
+   *
+   * @param i position of the event.
+   * @return the event.
+   */
+  static Event event(int i) {
+    ZonedDateTime start = BASE.plusHours(i);
+    return new Event("Event " + (i % 1000), start, start.plusMinutes(45),
+            "Room " + (i % 20), Status.Public, "Benchmark event " + i);
+  }
+
+  /**
+   * Builds a calendar holding the first n events.
+   *
+   * @param n number of events.
+   * @return the filled calendar.
+   */
+  static CalendarModel calendar(int n) {
+    CalendarModel calendar = new CalendarModel(ZONE);
+    for (int i = 0; i < n; i++) {
+      calendar.addEvent(event(i));
+    }
+    return calendar;
+  }
+}
@@ -0,0 +1,67 @@
+package benchmark;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import model.Event;
+import model.IEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of copying one event into a calendar in another zone.
+ * The legacy variant builds the copy the way shiftCopy did before the offset cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1)
+public class ZoneConversionBenchmark {
+  private static final ZoneId TARGET = ZoneId.of("Europe/Berlin");
+
+  private Event[] events;
+  private Duration shift;
+  private int next;
+
+  /**
+   * A week of half-hourly events, moved by a week.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    events = new Event[336];
+    for (int i = 0; i < events.length; i++) {
+      events[i] = Fixtures.event(i);
+    }
+    shift = Duration.ofDays(7);
+  }
+
+  @Benchmark
+  public IEvent shiftCopy() {
+    next = (next + 1) % events.length;
+    return events[next].shiftCopy(shift, TARGET);
+  }
+
+  @Benchmark
+  public IEvent shiftCopyLegacy() {
+    next = (next + 1) % events.length;
+    Event e = events[next];
+    ZonedDateTime start = e.getStartDateTime().plus(shift).withZoneSameInstant(TARGET);
+    ZonedDateTime end = e.getEndDateTime().plus(shift).withZoneSameInstant(TARGET);
+    return new Event(e.getSubject(), start, end, e.getLocation(), e.getStatus(),
+            e.getDescription());
+  }
+}
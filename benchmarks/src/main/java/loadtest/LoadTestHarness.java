@@ -0,0 +1,162 @@
+package loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import controller.CommandController;
+import model.CalendarManager;
+
+/**
+ * Replays a headless command script and reports how fast it ran.
+ * Every line goes through CommandController.runScript on its own so each command
+ * can be timed. Output of the commands is discarded.
+ *
+ * <p>Usage: java -cp benchmarks.jar loadtest.LoadTestHarness script.txt,
+ * or with generator options instead of a file to replay a generated script.
+ */
+public final class LoadTestHarness {
+
+  private final List<String> commands;
+  private long failures;
+
+  /**
+   * Creates a harness for the given script lines.
+   *
+   * @param commands the lines of the script.
+   */
+  public LoadTestHarness(List<String> commands) {
+    this.commands = commands;
+  }
+
+  /**
+   * Replays the script on a new calendar manager.
+   *
+   * @return the measured results.
+   */
+  public Report run() {
+    List<MemoryPoolMXBean> heapPools = heapPools();
+    System.gc();
+    heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+    CommandController controller = new CommandController(new CalendarManager());
+    long[] latencies = new long[commands.size()];
+    int count = 0;
+    failures = 0;
+    PrintStream out = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    long begin = System.nanoTime();
+    try {
+      for (String line : commands) {
+        if (line.isBlank()) {
+          continue;
+        }
+        long start = System.nanoTime();
+        try {
+          controller.runScript(new StringReader(line));
+        } catch (RuntimeException e) {
+          failures++;
+        }
+        latencies[count++] = System.nanoTime() - start;
+      }
+    } finally {
+      System.setOut(out);
+    }
+    long elapsed = System.nanoTime() - begin;
+
+    long peakHeap = 0;
+    for (MemoryPoolMXBean pool : heapPools) {
+      peakHeap += pool.getPeakUsage().getUsed();
+    }
+    long[] sorted = Arrays.copyOf(latencies, count);
+    Arrays.sort(sorted);
+    return new Report(count, failures, elapsed, percentile(sorted, 0.50),
+            percentile(sorted, 0.99), peakHeap);
+  }
+
+  private static List<MemoryPoolMXBean> heapPools() {
+    return ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .collect(Collectors.toList());
+  }
+
+  private static long percentile(long[] sorted, double fraction) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(fraction * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+
+  /**
+   * Results of one replay.
+   */
+  public static final class Report {
+    private final int commands;
+    private final long failures;
+    private final long elapsedNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long peakHeapBytes;
+
+    Report(int commands, long failures, long elapsedNanos, long p50Nanos, long p99Nanos,
+           long peakHeapBytes) {
+      this.commands = commands;
+      this.failures = failures;
+      this.elapsedNanos = elapsedNanos;
+      this.p50Nanos = p50Nanos;
+      this.p99Nanos = p99Nanos;
+      this.peakHeapBytes = peakHeapBytes;
+    }
+
+    /**
+     * Commands replayed per second.
+     *
+     * @return the throughput.
+     */
+    public double commandsPerSecond() {
+      return elapsedNanos == 0 ? 0 : commands * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("commands:     %d (%d failed)%n"
+                      + "elapsed:      %.1f ms%n"
+                      + "throughput:   %.0f commands/s%n"
+                      + "latency p50:  %.1f us%n"
+                      + "latency p99:  %.1f us%n"
+                      + "peak heap:    %.1f MB",
+              commands, failures, elapsedNanos / 1e6, commandsPerSecond(),
+              p50Nanos / 1e3, p99Nanos / 1e3, peakHeapBytes / (1024.0 * 1024.0));
+    }
+  }
+
+  /**
+   * Replays a script file, or a generated script when given generator options.
+   *
+   * @param args a script file, or WorkloadGenerator options.
+   * @throws IOException if the script cannot be read.
+   */
+  public static void main(String[] args) throws IOException {
+    List<String> lines;
+    if (args.length == 1) {
+      lines = Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8);
+    } else {
+      StringWriter script = new StringWriter();
+      WorkloadGenerator.fromArgs(args).write(script);
+      lines = Arrays.asList(script.toString().split("\\R"));
+    }
+    System.out.println(new LoadTestHarness(lines).run());
+  }
+}
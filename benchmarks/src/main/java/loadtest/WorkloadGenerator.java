@@ -0,0 +1,185 @@
+package loadtest;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Writes synthetic headless command scripts for load testing.
+ * The same settings and seed always produce the same script.
+ *
+ * <p>Usage: java -cp benchmarks.jar loadtest.WorkloadGenerator [options] [output-file]
+ * with the options --calendars, --events, --per-day, --series-ratio, --series-length,
+ * --zones, --copy-rate, --edit-rate, --query-rate and --seed.
+ */
+public final class WorkloadGenerator {
+  private static final String[] SUBJECTS = {
+    "Standup", "Planning", "Review", "Retro", "1on1", "Interview", "Lunch",
+    "Sprint Demo", "Budget Sync", "Design Review"
+  };
+  private static final String WEEK_DAYS = "MTWRF";
+  private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 6);
+  private static final LocalDate FIRST_COPY_DAY = LocalDate.of(2030, 1, 1);
+
+  private int calendars = 4;
+  private int eventsPerCalendar = 1000;
+  private int eventsPerDay = 8;
+  private double seriesRatio = 0.1;
+  private int seriesLength = 10;
+  private List<ZoneId> zones = List.of(ZoneId.of("America/New_York"),
+          ZoneId.of("Europe/London"), ZoneId.of("Asia/Tokyo"));
+  private double copyRate = 0.01;
+  private double editRate = 0.05;
+  private double queryRate = 0.1;
+  private long seed = 42;
+
+  /**
+   * Reads generator settings from command line options.
+   * Options that are not given keep their defaults.
+   *
+   * @param args the options, each followed by its value.
+   * @return the configured generator.
+   */
+  public static WorkloadGenerator fromArgs(String[] args) {
+    WorkloadGenerator generator = new WorkloadGenerator();
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String value = args[i + 1];
+      switch (args[i]) {
+        case "--calendars":
+          generator.calendars = Integer.parseInt(value);
+          break;
+        case "--events":
+          generator.eventsPerCalendar = Integer.parseInt(value);
+          break;
+        case "--per-day":
+          generator.eventsPerDay = Integer.parseInt(value);
+          break;
+        case "--series-ratio":
+          generator.seriesRatio = Double.parseDouble(value);
+          break;
+        case "--series-length":
+          generator.seriesLength = Integer.parseInt(value);
+          break;
+        case "--zones":
+          List<ZoneId> zones = new ArrayList<>();
+          for (String zone : value.split(",")) {
+            zones.add(ZoneId.of(zone));
+          }
+          generator.zones = zones;
+          break;
+        case "--copy-rate":
+          generator.copyRate = Double.parseDouble(value);
+          break;
+        case "--edit-rate":
+          generator.editRate = Double.parseDouble(value);
+          break;
+        case "--query-rate":
+          generator.queryRate = Double.parseDouble(value);
+          break;
+        case "--seed":
+          generator.seed = Long.parseLong(value);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + args[i]);
+      }
+    }
+    if (generator.calendars <= 0 || generator.eventsPerDay <= 0
+            || generator.seriesLength <= 0 || generator.zones.isEmpty()) {
+      throw new IllegalArgumentException("calendars, per-day, series-length and zones "
+              + "must be positive");
+    }
+    return generator;
+  }
+
+  /**
+   * Writes the whole script, ending with quit.
+   *
+   * @param writer where the commands are written.
+   */
+  public void write(Writer writer) {
+    PrintWriter out = new PrintWriter(writer);
+    Random random = new Random(seed);
+    for (int c = 0; c < calendars; c++) {
+      out.printf("create calendar --name %s --timezone %s%n",
+              calendarName(c), zones.get(c % zones.size()));
+    }
+    int copies = 0;
+    for (int c = 0; c < calendars; c++) {
+      out.printf("use calendar --name %s%n", calendarName(c));
+      Set<String> taken = new HashSet<>();
+      List<String> singles = new ArrayList<>();
+      int spanDays = Math.max(1, eventsPerCalendar / eventsPerDay);
+      int created = 0;
+      int series = 0;
+      while (created < eventsPerCalendar) {
+        LocalDate day = FIRST_DAY.plusDays(random.nextInt(spanDays));
+        LocalDateTime start = day.atTime(7 + random.nextInt(11), 15 * random.nextInt(4));
+        LocalDateTime end = start.plusMinutes(15L * (1 + random.nextInt(8)));
+        String subject = SUBJECTS[random.nextInt(SUBJECTS.length)];
+        if (random.nextDouble() < seriesRatio && eventsPerCalendar - created >= seriesLength) {
+          out.printf("create event \"%s #%d\" from %s to %s repeats %s for %d times%n",
+                  subject, series++, start, end,
+                  WEEK_DAYS.charAt(random.nextInt(WEEK_DAYS.length())), seriesLength);
+          created += seriesLength;
+        } else if (taken.add(subject + start)) {
+          out.printf("create event \"%s\" from %s to %s%n", subject, start, end);
+          singles.add(String.format("\"%s\" from %s to %s", subject, start, end));
+          created++;
+        } else {
+          continue;
+        }
+        if (!singles.isEmpty() && random.nextDouble() < editRate) {
+          out.printf("edit event location %s with Room-%d%n",
+                  singles.get(random.nextInt(singles.size())), random.nextInt(50));
+        }
+        if (random.nextDouble() < queryRate) {
+          out.printf("print events on %s%n", day);
+        }
+        if (calendars > 1 && random.nextDouble() < copyRate) {
+          int target = (c + 1 + random.nextInt(calendars - 1)) % calendars;
+          out.printf("copy events on %s --target %s to %s%n",
+                  day, calendarName(target), FIRST_COPY_DAY.plusDays(copies++));
+        }
+      }
+    }
+    out.println("quit");
+    out.flush();
+  }
+
+  private static String calendarName(int index) {
+    return "cal" + index;
+  }
+
+  /**
+   * Writes a script to a file, or to standard output when no file is given.
+   *
+   * @param args generator options, optionally followed by the output file.
+   * @throws IOException if the file cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    String file = args.length % 2 == 1 ? args[args.length - 1] : null;
+    String[] options = file == null ? args : Arrays.copyOf(args, args.length - 1);
+    WorkloadGenerator generator = fromArgs(options);
+    if (file == null) {
+      Writer stdout = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+      generator.write(stdout);
+    } else {
+      try (Writer writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+        generator.write(writer);
+      }
+    }
+  }
+}
@@ -1,6 +1,7 @@
 import controller.CommandController;
 import controller.GUIController;
 import model.CalendarManager;
+import model.MetricsRegistry;
 import view.InteractiveView;
 import view.HeadlessView;
 import view.CalendarGUI;
@@ -30,8 +31,9 @@ public class Main {
       System.exit(1);
     }
 
-    CalendarManager calendarManager = new CalendarManager();
+    MetricsRegistry.global().registerMBeans();
     String mode = args[1].toLowerCase();
+    CalendarManager calendarManager = new CalendarManager(mode.equals("gui"));
 
     switch (mode) {
       case "interactive":
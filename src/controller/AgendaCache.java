@@ -0,0 +1,179 @@
+package controller;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import model.ChangeFeed;
+import model.ChangeRecord;
+import model.IEvent;
+
+/**
+ * LRU cache of day agendas used by the GUI.
+ * Entries are keyed by calendar name, time zone and day, so paging back and forth
+ * through days is served from memory instead of re-running a model query.
+ * The cache follows the change feed of the manager and, before each read, drops
+ * the days of every calendar changed since, whatever path made the change.
+ */
+class AgendaCache {
+  private static final int DEFAULT_CAPACITY = 64;
+
+  private final Map<Key, List<IEvent>> entries;
+  private final ChangeFeed changes;
+  private ChangeFeed.Subscription feed;
+
+  /**
+   * Creates a cache holding the default number of day agendas.
+   *
+   * @param changes the change feed of the calendars cached.
+   */
+  AgendaCache(ChangeFeed changes) {
+    this(DEFAULT_CAPACITY, changes);
+  }
+
+  /**
+   * Creates a cache holding at most the given number of day agendas.
+   *
+   * @param capacity the maximum number of days kept in memory.
+   * @param changes  the change feed of the calendars cached.
+   */
+  AgendaCache(int capacity, ChangeFeed changes) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be > 0");
+    }
+    this.changes = changes;
+    this.feed = changes.subscribe();
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, List<IEvent>> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the agenda of a day, loading it on a miss.
+   *
+   * @param calendar the calendar name.
+   * @param zone     the zone the day is viewed in.
+   * @param day      the day to show.
+   * @param loader   runs the model query when the day is not cached.
+   * @return the events of that day.
+   */
+  List<IEvent> get(String calendar, ZoneId zone, LocalDate day,
+                   Supplier<List<IEvent>> loader) {
+    catchUp();
+    Key key = new Key(calendar, zone, day);
+    List<IEvent> agenda = entries.get(key);
+    if (agenda == null) {
+      agenda = List.copyOf(loader.get());
+      entries.put(key, agenda);
+    }
+    return agenda;
+  }
+
+  /**
+   * Loads a day into the cache if it is not already there.
+   * Unlike get, this does not refresh the position of a cached day.
+   *
+   * @param calendar the calendar name.
+   * @param zone     the zone the day is viewed in.
+   * @param day      the day to load.
+   * @param loader   runs the model query for that day.
+   */
+  void prefetch(String calendar, ZoneId zone, LocalDate day,
+                Supplier<List<IEvent>> loader) {
+    catchUp();
+    Key key = new Key(calendar, zone, day);
+    if (!entries.containsKey(key)) {
+      entries.put(key, List.copyOf(loader.get()));
+    }
+  }
+
+  /**
+   * Drops the days of the calendars changed since the last read. A renamed
+   * calendar drops the days of both names. If the feed dropped this cache for
+   * falling behind, the changes it missed are unknown, so every day is dropped.
+   */
+  private void catchUp() {
+    try {
+      ChangeRecord record;
+      while ((record = feed.poll()) != null) {
+        invalidate(record.getCalendar());
+        if (record.getType() == ChangeRecord.Type.CALENDAR_RENAMED) {
+          invalidate(record.getDetail());
+        }
+      }
+      if (!feed.isDropped()) {
+        return;
+      }
+    } catch (IllegalStateException e) {
+      // overwritten before it was read; start over below
+    }
+    feed.close();
+    feed = changes.subscribe();
+    invalidateAll();
+  }
+
+  /**
+   * Drops every cached day of a calendar after it was changed.
+   *
+   * @param calendar the calendar name.
+   */
+  private void invalidate(String calendar) {
+    entries.keySet().removeIf(k -> k.calendar.equals(calendar));
+  }
+
+  /**
+   * Drops every cached day.
+   */
+  void invalidateAll() {
+    entries.clear();
+  }
+
+  /**
+   * Number of cached days.
+   *
+   * @return the cache size.
+   */
+  int size() {
+    catchUp();
+    return entries.size();
+  }
+
+  /**
+   * Cache key of one agenda: calendar, zone and day.
+   */
+  private static final class Key {
+    private final String calendar;
+    private final ZoneId zone;
+    private final LocalDate day;
+
+    private Key(String calendar, ZoneId zone, LocalDate day) {
+      this.calendar = Objects.requireNonNull(calendar);
+      this.zone = Objects.requireNonNull(zone);
+      this.day = Objects.requireNonNull(day);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return calendar.equals(key.calendar) && zone.equals(key.zone) && day.equals(key.day);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(calendar, zone, day);
+    }
+  }
+}
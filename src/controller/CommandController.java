@@ -1,18 +1,37 @@
 package controller;
 
 import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
 import java.util.Scanner;
+import java.util.Set;
 
 import model.CalendarManager;
+import model.CalendarOperationEvent;
+import model.ConflictPolicy;
 import model.Event;
+import model.EventSeries;
+import model.EventStats;
+import model.Granularity;
+import model.ICalendarModel;
+import model.IEvent;
+import model.MetricsRegistry;
+import model.Operation;
+import model.RoomConflict;
 import model.Status;
+import model.TextQuery;
 
 /**
  * The controller of the program.
@@ -22,6 +41,8 @@ import model.Status;
 public class CommandController {
 
   private static CalendarManager model;
+  private static int scanned;
+  private static int resultSize;
 
   /**
    * The constructor of the CommandController.
@@ -40,6 +61,31 @@ public class CommandController {
    * @return the update on the command status.
    */
   public static String handle(String userInput) {
+    long timer = System.nanoTime();
+    String type = userInput.split(" ", 2)[0].toLowerCase();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start(type,
+            model == null ? null : model.getCurrentCalendarName());
+    counted(0, 0);
+    try {
+      return dispatch(userInput);
+    } finally {
+      MetricsRegistry.global().record(Operation.COMMAND, timer);
+      jfr.finish(scanned, resultSize);
+    }
+  }
+
+  /**
+   * Records the counts of the command being handled, for its profiling event.
+   *
+   * @param eventsScanned number of events the command looked at.
+   * @param size          number of events it printed or changed.
+   */
+  private static void counted(int eventsScanned, int size) {
+    scanned = eventsScanned;
+    resultSize = size;
+  }
+
+  private static String dispatch(String userInput) {
     String[] events = userInput.split(" ");
     if (events.length == 0) {
       throw new IllegalArgumentException("No command entered");
@@ -64,6 +110,23 @@ public class CommandController {
       case "copy":
         copyCommand(events);
         break;
+      case "find":
+        if (events.length > 1 && "conflicts".equalsIgnoreCase(events[1])) {
+          conflictsCommand(events);
+        } else {
+          findCommand(events);
+        }
+        break;
+      case "stats":
+        statsCommand(events);
+        break;
+      case "search":
+        if (events.length > 1 && "text".equalsIgnoreCase(events[1])) {
+          searchTextCommand(events);
+        } else {
+          searchCommand(events);
+        }
+        break;
       case "exit":
       case "quit":
         break;
@@ -81,15 +144,23 @@ public class CommandController {
    * @param events string of events within a calendar.
    */
   private static void editingCalendar(String[] events) {
+    if (events.length > 1 && "event".equalsIgnoreCase(events[1])) {
+      editingEvent(events);
+      return;
+    }
+    if (events.length > 1 && "events".equalsIgnoreCase(events[1])) {
+      editingSeries(events);
+      return;
+    }
     String name = null;
     String property = null;
     String value = null;
     for (int i = 2; i < events.length; i++) {
       if ("--name".equalsIgnoreCase(events[i]) && i + 1 < events.length) {
-        name = events[i++];
+        name = events[++i];
       } else if ("--property".equalsIgnoreCase(events[i]) && i + 2 < events.length) {
-        property = events[i++];
-        value = events[i++];
+        property = events[++i];
+        value = events[++i];
       }
     }
     if (name == null || property == null || value == null) {
@@ -98,6 +169,16 @@ public class CommandController {
     boolean successful = false;
     if ("name".equalsIgnoreCase(property)) {
       successful = model.changingCalendarName(name, value);
+    } else if ("conflicts".equalsIgnoreCase(property)) {
+      String wanted = value;
+      ConflictPolicy policy = Arrays.stream(ConflictPolicy.values())
+              .filter(p -> p.name().equalsIgnoreCase(wanted))
+              .findFirst()
+              .orElseThrow(() -> new IllegalArgumentException(
+                      "Expected conflicts allow, warn or reject"));
+      successful = model.setConflictPolicy(name, policy);
+    } else if ("agenda".equalsIgnoreCase(property)) {
+      successful = agendaWindow(name, value);
     } else if ("timezone".equalsIgnoreCase(property)) {
       try {
         ZoneId zoneId = ZoneId.of(value);
@@ -116,6 +197,130 @@ public class CommandController {
     }
   }
 
+  /**
+   * Turns materialized agendas of a calendar on or off.
+   * The value is "off", or days before and after today as before,after.
+   *
+   * @param name  the calendar.
+   * @param value the window.
+   * @return true if the calendar exists.
+   */
+  private static boolean agendaWindow(String name, String value) {
+    if ("off".equalsIgnoreCase(value)) {
+      return model.clearAgendaWindow(name);
+    }
+    String[] parts = value.split(",");
+    try {
+      if (parts.length == 2) {
+        return model.setAgendaWindow(name, Integer.parseInt(parts[0]),
+                Integer.parseInt(parts[1]));
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw new IllegalArgumentException("Expected agenda off or <daysBefore>,<daysAfter>");
+  }
+
+  /**
+   * This allows users to change one property of a single event.
+   * Format: edit event property subject from start to end with value.
+   * Throws illegal arguments if the event does not exist or the value is invalid.
+   *
+   * @param events string of events within a calendar.
+   */
+  private static void editingEvent(String[] events) {
+    int fromIdx = find(events, "from");
+    int withIdx = find(events, "with");
+    if (events.length < 4 || fromIdx < 4 || fromIdx + 4 != withIdx
+            || !"to".equalsIgnoreCase(events[fromIdx + 2]) || withIdx + 1 >= events.length) {
+      throw new IllegalArgumentException(
+              "Expected: edit event <property> <subject> from <start> to <end> with <value>");
+    }
+    String property = events[2];
+    String subject = unquote(String.join(" ", Arrays.copyOfRange(events, 3, fromIdx)));
+    String value = unquote(String.join(" ",
+            Arrays.copyOfRange(events, withIdx + 1, events.length)));
+    LocalDateTime start = eventDateTime(events[fromIdx + 1]);
+    IEvent old = model.findEvent(subject, start).orElseThrow(
+        () -> new IllegalArgumentException("No event " + subject + " at " + start));
+    IEvent replacement = withProperty(old, property, value, currentCalendar().getZoneId());
+    boolean edited = model.editEvent(old.getSubject(), old.getStartDateTime(), replacement);
+    counted(1, edited ? 1 : 0);
+    if (edited) {
+      System.out.println("Successfully edited event");
+    } else {
+      System.out.println("Failed to edit event");
+    }
+  }
+
+  /**
+   * This allows users to change one property of every event with a subject
+   * from a start time on, in one step.
+   * Format: edit events property subject from start with value.
+   *
+   * @param events string of events within a calendar.
+   */
+  private static void editingSeries(String[] events) {
+    int fromIdx = find(events, "from");
+    int withIdx = find(events, "with");
+    if (fromIdx < 4 || fromIdx + 2 != withIdx || withIdx + 1 >= events.length) {
+      throw new IllegalArgumentException(
+              "Expected: edit events <property> <subject> from <start> with <value>");
+    }
+    String property = events[2];
+    String subject = unquote(String.join(" ", Arrays.copyOfRange(events, 3, fromIdx)));
+    String value = unquote(String.join(" ",
+            Arrays.copyOfRange(events, withIdx + 1, events.length)));
+    ICalendarModel calendar = currentCalendar();
+    ZoneId zone = calendar.getZoneId();
+    ZonedDateTime from = eventDateTime(events[fromIdx + 1]).atZone(zone);
+    int edited = calendar.editSeriesFrom(subject, from,
+        e -> withProperty(e, property, value, zone));
+    counted(edited, edited);
+    if (edited > 0) {
+      System.out.println("Successfully edited " + edited + " events");
+    } else {
+      System.out.println("Failed to edit events");
+    }
+  }
+
+  /**
+   * Builds a copy of an event with one property changed.
+   *
+   * @param old      the event being edited.
+   * @param property the name of the property.
+   * @param value    the new value.
+   * @param zone     the zone of the calendar, used for new times.
+   * @return the edited copy.
+   */
+  private static IEvent withProperty(IEvent old, String property, String value, ZoneId zone) {
+    String subject = old.getSubject();
+    ZonedDateTime start = old.getStartDateTime();
+    ZonedDateTime end = old.getEndDateTime();
+    String location = old.getLocation();
+    String description = old.getDescription();
+    Status status = old.getStatus();
+    if ("subject".equalsIgnoreCase(property)) {
+      subject = value;
+    } else if ("start".equalsIgnoreCase(property)) {
+      start = eventDateTime(value).atZone(zone);
+    } else if ("end".equalsIgnoreCase(property)) {
+      end = eventDateTime(value).atZone(zone);
+    } else if ("location".equalsIgnoreCase(property)) {
+      location = value;
+    } else if ("description".equalsIgnoreCase(property)) {
+      description = value;
+    } else if ("status".equalsIgnoreCase(property)) {
+      status = Arrays.stream(Status.values())
+              .filter(st -> st.name().equalsIgnoreCase(value))
+              .findFirst()
+              .orElseThrow(() -> new IllegalArgumentException("Invalid status " + value));
+    } else {
+      throw new IllegalArgumentException("Invalid property " + property);
+    }
+    return new Event(subject, start, end, location, status, description);
+  }
+
   /**
    * This allows the user to get access to the calendar.
    * Users will give the calendar a name.
@@ -147,10 +352,15 @@ public class CommandController {
    * Allows the user to enter events with time and time zone.
    * Invalid commands will throw errors.
    * Users will create events with name, time, and zone.
+   * Events can repeat on week days for a number of times or until a date.
    *
    * @param events string of events within a calendar.
    */
   public static void creatingEvent(String[] events) {
+    if (events.length >= 2 && events[1].equalsIgnoreCase("calendar")) {
+      creatingCalendar(events);
+      return;
+    }
     if (events.length < 3 || !events[1].equalsIgnoreCase("event")) {
       throw new IllegalArgumentException("Invalid command to create event");
     }
@@ -158,35 +368,180 @@ public class CommandController {
     StringBuilder subjectBuilder = new StringBuilder();
     if (events[i].startsWith("\"")) {
       while (i < events.length) {
-        subjectBuilder.append(events[i]).append("");
+        subjectBuilder.append(events[i]).append(" ");
         if (events[i].endsWith("\"")) {
           break;
         }
         i++;
       }
+    } else {
+      subjectBuilder.append(events[i]);
     }
+    i++;
+    String subject = unquote(subjectBuilder.toString());
+    ZoneId zone = currentCalendar().getZoneId();
     if (i < events.length && events[i].equalsIgnoreCase("from")) {
       if (i + 3 >= events.length || !events[i + 2].equalsIgnoreCase("to")) {
         throw new IllegalArgumentException("Expected: from <start> to <end>");
       }
       LocalDateTime startEvent = eventDateTime(events[i + 1]);
       LocalDateTime endEvent = eventDateTime(events[i + 3]);
+      if (i + 4 < events.length) {
+        addSeries(events, i + 4, subject, startEvent.toLocalTime(), endEvent.toLocalTime(),
+                startEvent.toLocalDate());
+        return;
+      }
+      addSingle(new Event(subject, startEvent.atZone(zone), endEvent.atZone(zone),
+              "", Status.Public, ""));
     } else if (i < events.length && events[i].equalsIgnoreCase("on")) {
       if (i + 1 >= events.length) {
         throw new IllegalArgumentException("Expected: on <date>");
       }
       LocalDate date = LocalDate.parse(events[i + 1]);
-      ZonedDateTime start = ZonedDateTime.from(LocalDateTime.of(date, LocalTime.of(8, 0)));
-      ZonedDateTime end = ZonedDateTime.from(LocalDateTime.of(date, LocalTime.of(17, 0)));
-      Event e = new Event("", start, end, "", Status.Public, "");
-      if (!model.addEvent(e)) {
-        throw new IllegalArgumentException("Duplicate event exists.");
+      if (i + 2 < events.length) {
+        addSeries(events, i + 2, subject, LocalTime.of(8, 0), LocalTime.of(17, 0), date);
+        return;
       }
+      addSingle(new Event(subject, date.atStartOfDay(zone), null, "", Status.Public, ""));
     } else {
       throw new IllegalArgumentException("Format incorrectly");
     }
   }
 
+  /**
+   * Creates a new calendar with a name and a time zone.
+   * Format: create calendar --name name --timezone zone.
+   *
+   * @param events string of the command.
+   */
+  private static void creatingCalendar(String[] events) {
+    String name = null;
+    String zoneText = null;
+    for (int i = 2; i < events.length; i++) {
+      if ("--name".equalsIgnoreCase(events[i]) && i + 1 < events.length) {
+        name = events[++i];
+      } else if ("--timezone".equalsIgnoreCase(events[i]) && i + 1 < events.length) {
+        zoneText = events[++i];
+      }
+    }
+    if (name == null || zoneText == null) {
+      throw new IllegalArgumentException(
+              "Expected: create calendar --name <name> --timezone <zone>");
+    }
+    ZoneId zone;
+    try {
+      zone = ZoneId.of(zoneText);
+    } catch (DateTimeException e) {
+      throw new IllegalArgumentException("Invalid time zone " + zoneText);
+    }
+    if (model.createCalendar(name, zone)) {
+      System.out.println("Created calendar " + name);
+    } else {
+      System.out.println("Failed to create calendar " + name);
+    }
+  }
+
+  private static void addSingle(Event event) {
+    List<IEvent> conflicts = currentCalendar().getConflictPolicy() == ConflictPolicy.ALLOW
+            ? List.of() : currentCalendar().getConflicts(List.of(event));
+    if (!model.addEvent(event)) {
+      if (!conflicts.isEmpty()) {
+        throw new IllegalArgumentException("Event overlaps " + describe(conflicts));
+      }
+      throw new IllegalArgumentException("Duplicate event exists.");
+    }
+    counted(1 + conflicts.size(), 1);
+    if (!conflicts.isEmpty()) {
+      System.out.println("Warning: event overlaps " + describe(conflicts));
+    }
+  }
+
+  private static String describe(List<IEvent> conflicts) {
+    StringBuilder text = new StringBuilder();
+    for (IEvent e : conflicts) {
+      if (text.length() > 0) {
+        text.append(", ");
+      }
+      text.append(e.getSubject()).append(" (")
+              .append(e.getStartDateTime().toLocalDateTime()).append(")");
+    }
+    return text.toString();
+  }
+
+  /**
+   * Adds a repeating event to the current calendar.
+   * Format: repeats weekdays for count times, or repeats weekdays until date.
+   *
+   * @param events    string of the command.
+   * @param i         index of the repeats keyword.
+   * @param subject   name of the events.
+   * @param startTime start time of every occurrence.
+   * @param endTime   end time of every occurrence.
+   * @param startDate date of the first occurrence.
+   */
+  private static void addSeries(String[] events, int i, String subject, LocalTime startTime,
+                                LocalTime endTime, LocalDate startDate) {
+    if (i + 3 >= events.length || !events[i].equalsIgnoreCase("repeats")) {
+      throw new IllegalArgumentException(
+              "Expected: repeats <weekdays> for <N> times | repeats <weekdays> until <date>");
+    }
+    Set<DayOfWeek> days = weekDays(events[i + 1]);
+    Integer count = null;
+    LocalDate until = null;
+    if (events[i + 2].equalsIgnoreCase("for") && i + 4 < events.length
+            && events[i + 4].equalsIgnoreCase("times")) {
+      try {
+        count = Integer.parseInt(events[i + 3]);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid repeat count " + events[i + 3]);
+      }
+    } else if (events[i + 2].equalsIgnoreCase("until")) {
+      until = LocalDate.parse(events[i + 3]);
+    } else {
+      throw new IllegalArgumentException("Expected: for <N> times or until <date>");
+    }
+    EventSeries series = new EventSeries(subject, startTime, endTime, "", "", Status.Public,
+            days, startDate, count, until);
+    ICalendarModel calendar = currentCalendar();
+    List<IEvent> conflicts = calendar.getConflictPolicy() == ConflictPolicy.WARN
+            ? calendar.getConflicts(series.generateEvents(calendar.getZoneId())) : List.of();
+    int added = series.addTo(calendar);
+    counted(added + conflicts.size(), added);
+    if (!conflicts.isEmpty()) {
+      System.out.println("Warning: series overlaps " + describe(conflicts));
+    }
+  }
+
+  /**
+   * Reads week days written as letters, M T W R F S U.
+   *
+   * @param letters the week day letters.
+   * @return the week days.
+   */
+  private static Set<DayOfWeek> weekDays(String letters) {
+    Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+    for (char c : letters.toUpperCase().toCharArray()) {
+      int index = "MTWRFSU".indexOf(c);
+      if (index < 0) {
+        throw new IllegalArgumentException("Invalid week day " + c);
+      }
+      days.add(DayOfWeek.of(index + 1));
+    }
+    return days;
+  }
+
+  private static ICalendarModel currentCalendar() {
+    ICalendarModel calendar = model.getCurrentCalendar();
+    if (calendar == null) {
+      throw new IllegalArgumentException("No calendar in use");
+    }
+    return calendar;
+  }
+
+  private static String unquote(String text) {
+    return text.replace("\"", "").trim();
+  }
+
   private static LocalDateTime eventDateTime(String str) {
     try {
       return LocalDateTime.parse(str);
@@ -201,6 +556,10 @@ public class CommandController {
    * @param events string of date and time.
    */
   public static void showingEvent(String[] events) {
+    if (events.length > 1 && events[1].equalsIgnoreCase("room")) {
+      showingRoom(events);
+      return;
+    }
     if (events.length != 4 || !events[1].equalsIgnoreCase("status") ||
             !events[2].equalsIgnoreCase("on")) {
       throw new IllegalArgumentException("Expected Status");
@@ -216,6 +575,22 @@ public class CommandController {
     }
   }
 
+  /**
+   * Shows whether a room is free in every calendar at a time.
+   * Format: show room location at dateTime.
+   *
+   * @param events string of the command.
+   */
+  private static void showingRoom(String[] events) {
+    int atIdx = find(events, "at");
+    if (atIdx < 3 || atIdx + 2 != events.length) {
+      throw new IllegalArgumentException("Expected: show room <location> at <dateTime>");
+    }
+    String room = unquote(String.join(" ", Arrays.copyOfRange(events, 2, atIdx)));
+    ZonedDateTime time = eventDateTime(events[atIdx + 1]).atZone(currentCalendar().getZoneId());
+    System.out.println(model.isRoomFree(room, time) ? room + " is free" : room + " is booked");
+  }
+
   /**
    * Printing events within a calendar.
    * Prints the events based on the time and zone.
@@ -231,9 +606,8 @@ public class CommandController {
     ZoneId zone = model.getCurrentCalendar().getZoneId();
     if (events[1].equalsIgnoreCase("events") && events[2].equalsIgnoreCase("on")) {
       LocalDate date = LocalDate.parse(events[3]);
-      ZonedDateTime start = date.atStartOfDay(zone);
-      ZonedDateTime end = date.plusDays(1).atStartOfDay(zone).minusNanos(1);
-      var event = model.getEventsOn(start, end);
+      var event = currentCalendar().getAgenda(date);
+      counted(event.size(), event.size());
       if (event.isEmpty()) {
         System.out.println("No events on " + date);
       } else {
@@ -245,6 +619,7 @@ public class CommandController {
                   e.getLocation().isEmpty() ? "" : " @ " + e.getLocation());
         }
       }
+      return;
     } else if (events[1].equalsIgnoreCase("events") && events[2].equalsIgnoreCase("from")) {
       if (events.length < 6 || !events[4].equalsIgnoreCase("to")) {
         throw new IllegalArgumentException("Expected format: print events from <start> to <end>");
@@ -255,6 +630,7 @@ public class CommandController {
     ZonedDateTime startOfEvent = ZonedDateTime.of(startLocalTime, zone);
     ZonedDateTime endOfEvent = ZonedDateTime.of(endLocalTime, zone);
     var calendarEvents = model.getEventsBetween(startOfEvent, endOfEvent);
+    counted(calendarEvents.size(), calendarEvents.size());
     if (calendarEvents.isEmpty()) {
       System.out.println("No events on " + startOfEvent);
     } else {
@@ -293,7 +669,9 @@ public class CommandController {
       ZonedDateTime dstStart = ZonedDateTime.parse(task[toIdx + 1],
               DateTimeFormatter.ISO_DATE_TIME);
 
-      if (!model.copyEvent(subject, srcStart, dstCal, dstStart)) {
+      boolean copied = model.copyEvent(subject, srcStart, dstCal, dstStart);
+      counted(1, copied ? 1 : 0);
+      if (!copied) {
         System.out.println("Copy failed (duplicate?)");
       }
     } else if ("events".equalsIgnoreCase(task[1]) && "on".equalsIgnoreCase(task[2])) {
@@ -304,6 +682,7 @@ public class CommandController {
       LocalDate dstDay = LocalDate.parse(task[toIdx + 1]);
 
       int n = model.copyEventsOn(srcDay, dstCal, dstDay);
+      counted(n, n);
       System.out.println(n + " events copied.");
 
     } else if ("events".equalsIgnoreCase(task[1]) && "between".equalsIgnoreCase(task[2])) {
@@ -316,12 +695,263 @@ public class CommandController {
       ZonedDateTime dstStart = ZonedDateTime.parse(task[to + 1]);
 
       int n = model.copyEventsBetween(srcFrom, srcTo, dstCal, dstStart);
+      counted(n, n);
       System.out.println(n + " events copied.");
     } else {
       throw new IllegalArgumentException("Wrong copy syntax");
     }
   }
 
+  /**
+   * Finds the first time all calendars are free.
+   * Format: find slot minutes from start to end, optionally followed by
+   * --calendars a,b,c and --grid minutes.
+   * Times are read in the zone of the current calendar.
+   *
+   * @param task the find command.
+   */
+  private static void findCommand(String[] task) {
+    if (task.length < 7 || !"slot".equalsIgnoreCase(task[1])
+            || !"from".equalsIgnoreCase(task[3]) || !"to".equalsIgnoreCase(task[5])) {
+      throw new IllegalArgumentException("Expected: find slot <minutes> from <start> to <end>"
+              + " [--calendars a,b] [--grid <minutes>]");
+    }
+    Duration length = minutes(task[2]);
+    ZoneId zone = currentCalendar().getZoneId();
+    ZonedDateTime from = eventDateTime(task[4]).atZone(zone);
+    ZonedDateTime to = eventDateTime(task[6]).atZone(zone);
+    List<String> names = List.of();
+    Duration grid = null;
+    for (int i = 7; i + 1 < task.length; i += 2) {
+      if ("--calendars".equalsIgnoreCase(task[i])) {
+        names = Arrays.asList(task[i + 1].split(","));
+      } else if ("--grid".equalsIgnoreCase(task[i])) {
+        grid = minutes(task[i + 1]);
+      } else {
+        throw new IllegalArgumentException("Unknown option " + task[i]);
+      }
+    }
+    Optional<ZonedDateTime> slot = grid == null
+            ? model.findFreeSlot(names, from, to, length)
+            : model.findFreeSlot(names, from, to, length, grid);
+    if (slot.isPresent()) {
+      System.out.println("Free slot: " + slot.get().toLocalDateTime()
+              + " to " + slot.get().plus(length).toLocalDateTime());
+    } else {
+      System.out.println("No free slot between " + task[4] + " and " + task[6]);
+    }
+  }
+
+  /**
+   * Lists the double bookings of a room across all calendars.
+   * Format: find conflicts location from start to end.
+   *
+   * @param task the command split on spaces.
+   */
+  private static void conflictsCommand(String[] task) {
+    int fromIdx = find(task, "from");
+    if (fromIdx < 3 || fromIdx + 4 != task.length
+            || !"to".equalsIgnoreCase(task[fromIdx + 2])) {
+      throw new IllegalArgumentException(
+              "Expected: find conflicts <location> from <start> to <end>");
+    }
+    String room = unquote(String.join(" ", Arrays.copyOfRange(task, 2, fromIdx)));
+    ZoneId zone = currentCalendar().getZoneId();
+    ZonedDateTime from = eventDateTime(task[fromIdx + 1]).atZone(zone);
+    ZonedDateTime to = eventDateTime(task[fromIdx + 3]).atZone(zone);
+    List<RoomConflict> conflicts = model.roomConflicts(room, from, to);
+    counted(2 * conflicts.size(), conflicts.size());
+    if (conflicts.isEmpty()) {
+      System.out.println("No conflicts in " + room);
+      return;
+    }
+    for (RoomConflict c : conflicts) {
+      System.out.printf("- %s (%s) overlaps %s (%s)%n",
+              c.getFirst().getSubject(), c.getFirst().getStartDateTime().toLocalDateTime(),
+              c.getSecond().getSubject(), c.getSecond().getStartDateTime().toLocalDateTime());
+    }
+  }
+
+  /**
+   * Lists the events of the current calendar whose subject starts with a prefix.
+   * Format: search events "prefix" [from start to end].
+   *
+   * @param task the command split on spaces.
+   */
+  private static void searchCommand(String[] task) {
+    int fromIdx = find(task, "from");
+    int end = fromIdx < 0 ? task.length : fromIdx;
+    if (task.length < 3 || !"events".equalsIgnoreCase(task[1]) || end < 3
+            || (fromIdx >= 0 && (fromIdx + 4 != task.length
+                    || !"to".equalsIgnoreCase(task[fromIdx + 2])))) {
+      throw new IllegalArgumentException(
+              "Expected: search events \"<prefix>\" [from <start> to <end>]");
+    }
+    String prefix = unquote(String.join(" ", Arrays.copyOfRange(task, 2, end)));
+    ZonedDateTime from = null;
+    ZonedDateTime to = null;
+    if (fromIdx >= 0) {
+      ZoneId zone = currentCalendar().getZoneId();
+      from = eventDateTime(task[fromIdx + 1]).atZone(zone);
+      to = eventDateTime(task[fromIdx + 3]).atZone(zone);
+    }
+    List<IEvent> found = model.searchByPrefix(prefix, from, to);
+    counted(found.size(), found.size());
+    if (found.isEmpty()) {
+      System.out.println("No events starting with " + prefix);
+      return;
+    }
+    for (IEvent e : found) {
+      System.out.printf("- %s (%s to %s)%s%n",
+              e.getSubject(),
+              e.getStartDateTime().toLocalDateTime(),
+              e.getEndDateTime().toLocalDateTime(),
+              e.getLocation() == null || e.getLocation().isEmpty()
+                      ? "" : " @ " + e.getLocation());
+    }
+  }
+
+  /**
+   * Lists the events of every calendar whose description or location has some words.
+   * Format: search text words [or words ...] [at location] [from start to end].
+   * Each group of words must all appear, in the description or location; groups
+   * separated by "or" are alternatives, and "at" also requires words in the location.
+   *
+   * @param task the command split on spaces.
+   */
+  private static void searchTextCommand(String[] task) {
+    int fromIdx = find(task, "from");
+    int atIdx = find(task, "at");
+    int end = fromIdx < 0 ? task.length : fromIdx;
+    int wordsEnd = atIdx < 0 ? end : atIdx;
+    if (wordsEnd < 3 || (atIdx >= 0 && (atIdx > end || atIdx + 1 >= end))
+            || (fromIdx >= 0 && (fromIdx + 4 != task.length
+                    || !"to".equalsIgnoreCase(task[fromIdx + 2])))) {
+      throw new IllegalArgumentException(
+              "Expected: search text <words> [or <words>] [at <location>]"
+                      + " [from <start> to <end>]");
+    }
+    String words = unquote(String.join(" ", Arrays.copyOfRange(task, 2, wordsEnd)));
+    List<TextQuery> groups = new ArrayList<>();
+    for (String group : words.split("(?i)\\s+or\\s+")) {
+      groups.add(TextQuery.anywhere(group));
+    }
+    TextQuery query = groups.size() == 1
+            ? groups.get(0) : TextQuery.or(groups.toArray(new TextQuery[0]));
+    if (atIdx >= 0) {
+      query = TextQuery.and(query, TextQuery.location(
+              unquote(String.join(" ", Arrays.copyOfRange(task, atIdx + 1, end)))));
+    }
+    ZonedDateTime from = null;
+    ZonedDateTime to = null;
+    if (fromIdx >= 0) {
+      ZoneId zone = currentCalendar().getZoneId();
+      from = eventDateTime(task[fromIdx + 1]).atZone(zone);
+      to = eventDateTime(task[fromIdx + 3]).atZone(zone);
+    }
+    List<IEvent> found = model.searchTextAll(query, from, to);
+    counted(found.size(), found.size());
+    if (found.isEmpty()) {
+      System.out.println("No events mention " + words);
+      return;
+    }
+    for (IEvent e : found) {
+      System.out.printf("- %s (%s to %s)%s%n",
+              e.getSubject(),
+              e.getStartDateTime().toLocalDateTime(),
+              e.getEndDateTime().toLocalDateTime(),
+              e.getLocation() == null || e.getLocation().isEmpty()
+                      ? "" : " @ " + e.getLocation());
+    }
+  }
+
+  private static Duration minutes(String text) {
+    try {
+      long value = Long.parseLong(text);
+      if (value <= 0) {
+        throw new IllegalArgumentException("Minutes must be positive: " + text);
+      }
+      return Duration.ofMinutes(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid number of minutes: " + text);
+    }
+  }
+
+  /**
+   * Prints the count and latency of every timed operation.
+   * With "memory", prints the estimated text index size of each calendar instead,
+   * and with "rooms from start to end" the share of the window each room is booked.
+   * "stats events ..." reports on the events of the current calendar.
+   *
+   * @param task the stats command.
+   */
+  private static void statsCommand(String[] task) {
+    if (task.length > 1 && "events".equalsIgnoreCase(task[1])) {
+      eventStatsCommand(task);
+      return;
+    }
+    if (task.length == 6 && "rooms".equalsIgnoreCase(task[1])
+            && "from".equalsIgnoreCase(task[2]) && "to".equalsIgnoreCase(task[4])) {
+      ZoneId zone = currentCalendar().getZoneId();
+      model.roomOccupancy(eventDateTime(task[3]).atZone(zone),
+              eventDateTime(task[5]).atZone(zone)).forEach((room, percent) ->
+              System.out.printf("%s: %.1f%% booked%n", room, percent));
+      return;
+    }
+    if (task.length == 2 && "memory".equalsIgnoreCase(task[1])) {
+      model.textIndexBytes().forEach((name, bytes) ->
+              System.out.printf("%s: text index %d bytes%n", name, bytes));
+      return;
+    }
+    if (task.length != 1) {
+      throw new IllegalArgumentException(
+              "Expected: stats [memory | rooms from <start> to <end>]");
+    }
+    System.out.print(MetricsRegistry.global().report());
+  }
+
+  /**
+   * Prints counts, durations and a histogram of the events of the current calendar.
+   * Format: stats events from start to end [by day|weekday|hour]; by day if omitted.
+   *
+   * @param task the command split on spaces.
+   */
+  private static void eventStatsCommand(String[] task) {
+    boolean byGiven = task.length == 8 && "by".equalsIgnoreCase(task[6]);
+    if ((task.length != 6 && !byGiven) || !"from".equalsIgnoreCase(task[2])
+            || !"to".equalsIgnoreCase(task[4])) {
+      throw new IllegalArgumentException(
+              "Expected: stats events from <start> to <end> [by day|weekday|hour]");
+    }
+    Granularity by = Granularity.DAY;
+    if (byGiven) {
+      by = Arrays.stream(Granularity.values())
+              .filter(g -> g.name().equalsIgnoreCase(task[7]))
+              .findFirst()
+              .orElseThrow(() -> new IllegalArgumentException("Invalid grouping " + task[7]));
+    }
+    ICalendarModel calendar = currentCalendar();
+    ZoneId zone = calendar.getZoneId();
+    EventStats stats = calendar.aggregate(eventDateTime(task[3]).atZone(zone),
+            eventDateTime(task[5]).atZone(zone), by);
+    counted((int) stats.getCount(), stats.buckets());
+    System.out.println("Events: " + stats.getCount());
+    System.out.println("Total: " + hoursAndMinutes(stats.getTotalDuration()));
+    System.out.println("Busy: " + hoursAndMinutes(stats.getBusyDuration()));
+    System.out.println("Average: " + hoursAndMinutes(stats.getAverageDuration()));
+    long[] counts = stats.getCounts();
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        System.out.printf("  %s: %d events, %s%n", stats.label(i), counts[i],
+                hoursAndMinutes(stats.getDuration(i)));
+      }
+    }
+  }
+
+  private static String hoursAndMinutes(Duration duration) {
+    return String.format("%dh %02dm", duration.toHours(), duration.toMinutesPart());
+  }
+
   /**
    * Method that finds the event requested.
    *
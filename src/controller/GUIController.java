@@ -1,20 +1,22 @@
 package controller;
 
 import model.CalendarManager;
-import model.CalendarModel;
 import model.Event;
+import model.EventPage;
+import model.ICalendarModel;
 import model.IEvent;
 import model.Status;
+import model.VersionedCalendarModel;
 import view.CalendarGUI;
 import view.ICalendarView;
 
 import javax.swing.JComboBox;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,11 +25,13 @@ import java.util.stream.Collectors;
  * Acts as a controller between the ICalendarView and the CalendarManager model.
  */
 public class GUIController implements ICalendarController {
+  private static final int SCHEDULE_PAGE_SIZE = 10;
 
   private final CalendarManager manager;
   private final ICalendarView view;
   private IEvent eventBeingEdited = null;
   private ZoneId currentZone = ZoneId.systemDefault();
+  private final AgendaCache agendaCache;
 
   /**
    * Constructs a GUIController with the given CalendarManager and View.
@@ -39,6 +43,7 @@ public class GUIController implements ICalendarController {
   public GUIController(CalendarManager manager, ICalendarView view) {
     this.manager = manager;
     this.view = view;
+    this.agendaCache = new AgendaCache(manager.changes());
   }
 
   /**
@@ -74,7 +79,7 @@ public class GUIController implements ICalendarController {
               status,
               description
       );
-      CalendarModel currentCalendar = (CalendarModel) manager.getCurrentCalendar();
+      ICalendarModel currentCalendar = manager.getCurrentCalendar();
       boolean added = currentCalendar.addEvent(event);
       if (!added) {
         view.showError("Failed to add event. Duplicate or invalid.");
@@ -90,18 +95,21 @@ public class GUIController implements ICalendarController {
 
   /**
    * Handles the process of viewing the schedule.
+   * Shows the first page of events of the chosen date; only that page is read
+   * from the calendar.
    */
   @Override
   public void handleViewSchedule() {
     try {
       LocalDate date = view.getDateFilter();
-      ZoneId zone = ZoneId.systemDefault();
-      ZonedDateTime start = date.atStartOfDay(zone);
-      ZonedDateTime end = start.plusDays(1);
-      List<IEvent> events = manager.getEventsOn(start, end);
-      String display = events.stream()
-              .sorted(Comparator.comparing(IEvent::getStartDateTime))
-              .limit(10)
+      ICalendarModel calendar = manager.getCurrentCalendar();
+      if (calendar == null) {
+        view.displaySchedule("No calendar in use.");
+        return;
+      }
+      ZonedDateTime from = date.atStartOfDay(calendar.getZoneId());
+      EventPage page = calendar.query(from, from.plusDays(1), SCHEDULE_PAGE_SIZE, null);
+      String display = page.getEvents().stream()
               .map(IEvent::toString)
               .collect(Collectors.joining("\n\n"));
       if (display.isEmpty()) {
@@ -151,7 +159,7 @@ public class GUIController implements ICalendarController {
    */
   public void handleSwitchCalendar(String calName) {
     if (manager.useCalendar(calName)) {
-      currentZone = ((CalendarModel) manager.getCurrentCalendar()).getZoneId();
+      currentZone = manager.getCurrentCalendar().getZoneId();
       refreshCalendarsAndEvents();
     }
   }
@@ -184,8 +192,7 @@ public class GUIController implements ICalendarController {
             (Status) ((JComboBox<?>) view.getStatusDropdown()).getSelectedItem(),
             view.getEventDescription());
 
-    if (manager.editEvent(oldEvt.getSubject(),
-            oldEvt.getStartDateTime(), updated)) {
+    if (manager.editEventById(oldEvt.getId(), updated)) {
       view.showMessage("Event updated.");
     } else {
       view.showError("Cannot Update");
@@ -194,12 +201,77 @@ public class GUIController implements ICalendarController {
     ((CalendarGUI) view).resetEditor();
   }
 
+  /**
+   * Handles the process of undoing the last change to the current calendar.
+   */
+  public void handleUndo() {
+    VersionedCalendarModel calendar = versionedCalendar();
+    if (calendar == null || !calendar.undo()) {
+      view.showError("Nothing to undo.");
+      return;
+    }
+    refreshCalendarsAndEvents();
+  }
+
+  /**
+   * Handles the process of redoing the last undone change to the current calendar.
+   */
+  public void handleRedo() {
+    VersionedCalendarModel calendar = versionedCalendar();
+    if (calendar == null || !calendar.redo()) {
+      view.showError("Nothing to redo.");
+      return;
+    }
+    refreshCalendarsAndEvents();
+  }
+
+  private VersionedCalendarModel versionedCalendar() {
+    ICalendarModel calendar = manager.getCurrentCalendar();
+    return calendar instanceof VersionedCalendarModel ? (VersionedCalendarModel) calendar : null;
+  }
+
+  /**
+   * Handles the user moving to another day in the date filter.
+   * The adjacent days are usually already cached.
+   */
+  public void handleDateChanged() {
+    view.refreshEventList(agendaFor(view.getDateFilter(), currentZone));
+  }
+
   private void refreshCalendarsAndEvents() {
     view.refreshCalendarBox(manager.getCalendarNames(),
             manager.getCurrentCalendarName());
-    LocalDate today = view.getDateFilter();
-    ZonedDateTime s = today.atStartOfDay(currentZone);
-    ZonedDateTime e = s.plusDays(1);
-    view.refreshEventList(manager.getEventsOn(s, e));
+    view.refreshEventList(agendaFor(view.getDateFilter(), currentZone));
+  }
+
+  /**
+   * Gets the events of a day in the current calendar from the agenda cache.
+   * The previous and next days are prefetched once the current event has been handled,
+   * so the model is never read while it is being changed.
+   *
+   * @param day  the day to show.
+   * @param zone the zone the day is viewed in.
+   * @return the events of that day.
+   */
+  private List<IEvent> agendaFor(LocalDate day, ZoneId zone) {
+    String calendar = manager.getCurrentCalendarName();
+    if (calendar == null) {
+      return List.of();
+    }
+    List<IEvent> events = agendaCache.get(calendar, zone, day, () -> loadDay(day, zone));
+    SwingUtilities.invokeLater(() -> {
+      if (calendar.equals(manager.getCurrentCalendarName())) {
+        LocalDate before = day.minusDays(1);
+        LocalDate after = day.plusDays(1);
+        agendaCache.prefetch(calendar, zone, before, () -> loadDay(before, zone));
+        agendaCache.prefetch(calendar, zone, after, () -> loadDay(after, zone));
+      }
+    });
+    return events;
+  }
+
+  private List<IEvent> loadDay(LocalDate day, ZoneId zone) {
+    ZonedDateTime start = day.atStartOfDay(zone);
+    return manager.getEventsOn(start, start.plusDays(1));
   }
 }
\ No newline at end of file
@@ -0,0 +1,176 @@
+package model;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Materialized agendas of the days around today for one calendar.
+ * Each day keeps its events, in the calendar zone, in an array sorted by start
+ * and id, with an unmodifiable list view over it. Changes copy the array of the
+ * days they touch and swap in a new view, so a read just returns the current view
+ * and lists handed out earlier never change. Unlike the window memo, the days are
+ * not dropped on every change: adds and removes patch only the days of the event.
+ * The window rolls forward when the date in the calendar zone changes.
+ */
+final class AgendaViews {
+  private static final Comparator<IEvent> ORDER =
+      Comparator.comparing(IEvent::getStartDateTime).thenComparingLong(IEvent::getId);
+
+  private final int daysBefore;
+  private final int daysAfter;
+  private final Clock clock;
+  private final Map<LocalDate, Day> days = new HashMap<>();
+  private ZoneId zone;
+  private LocalDate first;
+  private LocalDate last;
+
+  /**
+   * Creates empty views; call roll to fill them.
+   *
+   * @param daysBefore days before today to keep.
+   * @param daysAfter  days after today to keep.
+   * @param clock      the clock giving today.
+   */
+  AgendaViews(int daysBefore, int daysAfter, Clock clock) {
+    if (daysBefore < 0 || daysAfter < 0) {
+      throw new IllegalArgumentException("Agenda window must not be negative");
+    }
+    this.daysBefore = daysBefore;
+    this.daysAfter = daysAfter;
+    this.clock = clock;
+  }
+
+  /**
+   * Empty views with the same window and clock, for a copy of the calendar.
+   *
+   * @return the new views.
+   */
+  AgendaViews emptyCopy() {
+    return new AgendaViews(daysBefore, daysAfter, clock);
+  }
+
+  /**
+   * Moves the window to today in a zone, loading the days that came into it.
+   * Days still in the window are kept; a new zone reloads every day.
+   *
+   * @param zone   the calendar zone.
+   * @param loader the sorted events of a day in that zone.
+   */
+  synchronized void roll(ZoneId zone, Function<LocalDate, List<IEvent>> loader) {
+    LocalDate today = LocalDate.now(clock.withZone(zone));
+    LocalDate newFirst = today.minusDays(daysBefore);
+    if (zone.equals(this.zone) && newFirst.equals(first)) {
+      return;
+    }
+    if (!zone.equals(this.zone)) {
+      days.clear();
+    }
+    this.zone = zone;
+    first = newFirst;
+    last = today.plusDays(daysAfter);
+    days.keySet().removeIf(day -> day.isBefore(first) || day.isAfter(last));
+    for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+      if (!days.containsKey(day)) {
+        IEvent[] sorted = loader.apply(day).toArray(new IEvent[0]);
+        Arrays.sort(sorted, ORDER);
+        days.put(day, new Day(sorted));
+      }
+    }
+  }
+
+  /**
+   * The agenda of a day, if it is materialized.
+   *
+   * @param day the day.
+   * @return the unmodifiable, sorted events, or null if the day is outside the window.
+   */
+  synchronized List<IEvent> get(LocalDate day) {
+    Day agenda = days.get(day);
+    return agenda == null ? null : agenda.view;
+  }
+
+  /**
+   * Inserts an event into every materialized day it overlaps.
+   *
+   * @param shown the event in the calendar zone.
+   */
+  synchronized void add(IEvent shown) {
+    for (LocalDate day : daysOf(shown)) {
+      IEvent[] old = days.get(day).events;
+      int at = Arrays.binarySearch(old, shown, ORDER);
+      at = at < 0 ? -at - 1 : at;
+      IEvent[] grown = new IEvent[old.length + 1];
+      System.arraycopy(old, 0, grown, 0, at);
+      grown[at] = shown;
+      System.arraycopy(old, at, grown, at + 1, old.length - at);
+      days.put(day, new Day(grown));
+    }
+  }
+
+  /**
+   * Removes an event, found by id, from every materialized day it overlaps.
+   *
+   * @param event the stored event.
+   */
+  synchronized void remove(IEvent event) {
+    if (zone == null) {
+      return;
+    }
+    IEvent shown = Event.inZone(event, zone);
+    for (LocalDate day : daysOf(shown)) {
+      IEvent[] old = days.get(day).events;
+      int at = Arrays.binarySearch(old, shown, ORDER);
+      if (at >= 0 && old[at].getId() == event.getId()) {
+        IEvent[] shrunk = new IEvent[old.length - 1];
+        System.arraycopy(old, 0, shrunk, 0, at);
+        System.arraycopy(old, at + 1, shrunk, at, old.length - at - 1);
+        days.put(day, new Day(shrunk));
+      }
+    }
+  }
+
+  /**
+   * The materialized days an event shows up on. Like getEventsOn, an event
+   * ending exactly at midnight also shows up on the day that starts then.
+   */
+  private List<LocalDate> daysOf(IEvent shown) {
+    if (zone == null) {
+      return List.of();
+    }
+    LocalDate from = shown.getStartDateTime().toLocalDate();
+    LocalDate to = shown.getEndDateTime().toLocalDate();
+    if (from.isBefore(first)) {
+      from = first;
+    }
+    if (to.isAfter(last)) {
+      to = last;
+    }
+    if (from.isAfter(to)) {
+      return List.of();
+    }
+    return from.datesUntil(to.plusDays(1)).collect(Collectors.toList());
+  }
+
+  /**
+   * The sorted events of one day and the list handed out for them.
+   * The array is never changed once the day is built.
+   */
+  private static final class Day {
+    private final IEvent[] events;
+    private final List<IEvent> view;
+
+    private Day(IEvent[] events) {
+      this.events = events;
+      this.view = Collections.unmodifiableList(Arrays.asList(events));
+    }
+  }
+}
@@ -6,12 +6,23 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * This class will manage the action of creating multiple calendars.
@@ -19,7 +30,15 @@ import java.util.Set;
  * Creating more than 1 calendar, as it has many possibilities as well.
  */
 public class CalendarManager {
-  private Map<String, ICalendarModel> calendars = new HashMap<>();
+  private static final Comparator<IEvent> START_ORDER =
+      Comparator.comparing(IEvent::getStartDateTime);
+  private static final int CHANGE_CAPACITY = 4096;
+
+  private final AtomicReference<Map<String, ICalendarModel>> version =
+      new AtomicReference<>(Map.of());
+  private final boolean versioned;
+  private final ChangeFeed changes = new ChangeFeed(CHANGE_CAPACITY);
+  private final ChangeSink sink = changes::publish;
   private String calendarName;
 
   /**
@@ -28,6 +47,17 @@ public class CalendarManager {
    * Set up of creating a new calendar.
    */
   public CalendarManager() {
+    this(false);
+  }
+
+  /**
+   * Creates a manager whose calendars may keep their history.
+   * Versioned calendars support undo, redo and cheap snapshots.
+   *
+   * @param versioned true to create VersionedCalendarModel calendars.
+   */
+  public CalendarManager(boolean versioned) {
+    this.versioned = versioned;
     createCalendar("default", ZoneId.systemDefault());
     calendarName = "default";
   }
@@ -41,10 +71,24 @@ public class CalendarManager {
    * @return the calendar that was being created.
    */
   public boolean createCalendar(String subject, ZoneId zoneId) {
-    if (subject == null || subject.isEmpty() || calendars.containsKey(subject)) {
+    if (subject == null || subject.isEmpty()) {
       return false;
     }
-    calendars.put(subject, new CalendarModel(zoneId));
+    ICalendarModel calendar;
+    if (versioned) {
+      VersionedCalendarModel model = new VersionedCalendarModel(zoneId);
+      model.setName(subject);
+      calendar = model;
+    } else {
+      CalendarModel model = new CalendarModel(zoneId);
+      model.setName(subject);
+      calendar = model;
+    }
+    if (!update(map -> map.putIfAbsent(subject, calendar) == null)) {
+      return false;
+    }
+    attach(calendar, sink);
+    sink.accept(ChangeRecord.Type.CALENDAR_CREATED, subject, zoneId.getId(), null, null);
     return true;
   }
 
@@ -55,12 +99,14 @@ public class CalendarManager {
    * @return true if it was deleted successfully, false otherwise.
    */
   public boolean deleteCalendar(String subject) {
-    if (!calendars.containsKey(subject)) {
+    ICalendarModel[] removed = new ICalendarModel[1];
+    if (!update(map -> (removed[0] = map.remove(subject)) != null)) {
       return false;
     }
-    calendars.remove(subject);
+    attach(removed[0], ChangeSink.NONE);
+    sink.accept(ChangeRecord.Type.CALENDAR_DELETED, subject, null, null, null);
     if (subject.equals(calendarName)) {
-      calendarName = calendars.keySet().stream()
+      calendarName = calendars().keySet().stream()
               .filter(n -> !n.equals(subject))
               .findFirst()
               .orElse(null);
@@ -87,14 +133,62 @@ public class CalendarManager {
    * @return true or false if editing was successful.
    */
   public boolean editTimeZones(String subject, ZoneId zoneId) {
-    if (!calendars.containsKey(subject)) {
+    ICalendarModel calendarModel = calendars().get(subject);
+    if (calendarModel == null || zoneId == null) {
       return false;
     }
-    ICalendarModel calendarModel = calendars.get(subject);
     calendarModel.setZoneId(zoneId);
     return true;
   }
 
+  /**
+   * Sets what a calendar does when an added event overlaps another one.
+   *
+   * @param subject the name of the calendar.
+   * @param policy  the conflict policy.
+   * @return true if the calendar exists and the policy was set.
+   */
+  public boolean setConflictPolicy(String subject, ConflictPolicy policy) {
+    ICalendarModel calendarModel = calendars().get(subject);
+    if (calendarModel == null || policy == null) {
+      return false;
+    }
+    calendarModel.setConflictPolicy(policy);
+    return true;
+  }
+
+  /**
+   * Keeps materialized agendas of the days around today in a calendar.
+   *
+   * @param subject    the name of the calendar.
+   * @param daysBefore days before today to keep.
+   * @param daysAfter  days after today to keep.
+   * @return true if the calendar exists.
+   */
+  public boolean setAgendaWindow(String subject, int daysBefore, int daysAfter) {
+    ICalendarModel calendarModel = calendars().get(subject);
+    if (calendarModel == null) {
+      return false;
+    }
+    calendarModel.setAgendaWindow(daysBefore, daysAfter);
+    return true;
+  }
+
+  /**
+   * Stops keeping materialized agendas in a calendar.
+   *
+   * @param subject the name of the calendar.
+   * @return true if the calendar exists.
+   */
+  public boolean clearAgendaWindow(String subject) {
+    ICalendarModel calendarModel = calendars().get(subject);
+    if (calendarModel == null) {
+      return false;
+    }
+    calendarModel.clearAgendaWindow();
+    return true;
+  }
+
   /**
    * This allows users to change the name of the calendar.
    * The old Name will get replaced by the new one if valid.
@@ -104,25 +198,157 @@ public class CalendarManager {
    * @return the updated calendar name if valid.
    */
   public boolean changingCalendarName(String oldName, String newName) {
-    if (!calendars.containsKey(oldName) || calendars.containsKey(newName)
-            || newName == null || newName.isBlank()) {
+    if (newName == null || newName.isBlank()) {
       return false;
     }
-    ICalendarModel calendar = calendars.remove(oldName);
-    calendars.put(newName, calendar);
+    boolean renamed = update(map -> {
+      if (!map.containsKey(oldName) || map.containsKey(newName)) {
+        return false;
+      }
+      map.put(newName, map.remove(oldName));
+      return true;
+    });
+    if (!renamed) {
+      return false;
+    }
+    ICalendarModel calendar = calendars().get(newName);
+    if (calendar instanceof CalendarModel) {
+      ((CalendarModel) calendar).setName(newName);
+    } else if (calendar instanceof VersionedCalendarModel) {
+      ((VersionedCalendarModel) calendar).setName(newName);
+    }
     if (oldName.equals(calendarName)) {
       calendarName = newName;
     }
+    sink.accept(ChangeRecord.Type.CALENDAR_RENAMED, newName, oldName, null, null);
     return true;
   }
 
+  /**
+   * Every change made through this manager, in order, for consumers such as
+   * search indexes, caches and exports. Changes are recorded as they happen;
+   * the feed holds the latest ones for replay.
+   *
+   * @return the change feed.
+   */
+  public ChangeFeed changes() {
+    return changes;
+  }
+
+  /**
+   * Points a calendar's change reports at a sink.
+   */
+  private static void attach(ICalendarModel calendar, ChangeSink target) {
+    if (calendar instanceof CalendarModel) {
+      ((CalendarModel) calendar).setChanges(target);
+    } else if (calendar instanceof VersionedCalendarModel) {
+      ((VersionedCalendarModel) calendar).setChanges(target);
+    }
+  }
+
+  /**
+   * The write gate of a calendar.
+   *
+   * @return the gate, or null for a calendar type without one.
+   */
+  private static WriteGate gateOf(ICalendarModel calendar) {
+    if (calendar instanceof CalendarModel) {
+      return ((CalendarModel) calendar).gate();
+    }
+    if (calendar instanceof VersionedCalendarModel) {
+      return ((VersionedCalendarModel) calendar).gate();
+    }
+    return null;
+  }
+
+  /**
+   * Locks the write gates of some calendars in gate order, so that two callers
+   * locking overlapping sets never wait on each other.
+   *
+   * @param calendars the calendars.
+   * @return the locked gates, or null if a calendar was already replaced by a
+   *     transaction; nothing is left locked then.
+   */
+  private static List<WriteGate> lockGates(Collection<ICalendarModel> calendars) {
+    List<WriteGate> gates = new ArrayList<>();
+    for (ICalendarModel calendar : calendars) {
+      WriteGate gate = gateOf(calendar);
+      if (gate != null) {
+        gates.add(gate);
+      }
+    }
+    gates.sort(Comparator.comparingLong(WriteGate::order));
+    List<WriteGate> held = new ArrayList<>();
+    for (WriteGate gate : gates) {
+      gate.lock();
+      held.add(gate);
+      if (gate.isRetired()) {
+        held.forEach(WriteGate::unlock);
+        return null;
+      }
+    }
+    return held;
+  }
+
+  /**
+   * The current version of the calendar map.
+   * Each version is immutable; changes to the set of calendars publish a new one.
+   *
+   * @return the current calendars by name.
+   */
+  private Map<String, ICalendarModel> calendars() {
+    return version.get();
+  }
+
+  /**
+   * Applies a change to a copy of the calendar map and publishes it with one
+   * compare-and-set, retrying on a concurrent change.
+   *
+   * @param change edits the copy and returns false to cancel.
+   * @return true if the change was published.
+   */
+  private boolean update(Predicate<Map<String, ICalendarModel>> change) {
+    while (true) {
+      Map<String, ICalendarModel> base = version.get();
+      Map<String, ICalendarModel> next = new HashMap<>(base);
+      if (!change.test(next)) {
+        return false;
+      }
+      if (version.compareAndSet(base, Collections.unmodifiableMap(next))) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * A consistent, read-only view of every calendar at this moment.
+   * Transactions committed later publish new calendar objects and do not change
+   * the calendars of an earlier snapshot. Single-event methods such as addEvent
+   * still change the current calendars in place; once a transaction has replaced
+   * a calendar, writes through the snapshot go on to the replacement.
+   *
+   * @return the calendars by name.
+   */
+  public Map<String, ICalendarModel> snapshot() {
+    return calendars();
+  }
+
+  /**
+   * Starts a transaction that can change several calendars at once.
+   *
+   * @return a new open transaction.
+   */
+  public Transaction begin() {
+    return new Transaction();
+  }
+
   /**
    * Get the name of the calendar.
    *
    * @return the name of the calendar.
    */
   public Set<String> getCalendarNames() {
-    return Collections.unmodifiableSet(calendars.keySet());
+    return Collections.unmodifiableSet(calendars().keySet());
   }
 
   /**
@@ -132,7 +358,7 @@ public class CalendarManager {
    * @return the calendar that was created.
    */
   public ICalendarModel getCalendar(String subject) {
-    return calendars.get(calendarName);
+    return calendars().get(calendarName);
   }
 
   /**
@@ -142,7 +368,7 @@ public class CalendarManager {
    * @return if a user is able to use the calendar.
    */
   public boolean useCalendar(String subject) {
-    if (!calendars.containsKey(subject)) {
+    if (!calendars().containsKey(subject)) {
       return false;
     }
     calendarName = subject;
@@ -159,7 +385,7 @@ public class CalendarManager {
     if (calendarName == null) {
       return null;
     }
-    return calendars.get(calendarName);
+    return calendars().get(calendarName);
   }
 
   /**
@@ -182,6 +408,51 @@ public class CalendarManager {
     return calendar != null && calendar.busyDuring(time);
   }
 
+  /**
+   * Finds the first time at which every listed calendar is free for the given length.
+   *
+   * @param names  names of the calendars, or an empty collection for all calendars.
+   * @param from   earliest start of the slot.
+   * @param to     latest end of the slot.
+   * @param length length of the slot.
+   * @return the start of the first free slot, in the zone of from.
+   */
+  public Optional<ZonedDateTime> findFreeSlot(Collection<String> names, ZonedDateTime from,
+                                              ZonedDateTime to, Duration length) {
+    return SlotFinder.firstFreeSlot(calendarsNamed(names), from, to, length);
+  }
+
+  /**
+   * Finds the first free slot that starts on a grid, e.g. on every quarter hour after from.
+   *
+   * @param names       names of the calendars, or an empty collection for all calendars.
+   * @param from        start of the grid and earliest start of the slot.
+   * @param to          latest end of the slot.
+   * @param length      length of the slot.
+   * @param granularity spacing of the grid.
+   * @return the start of the first free slot, in the zone of from.
+   */
+  public Optional<ZonedDateTime> findFreeSlot(Collection<String> names, ZonedDateTime from,
+                                              ZonedDateTime to, Duration length,
+                                              Duration granularity) {
+    return SlotFinder.firstFreeSlotOnGrid(calendarsNamed(names), from, to, length, granularity);
+  }
+
+  private List<ICalendarModel> calendarsNamed(Collection<String> names) {
+    if (names == null || names.isEmpty()) {
+      return new ArrayList<>(calendars().values());
+    }
+    List<ICalendarModel> found = new ArrayList<>();
+    for (String name : names) {
+      ICalendarModel calendar = calendars().get(name);
+      if (calendar == null) {
+        throw new IllegalArgumentException("Calendar not found: " + name);
+      }
+      found.add(calendar);
+    }
+    return found;
+  }
+
   /**
    * Finds events within a calendar.
    * Find events based on start time.
@@ -207,6 +478,217 @@ public class CalendarManager {
     return calendar == null ? List.of() : calendar.getEventsBetween(start, end);
   }
 
+  /**
+   * Gets the events on a date in every calendar, sorted by start.
+   * Each calendar reads the date in its own time zone.
+   * The calendars are queried in parallel and their sorted results are merged.
+   *
+   * @param date the date of the events.
+   * @return the events of all calendars on that date.
+   */
+  public List<IEvent> getEventsOnAll(LocalDate date) {
+    return fanOut(calendar -> calendar.getEventsOn(date));
+  }
+
+  /**
+   * Gets the events overlapping a time window in every calendar, sorted by start.
+   * The calendars are queried in parallel and their sorted results are merged.
+   *
+   * @param start start of the window.
+   * @param end   end of the window.
+   * @return the events of all calendars in that window.
+   */
+  public List<IEvent> getEventsBetweenAll(ZonedDateTime start, ZonedDateTime end) {
+    return fanOut(calendar -> calendar.getEventsBetween(start, end));
+  }
+
+  /**
+   * Runs a query on every calendar in the common fork/join pool and merges the
+   * start-sorted results, so the wait is the slowest calendar rather than the sum.
+   *
+   * @param query the per-calendar query, which must return events sorted by start.
+   * @return the merged results.
+   */
+  private List<IEvent> fanOut(Function<ICalendarModel, List<IEvent>> query) {
+    return fanOut(calendars().values(), query);
+  }
+
+  private static List<IEvent> fanOut(Collection<ICalendarModel> calendars,
+                                     Function<ICalendarModel, List<IEvent>> query) {
+    List<Iterator<IEvent>> partial = calendars.parallelStream()
+            .map(query)
+            .map(List::iterator)
+            .collect(Collectors.toList());
+    List<IEvent> merged = new ArrayList<>();
+    SortedMerge.merge(partial, START_ORDER).forEachRemaining(merged::add);
+    return merged;
+  }
+
+  /**
+   * Searches the current calendar for events whose subject starts with a prefix.
+   *
+   * @param prefix the start of the subject.
+   * @param from   start of the window, or null.
+   * @param to     end of the window, or null.
+   * @return the matching events sorted by start.
+   */
+  public List<IEvent> searchByPrefix(String prefix, ZonedDateTime from, ZonedDateTime to) {
+    ICalendarModel calendar = getCurrentCalendar();
+    return calendar == null ? List.of() : calendar.searchByPrefix(prefix, from, to);
+  }
+
+  /**
+   * Searches every calendar for events whose description or location match a query.
+   * Each calendar answers from its own text index; the results are merged by start.
+   *
+   * @param query the text query.
+   * @param from  start of the window, or null.
+   * @param to    end of the window, or null.
+   * @return the matching events of all calendars sorted by start.
+   */
+  public List<IEvent> searchTextAll(TextQuery query, ZonedDateTime from, ZonedDateTime to) {
+    return fanOut(calendar -> calendar.searchText(query, from, to));
+  }
+
+  /**
+   * Statistics of a window for every calendar, each read in its own zone.
+   *
+   * @param from start of the window.
+   * @param to   end of the window.
+   * @param by   how to split the histograms.
+   * @return calendar name to statistics, sorted by name.
+   */
+  public Map<String, EventStats> statsByCalendar(ZonedDateTime from, ZonedDateTime to,
+                                                 Granularity by) {
+    Map<String, EventStats> stats = new TreeMap<>();
+    calendars().forEach((calendarName, calendar) ->
+            stats.put(calendarName, calendar.aggregate(from, to, by)));
+    return stats;
+  }
+
+  /**
+   * Estimated text index memory of every calendar, kept apart from event memory.
+   *
+   * @return calendar name to estimated index bytes, sorted by name.
+   */
+  public Map<String, Long> textIndexBytes() {
+    Map<String, Long> bytes = new TreeMap<>();
+    calendars().forEach((calendarName, calendar) ->
+            bytes.put(calendarName, calendar.textIndexBytes()));
+    return bytes;
+  }
+
+  /**
+   * Checks whether a room is free at a time in every calendar.
+   *
+   * @param location the room.
+   * @param time     the time.
+   * @return true if no event in any calendar holds the room then.
+   */
+  public boolean isRoomFree(String location, ZonedDateTime time) {
+    return fanOut(calendar -> calendar.getEventsAt(location, time, time)).stream()
+            .noneMatch(e -> e.busyDuring(time));
+  }
+
+  /**
+   * Lists the pairs of events booked in a room at overlapping times, across calendars.
+   * Each calendar returns only the events of that room in the window; a sweep over
+   * the merged events keeps the ones still running, so the cost is the number of
+   * room events plus the number of conflicts.
+   *
+   * @param location the room.
+   * @param from     start of the window.
+   * @param to       end of the window.
+   * @return the conflicts, ordered by the start of the later event.
+   */
+  public List<RoomConflict> roomConflicts(String location, ZonedDateTime from, ZonedDateTime to) {
+    List<RoomConflict> conflicts = new ArrayList<>();
+    List<IEvent> running = new ArrayList<>();
+    for (IEvent e : fanOut(calendar -> calendar.getEventsAt(location, from, to))) {
+      running.removeIf(open -> !open.getEndDateTime().isAfter(e.getStartDateTime()));
+      for (IEvent open : running) {
+        conflicts.add(new RoomConflict(open.getLocation(), open, e));
+      }
+      running.add(e);
+    }
+    return conflicts;
+  }
+
+  /**
+   * Percentage of a window each room is booked, over all calendars.
+   * Overlapping bookings of a room count once.
+   *
+   * @param from start of the window.
+   * @param to   end of the window.
+   * @return room, as first written, to the booked percentage, sorted by room.
+   */
+  public Map<String, Double> roomOccupancy(ZonedDateTime from, ZonedDateTime to) {
+    long window = Duration.between(from, to).getSeconds();
+    Map<String, String> names = new HashMap<>();
+    Map<String, Long> busy = new HashMap<>();
+    Map<String, ZonedDateTime> bookedUntil = new HashMap<>();
+    for (IEvent e : getEventsBetweenAll(from, to)) {
+      String room = CalendarModel.roomOf(e.getLocation());
+      if (room == null || window <= 0) {
+        continue;
+      }
+      names.putIfAbsent(room, e.getLocation().trim());
+      ZonedDateTime start = later(e.getStartDateTime(), bookedUntil.getOrDefault(room, from));
+      ZonedDateTime end = e.getEndDateTime().isAfter(to) ? to : e.getEndDateTime();
+      if (end.isAfter(start)) {
+        busy.merge(room, Duration.between(start, end).getSeconds(), Long::sum);
+        bookedUntil.put(room, end);
+      }
+    }
+    Map<String, Double> occupancy = new TreeMap<>();
+    names.forEach((room, shown) ->
+            occupancy.put(shown, 100.0 * busy.getOrDefault(room, 0L) / window));
+    return occupancy;
+  }
+
+  private static ZonedDateTime later(ZonedDateTime a, ZonedDateTime b) {
+    return a.isAfter(b) ? a : b;
+  }
+
+  /**
+   * Add an event to the current calendar, optionally refusing to double-book its room.
+   * The room check and the add run with the write gates of every calendar held, so
+   * no other write can book the room in between.
+   *
+   * @param event     the event.
+   * @param checkRoom true to refuse the event if its location is taken in any calendar.
+   * @return true if the event was added.
+   */
+  public boolean addEvent(IEvent event, boolean checkRoom) {
+    if (!checkRoom || CalendarModel.roomOf(event.getLocation()) == null) {
+      return addEvent(event);
+    }
+    while (true) {
+      Map<String, ICalendarModel> base = version.get();
+      ICalendarModel target = calendarName == null ? null : base.get(calendarName);
+      if (target == null) {
+        return false;
+      }
+      List<WriteGate> held = lockGates(base.values());
+      if (held == null) {
+        continue;
+      }
+      try {
+        if (version.get() != base) {
+          continue;
+        }
+        boolean taken = fanOut(base.values(), calendar -> calendar.getEventsAt(
+                event.getLocation(), event.getStartDateTime(), event.getEndDateTime()))
+                .stream()
+                .anyMatch(e -> e.getStartDateTime().isBefore(event.getEndDateTime())
+                        && event.getStartDateTime().isBefore(e.getEndDateTime()));
+        return !taken && target.addEvent(event);
+      } finally {
+        held.forEach(WriteGate::unlock);
+      }
+    }
+  }
+
   /**
    * Edit the events.
    *
@@ -220,6 +702,29 @@ public class CalendarManager {
     return calendar != null ? calendar.editEvent(subject, startTime, newEvent) : false;
   }
 
+  /**
+   * Replace an event of the current calendar by id.
+   *
+   * @param id       the id of the event.
+   * @param newEvent the new event, which keeps the id.
+   * @return true if the event was replaced.
+   */
+  public boolean editEventById(long id, IEvent newEvent) {
+    ICalendarModel calendar = getCurrentCalendar();
+    return calendar != null && calendar.editEventById(id, newEvent);
+  }
+
+  /**
+   * Remove an event of the current calendar by id.
+   *
+   * @param id the id of the event.
+   * @return true if the event was removed.
+   */
+  public boolean removeEventById(long id) {
+    ICalendarModel calendar = getCurrentCalendar();
+    return calendar != null && calendar.removeEventById(id);
+  }
+
   /**
    * Add events if it's not on the same day.
    *
@@ -269,18 +774,36 @@ public class CalendarManager {
                            ZonedDateTime srcStart,
                            String targetCal,
                            ZonedDateTime finalStart) {
+    ICalendarModel src = getCurrentCalendar();
+    if (src == null) {
+      throw new IllegalStateException("No calendar in use.");
+    }
+    return copyFound(src.findEvent(subject, srcStart.toLocalDateTime()), targetCal, finalStart);
+  }
 
+  /**
+   * Copying an event of the current calendar picked by id.
+   *
+   * @param id         the id of the event.
+   * @param targetCal  target.
+   * @param finalStart final start time.
+   * @return true if the event was copied.
+   */
+  public boolean copyEvent(long id, String targetCal, ZonedDateTime finalStart) {
     ICalendarModel src = getCurrentCalendar();
     if (src == null) {
       throw new IllegalStateException("No calendar in use.");
     }
+    return copyFound(src.getEvent(id), targetCal, finalStart);
+  }
 
-    ICalendarModel dst = calendars.get(targetCal);
+  private boolean copyFound(Optional<IEvent> found, String targetCal,
+                            ZonedDateTime finalStart) {
+    long timer = System.nanoTime();
+    ICalendarModel dst = calendars().get(targetCal);
     if (dst == null) {
       throw new IllegalArgumentException("Target not found.");
     }
-
-    Optional<IEvent> found = src.findEvent(subject, srcStart.toLocalDateTime());
     if (found.isEmpty()) {
       return false;
     }
@@ -294,7 +817,9 @@ public class CalendarManager {
 
     IEvent shifted = original.shiftCopy(duration, dstZone);
 
-    return dst.addEvent(shifted);
+    boolean added = dst.addEvent(shifted);
+    MetricsRegistry.global().record(Operation.COPY, timer);
+    return added;
   }
 
   /**
@@ -308,12 +833,12 @@ public class CalendarManager {
   public int copyEventsOn(LocalDate day,
                           String targetCal,
                           LocalDate dstDay) {
-
+    long timer = System.nanoTime();
     ICalendarModel src = getCurrentCalendar();
     if (src == null) {
       throw new IllegalStateException("No calendar in use.");
     }
-    ICalendarModel dst = calendars.get(targetCal);
+    ICalendarModel dst = calendars().get(targetCal);
     if (dst == null) {
       throw new IllegalArgumentException("Target not found.");
     }
@@ -321,11 +846,12 @@ public class CalendarManager {
     ZoneId dstZone = dst.getZoneId();
     ZonedDateTime dayStartSrc = day.atStartOfDay(srcZone);
     ZonedDateTime dayEndSrc = day.plusDays(1).atStartOfDay(srcZone).minusNanos(1);
-    List<IEvent> today = src.getEventsBetween(dayStartSrc, dayEndSrc);
     Duration duration = Duration.between(
             dayStartSrc.withZoneSameInstant(dstZone),
             dstDay.atStartOfDay(dstZone));
-    int added = copyBatch(dst, today, e -> e.shiftCopy(duration, dstZone));
+    int added = copyBatch(targetCal, dst, src.stream(dayStartSrc, dayEndSrc),
+        e -> e.shiftCopy(duration, dstZone));
+    MetricsRegistry.global().record(Operation.COPY, timer);
     return added;
   }
 
@@ -343,49 +869,228 @@ public class CalendarManager {
                                ZonedDateTime to,
                                String targetCalendar,
                                ZonedDateTime newStart) {
-
+    long timer = System.nanoTime();
     ICalendarModel src = getCurrentCalendar();
-    ICalendarModel dst = calendars.get(targetCalendar);
+    ICalendarModel dst = calendars().get(targetCalendar);
     if (src == null || dst == null) {
       throw new IllegalStateException("Bad calendars.");
     }
 
     ZoneId dstZone = dst.getZoneId();
-    List<IEvent> list = src.getEventsBetween(from, to);
 
     Duration duration = Duration.between(
             from.withZoneSameInstant(dstZone),
             newStart);
 
-    int added = copyBatch(dst, list, e -> e.shiftCopy(duration, dstZone));
-
+    int added = copyBatch(targetCalendar, dst, src.stream(from, to),
+        e -> e.shiftCopy(duration, dstZone));
+    MetricsRegistry.global().record(Operation.COPY, timer);
     return added;
   }
 
   /**
-   * Change the events that was copied.
+   * Copies events into the destination as one batch.
+   * The originals are streamed from the source index and only the copies are
+   * collected, since the batch has to be validated before it is added.
+   * A conflict with any event leaves the destination unchanged.
    *
+   * @param dstName   name of the destination.
    * @param dst       destination.
    * @param originals original of the event.
    * @param changer   changing the events.
-   * @return the events that copied and changes the events.
-   */
-  private int copyBatch(ICalendarModel dst,
-                        List<IEvent> originals,
-                        java.util.function.Function<IEvent, IEvent> changer) {
-
-    java.util.List<IEvent> inserted = new java.util.ArrayList<>();
-
-    for (IEvent srcEvent : originals) {
-      IEvent clone = changer.apply(srcEvent);
-      if (dst.addEvent(clone)) {
-        inserted.add(clone);
-      } else {
-        inserted.forEach(dst::removeEvent);
-        throw new IllegalStateException(
-                "Copy Failed – conflict with " + clone.getSubject());
+   * @return the number of events copied.
+   */
+  private int copyBatch(String dstName,
+                        ICalendarModel dst,
+                        Stream<IEvent> originals,
+                        Function<IEvent, IEvent> changer) {
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("copy", dstName);
+    List<IEvent> clones = originals.map(changer).collect(Collectors.toList());
+    if (!dst.addAll(clones)) {
+      jfr.finish(clones.size(), 0);
+      throw new IllegalStateException("Copy Failed – conflict with an event in " + dstName);
+    }
+    jfr.finish(clones.size(), clones.size());
+    return clones.size();
+  }
+
+  /**
+   * A group of adds, edits and deletes across calendars that is applied all at once.
+   * Nothing is changed until commit. Commit copies every calendar the transaction
+   * touches, applies the staged steps to the copies and then publishes the copies
+   * with a single compare-and-set of the calendar map. Readers keep seeing the old
+   * version until that moment and never see part of a transaction. The changes
+   * reach the change feed only once the copies are published. Writes to the touched
+   * calendars wait while the copies are made, and writes through references to a
+   * replaced calendar go on to its copy, so none of them is lost.
+   */
+  public final class Transaction {
+    private final List<Step> steps = new ArrayList<>();
+    private boolean finished;
+
+    private Transaction() {
+    }
+
+    /**
+     * Stages adding an event.
+     *
+     * @param calendar name of the calendar.
+     * @param event    the event to add.
+     * @return this transaction.
+     */
+    public Transaction add(String calendar, IEvent event) {
+      return stage(calendar, "add " + event.getSubject(), cal -> cal.addEvent(event));
+    }
+
+    /**
+     * Stages adding every occurrence of a series.
+     *
+     * @param calendar name of the calendar.
+     * @param series   the series to add.
+     * @return this transaction.
+     */
+    public Transaction addSeries(String calendar, IEventSeries series) {
+      return stage(calendar, "add series", cal -> series.addTo(cal) > 0);
+    }
+
+    /**
+     * Stages replacing an event.
+     *
+     * @param calendar    name of the calendar.
+     * @param subject     subject of the event to replace.
+     * @param startTime   start of the event to replace.
+     * @param replacement the new event.
+     * @return this transaction.
+     */
+    public Transaction edit(String calendar, String subject, ZonedDateTime startTime,
+                            IEvent replacement) {
+      return stage(calendar, "edit " + subject,
+          cal -> cal.editEvent(subject, startTime, replacement));
+    }
+
+    /**
+     * Stages removing an event.
+     *
+     * @param calendar name of the calendar.
+     * @param event    the event to remove.
+     * @return this transaction.
+     */
+    public Transaction remove(String calendar, IEvent event) {
+      return stage(calendar, "remove " + event.getSubject(), cal -> cal.removeEvent(event));
+    }
+
+    private Transaction stage(String calendar, String description,
+                              Predicate<ICalendarModel> action) {
+      if (finished) {
+        throw new IllegalStateException("Transaction already finished");
       }
+      steps.add(new Step(calendar, description, action));
+      return this;
+    }
+
+    /**
+     * Applies every staged step, or none of them.
+     *
+     * @throws IllegalArgumentException if a calendar does not exist.
+     * @throws IllegalStateException    if a step fails; nothing is changed then.
+     */
+    public void commit() {
+      if (finished) {
+        throw new IllegalStateException("Transaction already finished");
+      }
+      finished = true;
+      Set<String> names = new HashSet<>();
+      steps.forEach(step -> names.add(step.calendar));
+      while (true) {
+        Map<String, ICalendarModel> base = version.get();
+        List<ICalendarModel> originals = new ArrayList<>();
+        for (String name : names) {
+          ICalendarModel original = base.get(name);
+          if (original == null) {
+            throw new IllegalArgumentException("Calendar not found: " + name);
+          }
+          originals.add(original);
+        }
+        List<WriteGate> held = lockGates(originals);
+        if (held == null) {
+          continue;
+        }
+        List<Runnable> reports;
+        try {
+          reports = tryCommit(base);
+        } finally {
+          held.forEach(WriteGate::unlock);
+        }
+        if (reports != null) {
+          reports.forEach(Runnable::run);
+          return;
+        }
+      }
+    }
+
+    /**
+     * Copies the touched calendars of a version, applies the steps and publishes the
+     * copies. Called with the gates of the originals held, so no write to them falls
+     * between the copy and the publish; the originals are then retired.
+     *
+     * @param base the version to start from.
+     * @return the change reports to run, or null if the map changed meanwhile.
+     */
+    private List<Runnable> tryCommit(Map<String, ICalendarModel> base) {
+      Map<String, ICalendarModel> working = new HashMap<>();
+      List<Runnable> staged = new ArrayList<>();
+      ChangeSink pending = (type, calendar, detail, before, after) ->
+          staged.add(() -> sink.accept(type, calendar, detail, before, after));
+      for (Step step : steps) {
+        ICalendarModel calendar = working.get(step.calendar);
+        if (calendar == null) {
+          calendar = base.get(step.calendar).copy();
+          attach(calendar, pending);
+          working.put(step.calendar, calendar);
+        }
+        if (!step.action.test(calendar)) {
+          throw new IllegalStateException("Transaction aborted: " + step.description
+                  + " failed in " + step.calendar);
+        }
+      }
+      Map<String, ICalendarModel> next = new HashMap<>(base);
+      next.putAll(working);
+      if (!version.compareAndSet(base, Collections.unmodifiableMap(next))) {
+        return null;
+      }
+      working.forEach((name, calendar) -> {
+        ICalendarModel original = base.get(name);
+        attach(original, ChangeSink.NONE);
+        attach(calendar, sink);
+        WriteGate gate = gateOf(original);
+        if (gate != null) {
+          gate.retire(calendar);
+        }
+      });
+      return staged;
+    }
+
+    /**
+     * Drops every staged step.
+     */
+    public void abort() {
+      finished = true;
+      steps.clear();
+    }
+  }
+
+  /**
+   * One staged change of a transaction.
+   */
+  private static final class Step {
+    private final String calendar;
+    private final String description;
+    private final Predicate<ICalendarModel> action;
+
+    private Step(String calendar, String description, Predicate<ICalendarModel> action) {
+      this.calendar = calendar;
+      this.description = description;
+      this.action = action;
     }
-    return inserted.size();
   }
 }
@@ -1,16 +1,24 @@
 package model;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.Spliterator;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.time.LocalDateTime;
 
 
@@ -19,17 +27,53 @@ import java.time.LocalDateTime;
  * It connects with other parts to make sure things are working.
  */
 public class CalendarModel implements ICalendarModel {
-  private final Set<IEvent> events;
+  private final LongEventMap events;
+  private final Map<IEvent, IEvent> stored;
+  private final TimeIndex byTime = new TimeIndex();
+  private final Map<String, TimeIndex> bySubject = new HashMap<>();
+  private final Map<String, TimeIndex> byRoom = new HashMap<>();
+  private final SubjectTrie subjects = new SubjectTrie();
+  private final TextIndex text = new TextIndex();
+  private final WindowMemo memo = new WindowMemo();
   private ZoneId zoneId;
+  private String name;
+  private ConflictPolicy conflictPolicy = ConflictPolicy.ALLOW;
+  private AgendaViews agenda;
+  private ChangeSink changes = ChangeSink.NONE;
+  private final WriteGate gate = new WriteGate();
 
   /**
-   * HashSet of the program.
+   * Events are kept by id; stored maps an event to the equal stored one,
+   * so duplicates and lookups by subject and time still work.
+   * Time and subject indexes serve range queries and edits.
    */
   public CalendarModel(ZoneId zoneId) {
-    this.events = new HashSet<>();
+    this.events = new LongEventMap();
+    this.stored = new HashMap<>();
     this.zoneId = zoneId;
   }
 
+  /**
+   * Creates a calendar with the same name, zone and events.
+   * Events are immutable, so they are shared with the copy.
+   *
+   * @return the copy.
+   */
+  @Override
+  public CalendarModel copy() {
+    CalendarModel copy = new CalendarModel(zoneId);
+    copy.name = name;
+    copy.conflictPolicy = conflictPolicy;
+    for (IEvent e : events) {
+      copy.store(e);
+    }
+    if (agenda != null) {
+      copy.agenda = agenda.emptyCopy();
+      copy.agenda.roll(zoneId, copy::loadDay);
+    }
+    return copy;
+  }
+
   /**
    * Zone of the event.
    *
@@ -39,6 +83,74 @@ public class CalendarModel implements ICalendarModel {
     return zoneId;
   }
 
+  /**
+   * Name of the calendar, as known by the CalendarManager.
+   * Only used to label profiling events.
+   *
+   * @return the name, or null for a calendar outside a manager.
+   */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Sets the name used to label profiling events.
+   *
+   * @param name the calendar name.
+   */
+  void setName(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Sets where changes to this calendar are reported. Copies start with none.
+   *
+   * @param changes the sink.
+   */
+  void setChanges(ChangeSink changes) {
+    this.changes = changes;
+  }
+
+  /**
+   * The gate every write to this calendar passes.
+   *
+   * @return the gate.
+   */
+  WriteGate gate() {
+    return gate;
+  }
+
+  /**
+   * Name of a calendar for profiling events.
+   *
+   * @param calendar any calendar.
+   * @return its name, or null if it has none.
+   */
+  static String nameOf(ICalendarModel calendar) {
+    if (calendar instanceof CalendarModel) {
+      return ((CalendarModel) calendar).getName();
+    }
+    if (calendar instanceof VersionedCalendarModel) {
+      return ((VersionedCalendarModel) calendar).getName();
+    }
+    return null;
+  }
+
+  /**
+   * Key of a location in the room indexes: trimmed, lower-case, single spaces.
+   * So "Room 4" and " room  4" are the same room.
+   *
+   * @param location the location of an event, may be null.
+   * @return the key, or null if the event has no location.
+   */
+  static String roomOf(String location) {
+    if (location == null) {
+      return null;
+    }
+    String room = location.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    return room.isEmpty() ? null : room;
+  }
+
   /**
    * Add events if it's not on the same day.
    *
@@ -46,7 +158,163 @@ public class CalendarModel implements ICalendarModel {
    * @return compared the event to make sure it's not on the same day.
    */
   public boolean addEvent(IEvent event) {
-    return this.events.add(event);
+    return gate.write(c -> c.addEvent(event), () -> addInPlace(event));
+  }
+
+  private boolean addInPlace(IEvent event) {
+    long start = System.nanoTime();
+    boolean added = !stored.containsKey(event)
+            && (conflictPolicy != ConflictPolicy.REJECT || conflicts(List.of(event), 1).isEmpty());
+    if (added) {
+      changes.accept(ChangeRecord.Type.EVENT_ADDED, name, null, null, store(event));
+    }
+    MetricsRegistry.global().record(Operation.ADD, start);
+    return added;
+  }
+
+  /**
+   * Stores an event that is not a duplicate.
+   * An event whose id is already taken here is stored under a new id.
+   *
+   * @param event the event to store.
+   * @return the stored event.
+   */
+  private IEvent store(IEvent event) {
+    IEvent kept = events.get(event.getId()) == null
+            ? event : Event.withId(event, Event.nextId());
+    events.put(kept.getId(), kept);
+    stored.put(kept, kept);
+    byTime.add(kept);
+    bySubject.computeIfAbsent(kept.getSubject(), k -> new TimeIndex()).add(kept);
+    subjects.add(kept.getSubject(), kept.getId());
+    text.add(kept);
+    String room = roomOf(kept.getLocation());
+    if (room != null) {
+      byRoom.computeIfAbsent(room, k -> new TimeIndex()).add(kept);
+    }
+    memo.clear();
+    if (agenda != null) {
+      agenda.add(Event.inZone(kept, zoneId));
+    }
+    return kept;
+  }
+
+  /**
+   * Removes a stored event.
+   *
+   * @param event the stored event.
+   */
+  private void unstore(IEvent event) {
+    events.remove(event.getId());
+    stored.remove(event);
+    byTime.remove(event);
+    TimeIndex sameSubject = bySubject.get(event.getSubject());
+    if (sameSubject != null && sameSubject.remove(event) && sameSubject.size() == 0) {
+      bySubject.remove(event.getSubject());
+    }
+    subjects.remove(event.getSubject(), event.getId());
+    text.remove(event);
+    String room = roomOf(event.getLocation());
+    TimeIndex sameRoom = room == null ? null : byRoom.get(room);
+    if (sameRoom != null && sameRoom.remove(event) && sameRoom.size() == 0) {
+      byRoom.remove(room);
+    }
+    memo.clear();
+    if (agenda != null) {
+      agenda.remove(event);
+    }
+  }
+
+  /**
+   * Add a batch of events in one step.
+   * The whole batch is validated before the calendar changes,
+   * so a duplicate never leaves part of the batch behind.
+   *
+   * @param batch events to add.
+   * @return true if all were added, false if any duplicates an event.
+   */
+  @Override
+  public boolean addAll(Collection<? extends IEvent> batch) {
+    return gate.write(c -> c.addAll(batch), () -> addAllInPlace(batch));
+  }
+
+  private boolean addAllInPlace(Collection<? extends IEvent> batch) {
+    long start = System.nanoTime();
+    Set<IEvent> accepted = new HashSet<>(Math.max(16, batch.size() * 2));
+    for (IEvent event : batch) {
+      if (event == null || stored.containsKey(event) || !accepted.add(event)) {
+        MetricsRegistry.global().record(Operation.ADD, start);
+        return false;
+      }
+    }
+    if (conflictPolicy == ConflictPolicy.REJECT && !conflicts(batch, 1).isEmpty()) {
+      MetricsRegistry.global().record(Operation.ADD, start);
+      return false;
+    }
+    for (IEvent event : batch) {
+      changes.accept(ChangeRecord.Type.EVENT_ADDED, name, null, null, store(event));
+    }
+    MetricsRegistry.global().record(Operation.ADD, start);
+    return true;
+  }
+
+  @Override
+  public ConflictPolicy getConflictPolicy() {
+    return conflictPolicy;
+  }
+
+  @Override
+  public void setConflictPolicy(ConflictPolicy policy) {
+    gate.run(c -> c.setConflictPolicy(policy), () -> setPolicyInPlace(policy));
+  }
+
+  private void setPolicyInPlace(ConflictPolicy policy) {
+    if (policy == null) {
+      throw new IllegalArgumentException("policy must not be null");
+    }
+    this.conflictPolicy = policy;
+  }
+
+  /**
+   * Events that overlap a batch of new events, or each other within the batch.
+   *
+   * @param batch the events that would be added.
+   * @return the conflicting events in the calendar zone.
+   */
+  @Override
+  public List<IEvent> getConflicts(Collection<? extends IEvent> batch) {
+    List<IEvent> found = conflicts(batch, Integer.MAX_VALUE);
+    found.replaceAll(ev -> Event.inZone(ev, zoneId));
+    return found;
+  }
+
+  private List<IEvent> conflicts(Collection<? extends IEvent> batch, int limit) {
+    return conflicts(batch, limit, Set.of());
+  }
+
+  /**
+   * Runs the overlap sweep for a batch against the stored events around it.
+   * The stored events come from one time index query spanning the whole batch;
+   * events being replaced by the batch are left out.
+   */
+  private List<IEvent> conflicts(Collection<? extends IEvent> batch, int limit,
+                                 Set<IEvent> replaced) {
+    List<IEvent> incoming = new ArrayList<>(batch);
+    if (incoming.isEmpty()) {
+      return incoming;
+    }
+    incoming.sort(Overlaps.BY_START);
+    ZonedDateTime to = incoming.get(0).getEndDateTime();
+    for (IEvent e : incoming) {
+      if (e.getEndDateTime().isAfter(to)) {
+        to = e.getEndDateTime();
+      }
+    }
+    List<IEvent> existing = new ArrayList<>();
+    byTime.overlapping(incoming.get(0).getStartDateTime(), to, existing);
+    existing.removeIf(replaced::contains);
+    existing.sort(Overlaps.BY_START);
+    return Overlaps.find(incoming, existing, limit);
   }
 
   /**
@@ -56,35 +324,240 @@ public class CalendarModel implements ICalendarModel {
    * @return remove the events.
    */
   public boolean removeEvent(IEvent e) {
-    return events.remove(e);
+    return gate.write(c -> c.removeEvent(e), () -> removeInPlace(e));
+  }
+
+  private boolean removeInPlace(IEvent e) {
+    long start = System.nanoTime();
+    IEvent old = stored.get(e);
+    if (old != null) {
+      unstore(old);
+      changes.accept(ChangeRecord.Type.EVENT_REMOVED, name, null, old, null);
+    }
+    MetricsRegistry.global().record(Operation.REMOVE, start);
+    return old != null;
+  }
+
+  /**
+   * Look up an event by id.
+   *
+   * @param id the id of the event.
+   * @return the event if the calendar has it.
+   */
+  @Override
+  public Optional<IEvent> getEvent(long id) {
+    return Optional.ofNullable(events.get(id));
+  }
+
+  /**
+   * Remove the event with the given id.
+   *
+   * @param id the id of the event.
+   * @return true if an event was removed.
+   */
+  @Override
+  public boolean removeEventById(long id) {
+    return gate.write(c -> c.removeEventById(id), () -> removeByIdInPlace(id));
+  }
+
+  private boolean removeByIdInPlace(long id) {
+    long start = System.nanoTime();
+    IEvent old = events.get(id);
+    if (old != null) {
+      unstore(old);
+      changes.accept(ChangeRecord.Type.EVENT_REMOVED, name, null, old, null);
+    }
+    MetricsRegistry.global().record(Operation.REMOVE, start);
+    return old != null;
+  }
+
+  /**
+   * Replace the event with the given id.
+   *
+   * @param id          the id of the event.
+   * @param replacement the new event, which takes over the id.
+   * @return true if replaced, false if there is no such event
+   *         or the replacement duplicates another event.
+   */
+  @Override
+  public boolean editEventById(long id, IEvent replacement) {
+    return gate.write(c -> c.editEventById(id, replacement),
+        () -> editByIdInPlace(id, replacement));
+  }
+
+  private boolean editByIdInPlace(long id, IEvent replacement) {
+    IEvent old = events.get(id);
+    return old != null && replace(old, replacement);
+  }
+
+  /**
+   * Swaps a stored event for a replacement that keeps its id.
+   * Nothing changes if the replacement duplicates another event, or if it
+   * overlaps another event while the policy is REJECT.
+   *
+   * @param old         the stored event.
+   * @param replacement the new event.
+   * @return true if replaced.
+   */
+  private boolean replace(IEvent old, IEvent replacement) {
+    if (replacement == null) {
+      return false;
+    }
+    IEvent clash = stored.get(replacement);
+    if (clash != null && clash != old) {
+      return false;
+    }
+    if (conflictPolicy == ConflictPolicy.REJECT
+            && !conflicts(List.of(replacement), 1, Set.of(old)).isEmpty()) {
+      return false;
+    }
+    unstore(old);
+    IEvent kept = store(Event.withId(replacement, old.getId()));
+    changes.accept(ChangeRecord.Type.EVENT_EDITED, name, null, old, kept);
+    return true;
   }
 
   /**
    * Simple SetZoneId method to set zoneID.
+   * Events are kept as instants, so nothing is rewritten; queries show
+   * them in the new zone from now on.
    *
    * @param zoneId the zoneID to add.
    */
   public void setZoneId(ZoneId zoneId) {
+    gate.run(c -> c.setZoneId(zoneId), () -> setZoneInPlace(zoneId));
+  }
+
+  private void setZoneInPlace(ZoneId zoneId) {
+    boolean moved = !zoneId.equals(this.zoneId);
     this.zoneId = zoneId;
+    memo.clear();
+    if (agenda != null) {
+      agenda.roll(zoneId, this::loadDay);
+    }
+    if (moved) {
+      changes.accept(ChangeRecord.Type.ZONE_CHANGED, name, zoneId.getId(), null, null);
+    }
+  }
+
+  /**
+   * Keeps materialized agendas for today and the days around it.
+   *
+   * @param daysBefore days before today to keep.
+   * @param daysAfter  days after today to keep.
+   */
+  @Override
+  public void setAgendaWindow(int daysBefore, int daysAfter) {
+    setAgendaWindow(daysBefore, daysAfter, Clock.systemDefaultZone());
+  }
+
+  /**
+   * Keeps materialized agendas for the days around today by a given clock.
+   * The days are loaded once; after that adds and removes patch them in place.
+   *
+   * @param daysBefore days before today to keep.
+   * @param daysAfter  days after today to keep.
+   * @param clock      the clock telling the date, read in the calendar zone.
+   */
+  public void setAgendaWindow(int daysBefore, int daysAfter, Clock clock) {
+    gate.run(c -> ((CalendarModel) c).setAgendaWindow(daysBefore, daysAfter, clock),
+        () -> setAgendaInPlace(daysBefore, daysAfter, clock));
+  }
+
+  private void setAgendaInPlace(int daysBefore, int daysAfter, Clock clock) {
+    AgendaViews views = new AgendaViews(daysBefore, daysAfter, clock);
+    views.roll(zoneId, this::loadDay);
+    agenda = views;
+  }
+
+  @Override
+  public void clearAgendaWindow() {
+    gate.run(ICalendarModel::clearAgendaWindow, this::clearAgendaInPlace);
+  }
+
+  private void clearAgendaInPlace() {
+    agenda = null;
+  }
+
+  /**
+   * The agenda of a day as an unmodifiable list sorted by start.
+   * A day inside the materialized window is returned as is, without a query;
+   * other days go through the window memo.
+   *
+   * @param date a day in the calendar zone.
+   * @return the events of that day.
+   */
+  @Override
+  public List<IEvent> getAgenda(LocalDate date) {
+    long start = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("getAgenda", name);
+    int[] scanned = new int[1];
+    List<IEvent> result = day(date, scanned);
+    MetricsRegistry.global().record(Operation.QUERY, start);
+    jfr.finish(scanned[0], result.size());
+    return result;
+  }
+
+  private List<IEvent> day(LocalDate date, int[] scanned) {
+    if (agenda != null) {
+      agenda.roll(zoneId, this::loadDay);
+      List<IEvent> materialized = agenda.get(date);
+      if (materialized != null) {
+        return materialized;
+      }
+    }
+    return loadDay(date, scanned);
+  }
+
+  private List<IEvent> loadDay(LocalDate date, int[] scanned) {
+    ZonedDateTime from = date.atStartOfDay(zoneId);
+    ZonedDateTime to = date.plusDays(1).atStartOfDay(zoneId).minusNanos(1);
+    return window(from, to, scanned);
+  }
+
+  private List<IEvent> loadDay(LocalDate date) {
+    return loadDay(date, new int[1]);
   }
 
   /**
    * Get the events.
+   * The date is a day in the calendar zone.
    *
    * @param date the date of the event.
-   * @return the event/when is the event happening.
+   * @return the event/when is the event happening, sorted by start.
    */
   public List<IEvent> getEventsOn(LocalDate date) {
-    List<IEvent> result = new ArrayList<>();
-    for (IEvent e : events) {
-      if (!e.getStartDateTime().toLocalDate().isAfter(date) &&
-              !e.getEndDateTime().toLocalDate().isBefore(date)) {
-        result.add(e);
-      }
-    }
+    long start = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("getEventsOn", name);
+    int[] scanned = new int[1];
+    List<IEvent> result = new ArrayList<>(day(date, scanned));
+    MetricsRegistry.global().record(Operation.QUERY, start);
+    jfr.finish(scanned[0], result.size());
     return result;
   }
 
+  /**
+   * Events overlapping a window, shown in the calendar zone and sorted by start.
+   * Results are memoized until the calendar or its zone changes.
+   *
+   * @param from    start of the window.
+   * @param to      end of the window.
+   * @param scanned receives the number of events looked at, 0 on a memo hit.
+   * @return the unmodifiable result.
+   */
+  private List<IEvent> window(ZonedDateTime from, ZonedDateTime to, int[] scanned) {
+    List<IEvent> cached = memo.get(from.toInstant(), to.toInstant());
+    if (cached != null) {
+      return cached;
+    }
+    List<IEvent> result = new ArrayList<>();
+    byTime.overlapping(from, to, result);
+    result.replaceAll(ev -> Event.inZone(ev, zoneId));
+    result.sort(Comparator.comparing(IEvent::getStartDateTime));
+    scanned[0] = result.size();
+    return memo.put(from.toInstant(), to.toInstant(), result);
+  }
+
 
   /**
    * Edit the events.
@@ -97,49 +570,99 @@ public class CalendarModel implements ICalendarModel {
   public boolean editEvent(String subject,
                            ZonedDateTime startTime,
                            IEvent newEvent) {
+    return gate.write(c -> c.editEvent(subject, startTime, newEvent),
+        () -> editInPlace(subject, startTime, newEvent));
+  }
+
+  private boolean editInPlace(String subject,
+                              ZonedDateTime startTime,
+                              IEvent newEvent) {
     Optional<IEvent> old = findEvent(subject, startTime.toLocalDateTime());
-    return old.isPresent() && events.remove(old.get()) && events.add(newEvent);
+    return old.isPresent() && replace(old.get(), newEvent);
   }
 
   /**
    * The events that are being changed between events.
-   * Edit the events within time.
+   * Only the events in the window are looked at, through the time index.
    *
-   * @param from    from when the events end.
-   * @param to      to a certain time.
-   * @param mutator changing events.
-   * @return the events that are being edited.
+   * @param from     from when the events end.
+   * @param to       to a certain time.
+   * @param replacer builds the edited events.
+   * @return the number of edited events.
    */
   @Override
-  public boolean editEventBetween(ZonedDateTime from, ZonedDateTime to, Consumer<IEvent> mutator) {
-    boolean changed = false;
-    for (IEvent e : events) {
-      if (!(e.getEndDateTime().isBefore(from) || e.getStartDateTime().isAfter(to))) {
-        mutator.accept(e);
-        changed = true;
-      }
-    }
-    return changed;
+  public int editEventBetween(ZonedDateTime from, ZonedDateTime to,
+                              UnaryOperator<IEvent> replacer) {
+    return gate.write(c -> c.editEventBetween(from, to, replacer),
+        () -> editBetweenInPlace(from, to, replacer));
+  }
+
+  private int editBetweenInPlace(ZonedDateTime from, ZonedDateTime to,
+                                 UnaryOperator<IEvent> replacer) {
+    List<IEvent> matches = new ArrayList<>();
+    byTime.overlapping(from, to, matches);
+    return replaceBatch(matches, replacer);
   }
 
   /**
    * Edit series that are being changed.
+   * Only the events of that subject starting from the time are looked at.
    *
-   * @param subject name of the event.
-   * @param from    from time to time
-   * @param mutator changing events.
-   * @return the edit version of the returned events.
+   * @param subject  name of the event.
+   * @param from     from time to time
+   * @param replacer builds the edited events.
+   * @return the number of edited events.
    */
   @Override
-  public boolean editSeriesFrom(String subject, ZonedDateTime from, Consumer<IEvent> mutator) {
-    boolean changed = false;
-    for (IEvent e : events) {
-      if (e.getSubject().equals(subject) && !e.getStartDateTime().isBefore(from)) {
-        mutator.accept(e);
-        changed = true;
+  public int editSeriesFrom(String subject, ZonedDateTime from, UnaryOperator<IEvent> replacer) {
+    return gate.write(c -> c.editSeriesFrom(subject, from, replacer),
+        () -> editSeriesInPlace(subject, from, replacer));
+  }
+
+  private int editSeriesInPlace(String subject, ZonedDateTime from,
+                                UnaryOperator<IEvent> replacer) {
+    TimeIndex sameSubject = bySubject.get(subject);
+    if (sameSubject == null) {
+      return 0;
+    }
+    List<IEvent> matches = new ArrayList<>();
+    sameSubject.startingFrom(from, matches);
+    return replaceBatch(matches, replacer);
+  }
+
+  /**
+   * Replaces stored events in one step.
+   * All replacements are checked first, against each other and against the events
+   * that stay, so a duplicate, or an overlap under REJECT, leaves the calendar unchanged.
+   *
+   * @param matches  the stored events to edit.
+   * @param replacer builds the replacement of an event shown in the calendar zone.
+   * @return the number of replaced events, 0 on a duplicate or a rejected overlap.
+   */
+  private int replaceBatch(List<IEvent> matches, UnaryOperator<IEvent> replacer) {
+    Map<IEvent, IEvent> replacements = new LinkedHashMap<>();
+    for (IEvent old : matches) {
+      IEvent shown = Event.inZone(old, zoneId);
+      IEvent replacement = replacer.apply(shown);
+      if (replacement != null && replacement != shown && replacement != old) {
+        replacements.put(old, Event.withId(replacement, old.getId()));
       }
     }
-    return changed;
+    Set<IEvent> incoming = new HashSet<>();
+    for (IEvent replacement : replacements.values()) {
+      IEvent clash = stored.get(replacement);
+      if (!incoming.add(replacement) || (clash != null && !replacements.containsKey(clash))) {
+        return 0;
+      }
+    }
+    if (conflictPolicy == ConflictPolicy.REJECT && !conflicts(replacements.values(), 1,
+            replacements.keySet()).isEmpty()) {
+      return 0;
+    }
+    replacements.keySet().forEach(this::unstore);
+    replacements.forEach((old, replacement) -> changes.accept(ChangeRecord.Type.EVENT_EDITED,
+        name, null, old, store(replacement)));
+    return replacements.size();
   }
 
   /**
@@ -149,20 +672,236 @@ public class CalendarModel implements ICalendarModel {
    * @return if the event is busy or not.
    */
   public boolean busyDuring(ZonedDateTime time) {
-    return events.stream().anyMatch(ev -> ev.busyDuring(time));
+    long start = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("busyDuring", name);
+    List<IEvent> around = new ArrayList<>();
+    byTime.overlapping(time, time, around);
+    boolean busy = around.stream().anyMatch(ev -> ev.busyDuring(time));
+    MetricsRegistry.global().record(Operation.BUSY_CHECK, start);
+    jfr.finish(around.size(), busy ? 1 : 0);
+    return busy;
   }
 
   /**
    * Searches the calendar for an event whose subject and start match.
+   * The start is read in the calendar zone; an event whose own local start
+   * matches is only used if no event matches in the calendar zone.
    *
    * @param subject   the exact subject of the event.
    * @param startTime the start date-time of the event.
    * @return the matching event if found.
    */
   public Optional<IEvent> findEvent(String subject, LocalDateTime startTime) {
-    return events.stream()
-            .filter(e -> e.getSubject().equals(subject)
-                    && e.getStartDateTime().toLocalDateTime().equals(startTime)).findFirst();
+    long start = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("findEvent", name);
+    ZonedDateTime wanted = startTime.atZone(zoneId);
+    TimeIndex sameSubject = bySubject.get(subject);
+    Optional<IEvent> found = Optional.empty();
+    int scanned = 0;
+    if (sameSubject != null) {
+      for (IEvent e : sameSubject.startingAt(wanted)) {
+        scanned++;
+        if (e.getStartDateTime().isEqual(wanted)) {
+          found = Optional.of(e);
+          break;
+        }
+      }
+      if (found.isEmpty()) {
+        found = ownLocalStart(sameSubject, startTime);
+        scanned += sameSubject.size();
+      }
+    }
+    MetricsRegistry.global().record(Operation.QUERY, start);
+    jfr.finish(scanned, found.isPresent() ? 1 : 0);
+    return found;
+  }
+
+  /**
+   * The first event whose start, in its own zone, is the given local time.
+   */
+  private static Optional<IEvent> ownLocalStart(TimeIndex sameSubject, LocalDateTime startTime) {
+    for (List<IEvent> bucket : sameSubject.buckets()) {
+      for (IEvent e : bucket) {
+        if (e.getStartDateTime().toLocalDateTime().equals(startTime)) {
+          return Optional.of(e);
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Events whose subject starts with a prefix, optionally limited to a window.
+   * Matching subjects come from the subject trie. Without a window their ids are
+   * looked up directly; with one, each subject's time index is asked for the window,
+   * so events of the subject outside it are never touched.
+   *
+   * @param prefix the start of the subject.
+   * @param from   start of the window, or null.
+   * @param to     end of the window, or null.
+   * @return the matching events in the calendar zone, sorted by start.
+   */
+  @Override
+  public List<IEvent> searchByPrefix(String prefix, ZonedDateTime from, ZonedDateTime to) {
+    long timer = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("searchByPrefix", name);
+    List<IEvent> result = new ArrayList<>();
+    int[] postings = new int[1];
+    subjects.withPrefix(prefix, (subject, ids, count) -> {
+      postings[0] += count;
+      if (from == null || to == null) {
+        for (int i = 0; i < count; i++) {
+          result.add(events.get(ids[i]));
+        }
+      } else {
+        bySubject.get(subject).overlapping(from, to, result);
+      }
+    });
+    result.replaceAll(ev -> Event.inZone(ev, zoneId));
+    result.sort(Comparator.comparing(IEvent::getStartDateTime));
+    MetricsRegistry.global().record(Operation.QUERY, timer);
+    jfr.finish(postings[0], result.size());
+    return result;
+  }
+
+  /**
+   * Events whose description or location match a text query, optionally limited
+   * to a window. The query runs on the posting lists of the text index; only the
+   * matching events are then looked up and checked against the window.
+   *
+   * @param query the text query.
+   * @param from  start of the window, or null.
+   * @param to    end of the window, or null.
+   * @return the matching events in the calendar zone, sorted by start.
+   */
+  @Override
+  public List<IEvent> searchText(TextQuery query, ZonedDateTime from, ZonedDateTime to) {
+    long timer = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("searchText", name);
+    long[] ids = query.evaluate(text);
+    List<IEvent> result = new ArrayList<>(ids.length);
+    for (long id : ids) {
+      IEvent e = events.get(id);
+      if (from == null || to == null
+              || (!e.getEndDateTime().isBefore(from) && !e.getStartDateTime().isAfter(to))) {
+        result.add(Event.inZone(e, zoneId));
+      }
+    }
+    result.sort(Comparator.comparing(IEvent::getStartDateTime));
+    MetricsRegistry.global().record(Operation.QUERY, timer);
+    jfr.finish(ids.length, result.size());
+    return result;
+  }
+
+  /**
+   * One page of the events overlapping a window, ordered by start and then id.
+   * The time index is walked from the cursor and stops after the page plus one
+   * event, so a page costs O(log n + pageSize) bucket reads, and O(log n) per event
+   * already running at the window start, however large the window is.
+   *
+   * @param from        start of the window.
+   * @param to          end of the window.
+   * @param pageSize    the most events on the page.
+   * @param afterCursor the cursor of the previous page, or null for the first page.
+   * @return the page, in the calendar zone.
+   */
+  @Override
+  public EventPage query(ZonedDateTime from, ZonedDateTime to, int pageSize,
+                         String afterCursor) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("pageSize must be > 0");
+    }
+    long timer = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("query", name);
+    long[] after = afterCursor == null ? null : EventPage.parse(afterCursor);
+    List<IEvent> found = new ArrayList<>(pageSize + 1);
+    byTime.page(from, to, after, pageSize + 1, found);
+    String next = null;
+    if (found.size() > pageSize) {
+      found.remove(pageSize);
+      next = EventPage.cursorAfter(found.get(pageSize - 1));
+    }
+    found.replaceAll(ev -> Event.inZone(ev, zoneId));
+    MetricsRegistry.global().record(Operation.QUERY, timer);
+    jfr.finish(found.size(), found.size());
+    return new EventPage(found, next);
+  }
+
+  /**
+   * Lazily reports the events overlapping a window, straight from the time index.
+   * The spliterator is ORDERED and SORTED by start; without a window it is also SIZED.
+   * The calendar must not change while it is in use.
+   *
+   * @param from start of the window, or null for every event.
+   * @param to   end of the window, or null for every event.
+   * @return the spliterator of events in the calendar zone.
+   */
+  @Override
+  public Spliterator<IEvent> spliterator(ZonedDateTime from, ZonedDateTime to) {
+    ZoneId zone = zoneId;
+    return byTime.spliterator(from, to, ev -> Event.inZone(ev, zone));
+  }
+
+  @Override
+  public Stream<IEvent> stream(ZonedDateTime from, ZonedDateTime to) {
+    return StreamSupport.stream(spliterator(from, to), false);
+  }
+
+  /**
+   * Counts, durations and a histogram of the events overlapping a window.
+   * The time index hands every event straight to an accumulator of longs and
+   * primitive arrays, so no event list or zone conversion is made.
+   *
+   * @param from start of the window.
+   * @param to   end of the window.
+   * @param by   how to split the histogram.
+   * @return the statistics.
+   */
+  @Override
+  public EventStats aggregate(ZonedDateTime from, ZonedDateTime to, Granularity by) {
+    long timer = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("aggregate", name);
+    EventStats.Accumulator acc = new EventStats.Accumulator(from, to, zoneId, by);
+    byTime.forEachOverlapping(from, to, acc::accept);
+    EventStats stats = acc.finish();
+    MetricsRegistry.global().record(Operation.QUERY, timer);
+    jfr.finish((int) stats.getCount(), stats.buckets());
+    return stats;
+  }
+
+  /**
+   * Events at a location overlapping a window.
+   * Each location has its own time index, so only events in that room are looked at.
+   *
+   * @param location the location, compared ignoring case and extra spaces.
+   * @param from     start of the window.
+   * @param to       end of the window.
+   * @return the events in the calendar zone, sorted by start.
+   */
+  @Override
+  public List<IEvent> getEventsAt(String location, ZonedDateTime from, ZonedDateTime to) {
+    long timer = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("getEventsAt", name);
+    String room = roomOf(location);
+    TimeIndex sameRoom = room == null ? null : byRoom.get(room);
+    List<IEvent> result = new ArrayList<>();
+    if (sameRoom != null) {
+      sameRoom.overlapping(from, to, result);
+    }
+    result.replaceAll(ev -> Event.inZone(ev, zoneId));
+    MetricsRegistry.global().record(Operation.QUERY, timer);
+    jfr.finish(result.size(), result.size());
+    return result;
+  }
+
+  /**
+   * Estimated bytes held by the text index, apart from the events.
+   *
+   * @return the estimate.
+   */
+  @Override
+  public long textIndexBytes() {
+    return text.bytes();
   }
 
   /**
@@ -170,13 +909,16 @@ public class CalendarModel implements ICalendarModel {
    *
    * @param start the beginning of the interval.
    * @param end   the end of the interval.
-   * @return a list of events occurring within or intersecting that interval.
+   * @return a list of events occurring within or intersecting that interval,
+   *         shown in the calendar zone.
    */
   public List<IEvent> getEventsBetween(ZonedDateTime start, ZonedDateTime end) {
-    return events.stream()
-            .filter(ev -> !ev.getEndDateTime().isBefore(start) &&
-                    !ev.getStartDateTime().isAfter(end))
-            .sorted(Comparator.comparing(IEvent::getStartDateTime))
-            .collect(Collectors.toList());
+    long timer = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("getEventsBetween", name);
+    int[] scanned = new int[1];
+    List<IEvent> result = new ArrayList<>(window(start, end, scanned));
+    MetricsRegistry.global().record(Operation.QUERY, timer);
+    jfr.finish(scanned[0], result.size());
+    return result;
   }
 }
@@ -0,0 +1,61 @@
+package model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for one calendar operation.
+ * Recording is off unless a JFR recording enables calendar.Operation,
+ * and then it costs about as much as a timestamp.
+ */
+@Name("calendar.Operation")
+@Label("Calendar Operation")
+@Category("Calendar")
+@Description("A command, query, series insert or copy on a calendar")
+@StackTrace(false)
+public final class CalendarOperationEvent extends jdk.jfr.Event {
+  @Label("Command Type")
+  private String commandType;
+
+  @Label("Calendar")
+  private String calendarName;
+
+  @Label("Events Scanned")
+  private int eventsScanned;
+
+  @Label("Result Size")
+  private int resultSize;
+
+  /**
+   * Starts timing an operation.
+   *
+   * @param commandType  the command or method being run.
+   * @param calendarName the calendar it runs on, if known.
+   * @return the started event.
+   */
+  public static CalendarOperationEvent start(String commandType, String calendarName) {
+    CalendarOperationEvent event = new CalendarOperationEvent();
+    event.commandType = commandType;
+    event.calendarName = calendarName;
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Stops timing and writes the event if it is enabled and slow enough.
+   *
+   * @param scanned number of events the operation looked at.
+   * @param size    number of events it returned or changed.
+   */
+  public void finish(int scanned, int size) {
+    end();
+    if (shouldCommit()) {
+      eventsScanned = scanned;
+      resultSize = size;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,267 @@
+package model;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Ordered, numbered stream of the changes made through a CalendarManager.
+ * Records live in a bounded ring, in the style of the LMAX Disruptor: a writer
+ * claims the next sequence number with one compare-and-set and stores the record
+ * in the slot of that number, so writers never lock. A reader follows with its own
+ * position and knows a slot is ready when it holds the record it expects.
+ *
+ * <p>A writer never overwrites a record that an open subscription has not read
+ * yet. When the slowest subscription is a whole ring behind, writers wait for it;
+ * that is the backpressure. The wait is bounded: a subscription still a ring behind
+ * after the longest wait is dropped, so a forgotten subscription, or one read on
+ * the writing thread, only stalls writers once. A dropped subscription reads what
+ * is left of its records and then fails on the first one overwritten. Without
+ * subscriptions the ring simply keeps the latest records, which a new subscription
+ * can replay from any sequence number still held.
+ */
+public final class ChangeFeed {
+  private static final int SPINS = 100;
+  private static final Duration MAX_WAIT = Duration.ofMillis(250);
+
+  private final AtomicReferenceArray<ChangeRecord> slots;
+  private final int mask;
+  private final long maxWaitNanos;
+  private final AtomicLong next = new AtomicLong(1);
+  private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+  /**
+   * Creates an empty feed whose writers wait at most 250 ms for a slow subscription.
+   *
+   * @param capacity the number of records kept, a power of two.
+   * @throws IllegalArgumentException if the capacity is not a positive power of two.
+   */
+  public ChangeFeed(int capacity) {
+    this(capacity, MAX_WAIT);
+  }
+
+  /**
+   * Creates an empty feed.
+   *
+   * @param capacity the number of records kept, a power of two.
+   * @param maxWait  how long a writer waits for a subscription a ring behind
+   *                 before dropping it.
+   * @throws IllegalArgumentException if the capacity is not a positive power of two,
+   *     or the wait is negative.
+   */
+  public ChangeFeed(int capacity, Duration maxWait) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two");
+    }
+    if (maxWait.isNegative()) {
+      throw new IllegalArgumentException("Wait must not be negative");
+    }
+    this.slots = new AtomicReferenceArray<>(capacity);
+    this.mask = capacity - 1;
+    this.maxWaitNanos = maxWait.toNanos();
+  }
+
+  /**
+   * Number of records the ring keeps.
+   *
+   * @return the capacity.
+   */
+  public int capacity() {
+    return slots.length();
+  }
+
+  /**
+   * Sequence number of the latest change, 0 if there was none.
+   *
+   * @return the last sequence number handed out.
+   */
+  public long lastSequence() {
+    return next.get() - 1;
+  }
+
+  /**
+   * Oldest sequence number that can still be replayed.
+   *
+   * @return the oldest sequence number held.
+   */
+  public long oldestSequence() {
+    return Math.max(1, next.get() - slots.length());
+  }
+
+  /**
+   * Follows the changes made from now on.
+   *
+   * @return the new subscription.
+   */
+  public Subscription subscribe() {
+    Subscription subscription = new Subscription(next.get());
+    subscriptions.add(subscription);
+    return subscription;
+  }
+
+  /**
+   * Replays the changes from a sequence number on, then follows new ones.
+   *
+   * @param fromSequence the first sequence number to read.
+   * @return the new subscription.
+   * @throws IllegalArgumentException if that record is no longer held, or not made yet.
+   *     A replay of the oldest record can still lose it to a writer that claimed its
+   *     slot just before; the first poll then throws.
+   */
+  public Subscription subscribe(long fromSequence) {
+    Subscription subscription = new Subscription(fromSequence);
+    subscriptions.add(subscription);
+    if (fromSequence < oldestSequence() || fromSequence > next.get()) {
+      subscription.close();
+      throw new IllegalArgumentException("Change " + fromSequence + " is not held; "
+              + "changes " + oldestSequence() + " to " + lastSequence() + " are");
+    }
+    return subscription;
+  }
+
+  /**
+   * Records one change, waiting while the slowest subscription is a ring behind,
+   * up to the longest wait.
+   *
+   * @return the sequence number of the record.
+   */
+  long publish(ChangeRecord.Type type, String calendar, String detail,
+               IEvent before, IEvent after) {
+    long sequence;
+    do {
+      sequence = next.get();
+      awaitRoom(sequence);
+    } while (!next.compareAndSet(sequence, sequence + 1));
+    slots.set((int) sequence & mask, new ChangeRecord(sequence, type, calendar, detail,
+            before, after));
+    return sequence;
+  }
+
+  /**
+   * Waits until the slot of a sequence number holds nothing a subscription still
+   * has to read. Positions start at 1, so nothing is checked before the first wrap.
+   * Subscriptions still in the way when the wait runs out are dropped.
+   */
+  private void awaitRoom(long sequence) {
+    long wrap = sequence - slots.length();
+    int spins = 0;
+    long deadline = 0;
+    while (wrap >= 1) {
+      long slowest = Long.MAX_VALUE;
+      for (Subscription subscription : subscriptions) {
+        slowest = Math.min(slowest, subscription.position.get());
+      }
+      if (wrap < slowest) {
+        return;
+      }
+      if (++spins < SPINS) {
+        Thread.onSpinWait();
+      } else if (spins == SPINS) {
+        deadline = System.nanoTime() + maxWaitNanos;
+      } else if (System.nanoTime() - deadline < 0) {
+        LockSupport.parkNanos(1_000L);
+      } else {
+        for (Subscription subscription : subscriptions) {
+          if (subscription.position.get() <= wrap) {
+            subscription.drop();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * One reader of the feed. A subscription is meant for one thread at a time.
+   */
+  public final class Subscription implements AutoCloseable {
+    private final AtomicLong position;
+    private volatile boolean dropped;
+
+    private Subscription(long position) {
+      this.position = new AtomicLong(position);
+    }
+
+    /**
+     * Sequence number of the next record to read.
+     *
+     * @return the position.
+     */
+    public long position() {
+      return position.get();
+    }
+
+    /**
+     * Checks if writers dropped this subscription for falling a ring behind.
+     * Its records that were not overwritten yet can still be read.
+     *
+     * @return true if it was dropped.
+     */
+    public boolean isDropped() {
+      return dropped;
+    }
+
+    /**
+     * Number of records made that this subscription has not read.
+     *
+     * @return the lag.
+     */
+    public long lag() {
+      return Math.max(0, next.get() - position.get());
+    }
+
+    /**
+     * Reads the next record if it is ready.
+     *
+     * @return the record, or null if there is no new one yet.
+     * @throws IllegalStateException if the record was overwritten before it was read.
+     */
+    public ChangeRecord poll() {
+      long wanted = position.get();
+      ChangeRecord record = slots.get((int) wanted & mask);
+      if (record == null || record.getSequence() < wanted) {
+        return null;
+      }
+      if (record.getSequence() > wanted) {
+        throw new IllegalStateException("Change " + wanted + " was overwritten"
+                + (dropped ? " after the subscription fell a ring behind" : ""));
+      }
+      position.set(wanted + 1);
+      return record;
+    }
+
+    /**
+     * Hands the ready records, up to a limit, to a consumer.
+     * Each read frees its slot for writers.
+     *
+     * @param consumer receives the records in order.
+     * @param max      the most records to read.
+     * @return the number of records read.
+     */
+    public int drain(Consumer<? super ChangeRecord> consumer, int max) {
+      int read = 0;
+      ChangeRecord record;
+      while (read < max && (record = poll()) != null) {
+        consumer.accept(record);
+        read++;
+      }
+      return read;
+    }
+
+    /**
+     * Stops following the feed, so writers no longer wait for this subscription.
+     */
+    @Override
+    public void close() {
+      subscriptions.remove(this);
+    }
+
+    private void drop() {
+      dropped = true;
+      subscriptions.remove(this);
+    }
+  }
+}
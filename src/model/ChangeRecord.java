@@ -0,0 +1,121 @@
+package model;
+
+/**
+ * One change to the calendars of a CalendarManager, as delivered by its ChangeFeed.
+ * Records are numbered in the order the changes were made, starting at 1.
+ * Events are the stored events, in the zone they were created in.
+ */
+public final class ChangeRecord {
+  /**
+   * The kinds of change.
+   */
+  public enum Type {
+    /**
+     * A calendar was created; the detail is its zone.
+     */
+    CALENDAR_CREATED,
+    /**
+     * A calendar was renamed; the detail is its old name.
+     */
+    CALENDAR_RENAMED,
+    /**
+     * A calendar was deleted.
+     */
+    CALENDAR_DELETED,
+    /**
+     * A calendar moved to another zone; the detail is the new zone.
+     */
+    ZONE_CHANGED,
+    /**
+     * An event was added; it is the after event.
+     */
+    EVENT_ADDED,
+    /**
+     * An event was removed; it is the before event.
+     */
+    EVENT_REMOVED,
+    /**
+     * An event was replaced by one with the same id.
+     */
+    EVENT_EDITED
+  }
+
+  private final long sequence;
+  private final Type type;
+  private final String calendar;
+  private final String detail;
+  private final IEvent before;
+  private final IEvent after;
+
+  ChangeRecord(long sequence, Type type, String calendar, String detail,
+               IEvent before, IEvent after) {
+    this.sequence = sequence;
+    this.type = type;
+    this.calendar = calendar;
+    this.detail = detail;
+    this.before = before;
+    this.after = after;
+  }
+
+  /**
+   * Position of the change in the feed.
+   *
+   * @return the sequence number.
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * What changed.
+   *
+   * @return the type.
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Name of the calendar that changed, at the time of the change.
+   *
+   * @return the calendar name.
+   */
+  public String getCalendar() {
+    return calendar;
+  }
+
+  /**
+   * The zone or old name, for calendar changes.
+   *
+   * @return the detail, or null for event changes.
+   */
+  public String getDetail() {
+    return detail;
+  }
+
+  /**
+   * The event before the change.
+   *
+   * @return the removed or edited event, or null.
+   */
+  public IEvent getBefore() {
+    return before;
+  }
+
+  /**
+   * The event after the change.
+   *
+   * @return the added or edited event, or null.
+   */
+  public IEvent getAfter() {
+    return after;
+  }
+
+  @Override
+  public String toString() {
+    IEvent event = after != null ? after : before;
+    return sequence + " " + type + " " + calendar
+            + (detail != null ? " " + detail : "")
+            + (event != null ? " " + event.getSubject() + " #" + event.getId() : "");
+  }
+}
@@ -0,0 +1,20 @@
+package model;
+
+/**
+ * Where a calendar reports its changes. Calendars outside a manager report to NONE.
+ */
+interface ChangeSink {
+  ChangeSink NONE = (type, calendar, detail, before, after) -> { };
+
+  /**
+   * Reports one change.
+   *
+   * @param type     what changed.
+   * @param calendar the calendar name.
+   * @param detail   the zone or old name, or null.
+   * @param before   the event before the change, or null.
+   * @param after    the event after the change, or null.
+   */
+  void accept(ChangeRecord.Type type, String calendar, String detail,
+              IEvent before, IEvent after);
+}
@@ -0,0 +1,19 @@
+package model;
+
+/**
+ * What a calendar does when a new event overlaps events it already has.
+ */
+public enum ConflictPolicy {
+  /**
+   * Overlaps are allowed silently.
+   */
+  ALLOW,
+  /**
+   * Overlaps are allowed; callers may ask for the conflicts and report them.
+   */
+  WARN,
+  /**
+   * An insert that overlaps another event is refused.
+   */
+  REJECT
+}
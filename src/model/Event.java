@@ -6,7 +6,7 @@ import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Event class that organizes the events within a calendar.
@@ -15,6 +15,9 @@ import java.util.Objects;
  * Adds a single event to the calendar.
  */
 public class Event implements IEvent {
+  private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+  private final long id;
   private final String subject;
   private final ZonedDateTime startDateTime;
   private final ZonedDateTime endDateTime;
@@ -22,6 +25,9 @@ public class Event implements IEvent {
   private final Status status;
   private final String description;
   private final boolean allDay;
+  private final long startEpoch;
+  private final long endEpoch;
+  private final int hash;
 
   /**
    * Required constructor for an Event.
@@ -48,13 +54,105 @@ public class Event implements IEvent {
       throw new IllegalArgumentException("End DateTime must be after Start DateTime");
     }
 
-    this.subject = subject.trim();
-    this.startDateTime = startDateTime;
-    this.endDateTime = endDateTime;
-    this.location = location;
+    this.id = nextId();
+    this.subject = Interner.intern(subject.trim());
+    this.startDateTime = Interner.intern(startDateTime);
+    this.endDateTime = Interner.intern(endDateTime);
+    this.location = Interner.intern(location);
     this.status = status;
-    this.description = description;
+    this.description = Interner.intern(description);
     this.allDay = allDayCheck;
+    this.startEpoch = startDateTime.toEpochSecond();
+    this.endEpoch = endDateTime.toEpochSecond();
+    this.hash = identityHash(this.subject, startEpoch, endEpoch);
+  }
+
+  /**
+   * Copy of an event under another id.
+   */
+  private Event(Event source, long id) {
+    this(source, id, source.startDateTime, source.endDateTime);
+  }
+
+  /**
+   * Copy of an event under another id and with its times in another zone.
+   */
+  private Event(Event source, long id, ZonedDateTime startDateTime,
+                ZonedDateTime endDateTime) {
+    this.id = id;
+    this.subject = source.subject;
+    this.startDateTime = startDateTime;
+    this.endDateTime = endDateTime;
+    this.location = source.location;
+    this.status = source.status;
+    this.description = source.description;
+    this.allDay = source.allDay;
+    this.startEpoch = source.startEpoch;
+    this.endEpoch = source.endEpoch;
+    this.hash = source.hash;
+  }
+
+  /**
+   * Hash of the identity key: subject, start and end second.
+   * Equal events share their start and end instants, so they hash alike.
+   */
+  private static int identityHash(String subject, long startEpoch, long endEpoch) {
+    int h = subject.hashCode();
+    h = 31 * h + Long.hashCode(startEpoch);
+    return 31 * h + Long.hashCode(endEpoch);
+  }
+
+  /**
+   * Hands out the next event id.
+   *
+   * @return an id no other event was created with.
+   */
+  static long nextId() {
+    return NEXT_ID.getAndIncrement();
+  }
+
+  /**
+   * The same event under another id.
+   * Used so an edited event keeps the id of the event it replaces.
+   *
+   * @param event the event.
+   * @param id    the id it should have.
+   * @return the event with that id.
+   */
+  static IEvent withId(IEvent event, long id) {
+    if (event.getId() == id || !(event instanceof Event)) {
+      return event;
+    }
+    return new Event((Event) event, id);
+  }
+
+  /**
+   * The same event with its times shown in another zone.
+   * The copy keeps the id and is equal to the event, since identity is
+   * based on instants.
+   *
+   * @param event the event.
+   * @param zone  the zone to show it in.
+   * @return the event in that zone.
+   */
+  static IEvent inZone(IEvent event, ZoneId zone) {
+    if (!(event instanceof Event) || event.getStartDateTime().getZone().equals(zone)) {
+      return event;
+    }
+    Event e = (Event) event;
+    return new Event(e, e.id,
+            ZoneOffsetCache.atZone(e.startEpoch, e.startDateTime.getNano(), Interner.intern(zone)),
+            ZoneOffsetCache.atZone(e.endEpoch, e.endDateTime.getNano(), Interner.intern(zone)));
+  }
+
+  /**
+   * Simple getId method.
+   *
+   * @return id.
+   */
+  @Override
+  public long getId() {
+    return id;
   }
 
   /**
@@ -122,6 +220,8 @@ public class Event implements IEvent {
 
   /**
    * Equals method. Checks if two events are the same.
+   * Events are the same if they have the same name and happen at the same instants,
+   * whatever zone their times are shown in.
    *
    * @param other variable used to compare 2 objects.
    * @return true or false.
@@ -134,9 +234,13 @@ public class Event implements IEvent {
     if (!(other instanceof Event)) {
       return false;
     }
-    return subject.equals(((Event) other).subject) &&
-            startDateTime.equals(((Event) other).startDateTime) &&
-            endDateTime.equals(((Event) other).endDateTime);
+    Event that = (Event) other;
+    if (hash != that.hash || startEpoch != that.startEpoch || endEpoch != that.endEpoch) {
+      return false;
+    }
+    return startDateTime.getNano() == that.startDateTime.getNano() &&
+            endDateTime.getNano() == that.endDateTime.getNano() &&
+            subject.equals(that.subject);
   }
 
   /**
@@ -163,13 +267,13 @@ public class Event implements IEvent {
 
   /**
    * Hashcode Method.
-   * Setting up the object by having a name, startDateTime, and endDateTime.
+   * Computed once from the name and the start and end second.
    *
    * @return int.
    */
   @Override
   public int hashCode() {
-    return Objects.hash(subject, startDateTime, endDateTime);
+    return hash;
   }
 
   /**
@@ -205,10 +309,8 @@ public class Event implements IEvent {
    */
   @Override
   public IEvent shiftCopy(Duration duration, ZoneId newZone) {
-    ZonedDateTime newStart = this.startDateTime.plus(duration)
-            .withZoneSameInstant(newZone);
-    ZonedDateTime newEnd = this.endDateTime.plus(duration)
-            .withZoneSameInstant(newZone);
+    ZonedDateTime newStart = ZoneOffsetCache.shift(startDateTime, duration, newZone);
+    ZonedDateTime newEnd = ZoneOffsetCache.shift(endDateTime, duration, newZone);
 
     return new Event(this.subject,
             newStart, newEnd, this.location, this.status, this.description);
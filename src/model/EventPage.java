@@ -0,0 +1,98 @@
+package model;
+
+import java.util.List;
+
+/**
+ * One page of a paginated event query.
+ * The next cursor is opaque; pass it back to query to get the following page.
+ * Pages are ordered by start and then by event id, so a cursor stays valid
+ * while events before it are added or removed.
+ */
+public final class EventPage {
+  private final List<IEvent> events;
+  private final String nextCursor;
+
+  /**
+   * Creates a page.
+   *
+   * @param events     the events of the page.
+   * @param nextCursor the cursor of the next page, or null on the last page.
+   */
+  EventPage(List<IEvent> events, String nextCursor) {
+    this.events = List.copyOf(events);
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * The events of this page, in the calendar zone.
+   *
+   * @return the unmodifiable events.
+   */
+  public List<IEvent> getEvents() {
+    return events;
+  }
+
+  /**
+   * The cursor to ask for the next page with.
+   *
+   * @return the cursor, or null if this is the last page.
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  /**
+   * Whether there are more events after this page.
+   *
+   * @return true if there is a next page.
+   */
+  public boolean hasNext() {
+    return nextCursor != null;
+  }
+
+  /**
+   * The cursor pointing just after an event.
+   *
+   * @param last the last event of a page.
+   * @return the cursor.
+   */
+  static String cursorAfter(IEvent last) {
+    return Long.toString(last.getStartDateTime().toEpochSecond(), 36) + "."
+            + Integer.toString(last.getStartDateTime().getNano(), 36) + "."
+            + Long.toString(last.getId(), 36);
+  }
+
+  /**
+   * Reads a cursor made by cursorAfter.
+   *
+   * @param cursor the cursor.
+   * @return start epoch second, start nano and id of the event it points after.
+   */
+  static long[] parse(String cursor) {
+    String[] parts = cursor.split("\\.");
+    if (parts.length != 3) {
+      throw new IllegalArgumentException("Invalid cursor " + cursor);
+    }
+    try {
+      return new long[] {Long.parseLong(parts[0], 36), Long.parseLong(parts[1], 36),
+          Long.parseLong(parts[2], 36)};
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid cursor " + cursor);
+    }
+  }
+
+  /**
+   * Compares an event with the position of a cursor in page order.
+   *
+   * @param e      the event.
+   * @param cursor the parsed cursor.
+   * @return negative, zero or positive as the event is before, at or after it.
+   */
+  static int compare(IEvent e, long[] cursor) {
+    int c = Long.compare(e.getStartDateTime().toEpochSecond(), cursor[0]);
+    if (c == 0) {
+      c = Long.compare(e.getStartDateTime().getNano(), cursor[1]);
+    }
+    return c != 0 ? c : Long.compare(e.getId(), cursor[2]);
+  }
+}
@@ -89,6 +89,7 @@ public class EventSeries implements IEventSeries {
    * @return the generated events.
    */
   public List<Event> generateEvents(ZoneId zoneId) {
+    long start = System.nanoTime();
     List<Event> events = new ArrayList<>();
     LocalDate currentDate = startDate;
     int numberOfTimes = 0;
@@ -104,30 +105,27 @@ public class EventSeries implements IEventSeries {
       }
       currentDate = currentDate.plusDays(1);
     }
+    MetricsRegistry.global().record(Operation.SERIES_EXPANSION, start);
     return events;
   }
 
   /**
    * This method adds on a series of events to the calendar.
-   * Error if duplicate event is founded.
+   * Error if duplicate event is founded, or if an occurrence overlaps another event
+   * in a calendar that rejects conflicts. All occurrences are checked in one pass.
    *
    * @param calendar calendar model.
    * @return return the adding of events to the calendar.
    */
   public int addTo(ICalendarModel calendar) {
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("series",
+            CalendarModel.nameOf(calendar));
     List<Event> list = generateEvents(calendar.getZoneId());
-    List<Event> added = new ArrayList<>();
-
-    for (Event e : list) {
-      if (calendar.addEvent(e)) {
-        added.add(e);
-      } else {
-        for (Event ev : added) {
-          calendar.removeEvent(ev);
-        }
-        throw new IllegalStateException("Duplicate event found while adding series");
-      }
+    if (!calendar.addAll(list)) {
+      jfr.finish(list.size(), 0);
+      throw new IllegalStateException("Duplicate or conflicting event found while adding series");
     }
+    jfr.finish(list.size(), list.size());
     return list.size();
   }
 }
@@ -0,0 +1,227 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * Counts and durations of the events overlapping a window, with a histogram.
+ * Durations are clipped to the window. Busy time merges overlapping events, so an
+ * hour with two meetings counts once; total time counts each event.
+ * Each histogram bucket holds the events starting in it and their clipped durations.
+ */
+public final class EventStats {
+  private static final long SECONDS_PER_DAY = 86_400L;
+
+  private final LocalDate firstDay;
+  private final Granularity granularity;
+  private final long count;
+  private final long totalSeconds;
+  private final long busySeconds;
+  private final long[] counts;
+  private final long[] seconds;
+
+  private EventStats(Accumulator acc) {
+    this.firstDay = LocalDate.ofEpochDay(acc.firstDay);
+    this.granularity = acc.granularity;
+    this.count = acc.count;
+    this.totalSeconds = acc.totalSeconds;
+    this.busySeconds = acc.busySeconds + Math.max(0, acc.runEnd - acc.runStart);
+    this.counts = acc.counts;
+    this.seconds = acc.seconds;
+  }
+
+  /**
+   * Number of events overlapping the window.
+   *
+   * @return the count.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Sum of the event durations inside the window.
+   *
+   * @return the total duration.
+   */
+  public Duration getTotalDuration() {
+    return Duration.ofSeconds(totalSeconds);
+  }
+
+  /**
+   * Time inside the window covered by at least one event.
+   *
+   * @return the busy duration.
+   */
+  public Duration getBusyDuration() {
+    return Duration.ofSeconds(busySeconds);
+  }
+
+  /**
+   * Average event duration inside the window.
+   *
+   * @return the average, zero if there are no events.
+   */
+  public Duration getAverageDuration() {
+    return count == 0 ? Duration.ZERO : Duration.ofSeconds(totalSeconds / count);
+  }
+
+  /**
+   * How the histogram is split.
+   *
+   * @return the granularity.
+   */
+  public Granularity getGranularity() {
+    return granularity;
+  }
+
+  /**
+   * Number of histogram buckets.
+   *
+   * @return the number of buckets.
+   */
+  public int buckets() {
+    return counts.length;
+  }
+
+  /**
+   * Events starting in each bucket.
+   *
+   * @return a copy of the counts.
+   */
+  public long[] getCounts() {
+    return Arrays.copyOf(counts, counts.length);
+  }
+
+  /**
+   * Duration of the events starting in a bucket.
+   *
+   * @param bucket the bucket.
+   * @return the duration, clipped to the window.
+   */
+  public Duration getDuration(int bucket) {
+    return Duration.ofSeconds(seconds[bucket]);
+  }
+
+  /**
+   * Name of a bucket: its date, week day or hour.
+   *
+   * @param bucket the bucket.
+   * @return the label.
+   */
+  public String label(int bucket) {
+    switch (granularity) {
+      case DAY:
+        return firstDay.plusDays(bucket).toString();
+      case WEEKDAY:
+        return DayOfWeek.of(bucket + 1).toString();
+      default:
+        return String.format("%02d:00", bucket);
+    }
+  }
+
+  /**
+   * Builds statistics from events handed over one at a time, in start order.
+   * Everything is kept in longs and primitive arrays; events are not stored.
+   */
+  static final class Accumulator {
+    private final ZoneId zone;
+    private final Granularity granularity;
+    private final long from;
+    private final long to;
+    private final long firstDay;
+    private final long[] counts;
+    private final long[] seconds;
+    private long count;
+    private long totalSeconds;
+    private long busySeconds;
+    private long runStart;
+    private long runEnd = Long.MIN_VALUE;
+
+    /**
+     * Starts statistics for a window.
+     *
+     * @param from        start of the window.
+     * @param to          end of the window.
+     * @param zone        the zone buckets are read in.
+     * @param granularity how to split the histogram.
+     */
+    Accumulator(ZonedDateTime from, ZonedDateTime to, ZoneId zone, Granularity granularity) {
+      if (to.isBefore(from)) {
+        throw new IllegalArgumentException("Window ends before it starts");
+      }
+      this.zone = zone;
+      this.granularity = granularity;
+      this.from = from.toEpochSecond();
+      this.to = to.toEpochSecond();
+      this.firstDay = localDay(this.from);
+      int size;
+      switch (granularity) {
+        case DAY:
+          size = Math.toIntExact(localDay(this.to) - firstDay + 1);
+          break;
+        case WEEKDAY:
+          size = 7;
+          break;
+        default:
+          size = 24;
+      }
+      this.counts = new long[size];
+      this.seconds = new long[size];
+    }
+
+    /**
+     * Adds one event overlapping the window. Events must come in start order.
+     *
+     * @param event the event.
+     */
+    void accept(IEvent event) {
+      long start = Math.max(from, event.getStartDateTime().toEpochSecond());
+      long end = Math.min(to, event.getEndDateTime().toEpochSecond());
+      long length = Math.max(0, end - start);
+      count++;
+      totalSeconds += length;
+      if (start > runEnd) {
+        busySeconds += Math.max(0, runEnd - runStart);
+        runStart = start;
+        runEnd = end;
+      } else if (end > runEnd) {
+        runEnd = end;
+      }
+      int bucket = bucket(start);
+      counts[bucket]++;
+      seconds[bucket] += length;
+    }
+
+    /**
+     * The finished statistics.
+     *
+     * @return the statistics.
+     */
+    EventStats finish() {
+      return new EventStats(this);
+    }
+
+    private int bucket(long epochSecond) {
+      long local = epochSecond + ZoneOffsetCache.offsetAt(zone, epochSecond).getTotalSeconds();
+      long day = Math.floorDiv(local, SECONDS_PER_DAY);
+      switch (granularity) {
+        case DAY:
+          return (int) (day - firstDay);
+        case WEEKDAY:
+          return (int) Math.floorMod(day + 3, 7L);
+        default:
+          return (int) (Math.floorMod(local, SECONDS_PER_DAY) / 3600);
+      }
+    }
+
+    private long localDay(long epochSecond) {
+      long local = epochSecond + ZoneOffsetCache.offsetAt(zone, epochSecond).getTotalSeconds();
+      return Math.floorDiv(local, SECONDS_PER_DAY);
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package model;
+
+/**
+ * How event statistics are split into histogram buckets.
+ * Buckets are read in the calendar zone, by the start of each event.
+ */
+public enum Granularity {
+  /**
+   * One bucket per calendar day of the window.
+   */
+  DAY,
+  /**
+   * Seven buckets, Monday to Sunday.
+   */
+  WEEKDAY,
+  /**
+   * Twenty-four buckets, one per hour of the day.
+   */
+  HOUR
+}
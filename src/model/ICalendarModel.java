@@ -4,8 +4,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 /**
  * Interface for CalendarModel.
@@ -19,6 +23,15 @@ public interface ICalendarModel {
    */
   boolean addEvent(IEvent event);
 
+  /**
+   * Add many events to the calendar at once.
+   * Every event is checked against the calendar and the rest of the batch first;
+   * either all of them are added or, on a duplicate, none are.
+   * @param batch the events to add.
+   * @return true if all events were added, false if nothing changed.
+   */
+  boolean addAll(Collection<? extends IEvent> batch);
+
   /**
    * Add the events to the calendar.
    * @param event of calendar.
@@ -26,6 +39,29 @@ public interface ICalendarModel {
    */
   boolean removeEvent(IEvent event);
 
+  /**
+   * Look up an event by id.
+   * @param id the id of the event.
+   * @return the event if the calendar has it.
+   */
+  Optional<IEvent> getEvent(long id);
+
+  /**
+   * Remove the event with the given id.
+   * @param id the id of the event.
+   * @return true if an event was removed.
+   */
+  boolean removeEventById(long id);
+
+  /**
+   * Replace the event with the given id.
+   * The replacement takes over the id.
+   * @param id the id of the event.
+   * @param replacement the new event.
+   * @return true if the event was replaced.
+   */
+  boolean editEventById(long id, IEvent replacement);
+
   /**
    * The date event is happening.
    * @param date date of the calendar.
@@ -73,24 +109,140 @@ public interface ICalendarModel {
                     IEvent replacement);
 
   /**
-   * Event between events.
-   * @param from from start to end.
-   * @param to start to end.
-   * @param mutator changing the events.
-   * @return the edit between events.
+   * Replace every event that overlaps a window, as one batch.
+   * The replacer gets each event shown in the calendar zone and returns its replacement,
+   * or the same event or null to keep it. Replacements keep the ids of the events
+   * they replace.
+   * @param from start of the window.
+   * @param to end of the window.
+   * @param replacer builds the replacement of an event.
+   * @return the number of replaced events; 0 if a replacement would duplicate
+   *         another event, in which case nothing changes.
    */
-  boolean editEventBetween(ZonedDateTime from, ZonedDateTime to,
-                           java.util.function.Consumer<IEvent> mutator);
+  int editEventBetween(ZonedDateTime from, ZonedDateTime to, UnaryOperator<IEvent> replacer);
 
   /**
-   * The edited series of events.
+   * Replace every event with a subject that starts at or after a time, as one batch.
+   * Works like editEventBetween.
    * @param subject name of the event.
-   * @param from from start to end.
-   * @param mutator changes to the event.
-   * @return the edited series of event.
+   * @param from the earliest start to edit.
+   * @param replacer builds the replacement of an event.
+   * @return the number of replaced events; 0 if a replacement would duplicate
+   *         another event, in which case nothing changes.
+   */
+  int editSeriesFrom(String subject, ZonedDateTime from, UnaryOperator<IEvent> replacer);
+
+  /**
+   * Events whose subject starts with a prefix, optionally limited to a window.
+   * @param prefix the start of the subject, case-sensitive.
+   * @param from start of the window, or null for no limit.
+   * @param to end of the window, or null for no limit.
+   * @return the matching events shown in the calendar zone, sorted by start.
    */
-  boolean editSeriesFrom(String subject, ZonedDateTime from,
-                         java.util.function.Consumer<IEvent> mutator);
+  List<IEvent> searchByPrefix(String prefix, ZonedDateTime from, ZonedDateTime to);
+
+  /**
+   * Events whose description or location match a text query, optionally limited to a window.
+   * @param query the text query.
+   * @param from start of the window, or null for no limit.
+   * @param to end of the window, or null for no limit.
+   * @return the matching events shown in the calendar zone, sorted by start.
+   */
+  List<IEvent> searchText(TextQuery query, ZonedDateTime from, ZonedDateTime to);
+
+  /**
+   * One page of the events overlapping a window, ordered by start and then id.
+   * @param from start of the window.
+   * @param to end of the window.
+   * @param pageSize the most events on the page, at least 1.
+   * @param afterCursor the next cursor of the previous page, or null for the first page.
+   * @return the page, with the cursor of the next page if there is one.
+   */
+  EventPage query(ZonedDateTime from, ZonedDateTime to, int pageSize, String afterCursor);
+
+  /**
+   * Lazily reports the events overlapping a window, sorted by start.
+   * Nothing is collected up front, so counting, exporting or stopping early only
+   * pays for the events actually read. The calendar must not change while it is used.
+   * @param from start of the window, or null for every event.
+   * @param to end of the window, or null for every event.
+   * @return the spliterator of events shown in the calendar zone.
+   */
+  Spliterator<IEvent> spliterator(ZonedDateTime from, ZonedDateTime to);
+
+  /**
+   * Sequential stream over spliterator(from, to); call parallel() to split it.
+   * @param from start of the window, or null for every event.
+   * @param to end of the window, or null for every event.
+   * @return the stream of events shown in the calendar zone.
+   */
+  Stream<IEvent> stream(ZonedDateTime from, ZonedDateTime to);
+
+  /**
+   * Counts, total and busy durations, and a histogram of the events overlapping a window.
+   * @param from start of the window.
+   * @param to end of the window.
+   * @param by how to split the histogram, in the calendar zone.
+   * @return the statistics.
+   */
+  EventStats aggregate(ZonedDateTime from, ZonedDateTime to, Granularity by);
+
+  /**
+   * Keeps materialized, incrementally maintained agendas for today and the days
+   * around it in the calendar zone. The window rolls with the date.
+   * @param daysBefore days before today to keep, not negative.
+   * @param daysAfter days after today to keep, not negative.
+   */
+  void setAgendaWindow(int daysBefore, int daysAfter);
+
+  /**
+   * Stops keeping materialized agendas.
+   */
+  void clearAgendaWindow();
+
+  /**
+   * The events of a day, like getEventsOn, as an unmodifiable list that later
+   * changes to the calendar do not affect.
+   * @param date a day in the calendar zone.
+   * @return the events of that day, sorted by start.
+   */
+  List<IEvent> getAgenda(LocalDate date);
+
+  /**
+   * Events at a location overlapping a window.
+   * @param location the location, compared ignoring case and extra spaces.
+   * @param from start of the window.
+   * @param to end of the window.
+   * @return the events shown in the calendar zone, sorted by start.
+   */
+  List<IEvent> getEventsAt(String location, ZonedDateTime from, ZonedDateTime to);
+
+  /**
+   * What the calendar does when an added event overlaps another one.
+   * @return the policy, ALLOW unless changed.
+   */
+  ConflictPolicy getConflictPolicy();
+
+  /**
+   * Sets what the calendar does when an added event overlaps another one.
+   * With REJECT, addEvent and addAll return false for overlapping events.
+   * @param policy the policy.
+   */
+  void setConflictPolicy(ConflictPolicy policy);
+
+  /**
+   * Events that would conflict if a batch were added: stored events overlapping
+   * the batch, and batch events overlapping earlier ones of the batch.
+   * @param batch the events that would be added.
+   * @return the conflicting events shown in the calendar zone.
+   */
+  List<IEvent> getConflicts(Collection<? extends IEvent> batch);
+
+  /**
+   * Estimated memory of the text index, reported apart from the events themselves.
+   * @return the estimate in bytes, 0 for a calendar without a text index.
+   */
+  long textIndexBytes();
 
   /**
    * The event is busy or not.
@@ -98,4 +250,11 @@ public interface ICalendarModel {
    * @return if the event is busy or not.
    */
   boolean busyDuring(ZonedDateTime when);
+
+  /**
+   * Creates an independent calendar with the same zone and events.
+   * Changes to the copy do not affect this calendar.
+   * @return the copy.
+   */
+  ICalendarModel copy();
 }
@@ -9,6 +9,13 @@ import java.time.ZonedDateTime;
  * Interface for an event in the calendar.
  */
 public interface IEvent {
+  /**
+   * Get the id of the event.
+   * Ids are unique within a calendar and survive edits of the event.
+   * @return the id of the event.
+   */
+  long getId();
+
   /**
    * Get the name of events.
    * @return the subject of the events.
@@ -0,0 +1,149 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Lazily walks the start buckets of a time index between two keys, after a short
+ * sorted head of events that started before the range.
+ * No bucket is copied up front: each one is read when the walk reaches it, so a
+ * consumer that stops early never touches the rest of the range. Before the walk
+ * starts the head can be split off, and then the key range can be split in two at
+ * a bucket key, found in O(log n).
+ * The index must not change while the spliterator is in use.
+ */
+final class IndexSpliterator implements Spliterator<IEvent> {
+  private static final Comparator<IEvent> BUCKET_ORDER =
+      Comparator.comparing((IEvent e) -> e.getStartDateTime().getNano())
+          .thenComparingLong(IEvent::getId);
+
+  private final NavigableMap<Long, List<IEvent>> byStart;
+  private List<IEvent> head;
+  private final Predicate<IEvent> keep;
+  private final UnaryOperator<IEvent> view;
+  private long lo;
+  private long hi;
+  private long estimate;
+  private boolean exact;
+  private Iterator<Map.Entry<Long, List<IEvent>>> walk;
+  private Iterator<IEvent> headWalk;
+  private Iterator<IEvent> bucket;
+
+  /**
+   * Creates a spliterator over the buckets with keys in [lo, hi].
+   *
+   * @param byStart  the buckets by start epoch second.
+   * @param lo       the first key.
+   * @param hi       the last key.
+   * @param head     events reported before the buckets, in order.
+   * @param keep     which events of the buckets to report.
+   * @param view     turns a stored event into the reported one.
+   * @param estimate the number of events, or an upper bound.
+   * @param exact    true if estimate is the exact number reported.
+   */
+  IndexSpliterator(NavigableMap<Long, List<IEvent>> byStart, long lo, long hi,
+                   List<IEvent> head, Predicate<IEvent> keep, UnaryOperator<IEvent> view,
+                   long estimate, boolean exact) {
+    this.byStart = byStart;
+    this.lo = lo;
+    this.hi = hi;
+    this.head = head;
+    this.keep = keep;
+    this.view = view;
+    this.estimate = estimate;
+    this.exact = exact;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super IEvent> action) {
+    if (walk == null) {
+      walk = lo > hi ? List.<Map.Entry<Long, List<IEvent>>>of().iterator()
+              : byStart.subMap(lo, true, hi, true).entrySet().iterator();
+      headWalk = head.iterator();
+    }
+    if (headWalk.hasNext()) {
+      if (exact) {
+        estimate--;
+      }
+      action.accept(view.apply(headWalk.next()));
+      return true;
+    }
+    while (true) {
+      while (bucket != null && bucket.hasNext()) {
+        IEvent e = bucket.next();
+        if (keep.test(e)) {
+          if (exact) {
+            estimate--;
+          }
+          action.accept(view.apply(e));
+          return true;
+        }
+      }
+      if (!walk.hasNext()) {
+        return false;
+      }
+      List<IEvent> events = walk.next().getValue();
+      if (events.size() > 1) {
+        events = new ArrayList<>(events);
+        events.sort(BUCKET_ORDER);
+      }
+      bucket = events.iterator();
+    }
+  }
+
+  /**
+   * Splits off the head, or else the buckets of the earlier half of the key range.
+   * Only possible before the walk has started.
+   */
+  @Override
+  public Spliterator<IEvent> trySplit() {
+    if (walk != null) {
+      return null;
+    }
+    if (!head.isEmpty()) {
+      IndexSpliterator prefix = new IndexSpliterator(byStart, 1, 0, head, keep, view,
+              head.size(), true);
+      head = List.of();
+      estimate = Math.max(0, estimate - prefix.estimate);
+      exact = false;
+      return prefix;
+    }
+    Long first = byStart.ceilingKey(lo);
+    Long last = byStart.floorKey(hi);
+    if (first == null || last == null || first >= last) {
+      return null;
+    }
+    long mid = first + (last - first) / 2;
+    long right = byStart.ceilingKey(mid + 1);
+    IndexSpliterator prefix = new IndexSpliterator(byStart, first, right - 1, List.of(), keep,
+            view, estimate >>> 1, false);
+    lo = right;
+    hi = last;
+    estimate -= prefix.estimate;
+    exact = false;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return estimate;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | SORTED | NONNULL | (exact ? SIZED : 0);
+  }
+
+  @Override
+  public Comparator<? super IEvent> getComparator() {
+    return Overlaps.BY_START;
+  }
+}
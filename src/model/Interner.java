@@ -0,0 +1,73 @@
+package model;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shares repeated event fields between events.
+ * Strings go through a fixed-size table of weak references indexed by hash,
+ * so the pool never grows and never keeps a string alive on its own. A collision
+ * simply replaces the slot. Zones are few, so they are kept in a plain map.
+ * The table is read and written without locks; a lost race only costs a miss.
+ */
+final class Interner {
+  private static final int SLOTS = 1 << 14;
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static final WeakReference<String>[] TABLE = new WeakReference[SLOTS];
+  private static final ConcurrentMap<ZoneId, ZoneId> ZONES = new ConcurrentHashMap<>();
+
+  private Interner() {
+  }
+
+  /**
+   * The shared instance of a string.
+   *
+   * @param value the string, may be null.
+   * @return an equal string, the same instance as earlier equal values when possible.
+   */
+  static String intern(String value) {
+    if (value == null) {
+      return null;
+    }
+    int h = value.hashCode();
+    int slot = (h ^ (h >>> 16)) & (SLOTS - 1);
+    WeakReference<String> ref = TABLE[slot];
+    String shared = ref == null ? null : ref.get();
+    if (value.equals(shared)) {
+      return shared;
+    }
+    TABLE[slot] = new WeakReference<>(value);
+    return value;
+  }
+
+  /**
+   * The shared instance of a zone.
+   *
+   * @param zone the zone.
+   * @return an equal zone, always the same instance.
+   */
+  static ZoneId intern(ZoneId zone) {
+    ZoneId shared = ZONES.putIfAbsent(zone, zone);
+    return shared == null ? zone : shared;
+  }
+
+  /**
+   * The same date-time pointing at the shared instance of its zone.
+   *
+   * @param time the date-time.
+   * @return an equal date-time whose zone is interned.
+   */
+  static ZonedDateTime intern(ZonedDateTime time) {
+    ZoneId zone = intern(time.getZone());
+    if (zone == time.getZone()) {
+      return time;
+    }
+    LocalDateTime local = time.toLocalDateTime();
+    return ZonedDateTime.ofStrict(local, time.getOffset(), zone);
+  }
+}
@@ -0,0 +1,127 @@
+package model;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of HdrHistogram.
+ * Every power of two is split into 16 buckets, so a percentile is accurate to about 6%.
+ * Each bucket is a LongAdder, so threads recording at the same time do not contend.
+ */
+public final class LatencyHistogram implements LatencyHistogramMBean {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 40;
+  private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+  private final LongAdder[] buckets;
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Creates an empty histogram.
+   */
+  public LatencyHistogram() {
+    buckets = new LongAdder[SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records one call. Values above about 36 minutes share the last bucket.
+   *
+   * @param nanos the duration of the call in nanoseconds.
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+    buckets[bucketOf(value)].increment();
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  private static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int sub = (int) (value >>> shift) - SUB_BUCKETS;
+    return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+  }
+
+  private static long highestValueIn(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+    long sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+    return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+  }
+
+  /**
+   * Value that the given fraction of calls stay under.
+   * The answer is the upper edge of the bucket holding that call.
+   *
+   * @param fraction a number between 0 and 1, e.g. 0.99.
+   * @return the percentile in nanoseconds, or 0 if nothing was recorded.
+   */
+  public long percentile(double fraction) {
+    long total = 0;
+    long[] snapshot = new long[buckets.length];
+    for (int i = 0; i < buckets.length; i++) {
+      snapshot[i] = buckets[i].sum();
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(fraction * total));
+    long seen = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(highestValueIn(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  @Override
+  public long getCount() {
+    return count.sum();
+  }
+
+  @Override
+  public double getMeanMicros() {
+    long calls = count.sum();
+    return calls == 0 ? 0 : sum.sum() / (calls * 1000.0);
+  }
+
+  @Override
+  public double getP50Micros() {
+    return percentile(0.50) / 1000.0;
+  }
+
+  @Override
+  public double getP99Micros() {
+    return percentile(0.99) / 1000.0;
+  }
+
+  @Override
+  public double getMaxMicros() {
+    return max.get() / 1000.0;
+  }
+
+  @Override
+  public void reset() {
+    for (LongAdder bucket : buckets) {
+      bucket.reset();
+    }
+    count.reset();
+    sum.reset();
+    max.reset();
+  }
+}
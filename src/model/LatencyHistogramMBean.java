@@ -0,0 +1,47 @@
+package model;
+
+/**
+ * JMX view of one LatencyHistogram.
+ * Times are reported in microseconds.
+ */
+public interface LatencyHistogramMBean {
+  /**
+   * Number of recorded calls.
+   *
+   * @return the call count.
+   */
+  long getCount();
+
+  /**
+   * Average time of a call.
+   *
+   * @return the mean in microseconds.
+   */
+  double getMeanMicros();
+
+  /**
+   * Median time of a call.
+   *
+   * @return the 50th percentile in microseconds.
+   */
+  double getP50Micros();
+
+  /**
+   * Time that 99 percent of the calls stay under.
+   *
+   * @return the 99th percentile in microseconds.
+   */
+  double getP99Micros();
+
+  /**
+   * Slowest recorded call.
+   *
+   * @return the maximum in microseconds.
+   */
+  double getMaxMicros();
+
+  /**
+   * Clears every recorded value.
+   */
+  void reset();
+}
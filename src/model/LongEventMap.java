@@ -0,0 +1,192 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Map from event id to event with primitive long keys.
+ * Uses open addressing with linear probing in two parallel arrays, so a lookup
+ * hashes one long and never allocates. Removal shifts later entries of the probe
+ * run back instead of leaving tombstones.
+ */
+final class LongEventMap implements Iterable<IEvent> {
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys;
+  private IEvent[] values;
+  private int size;
+
+  /**
+   * Creates an empty map.
+   */
+  LongEventMap() {
+    this(MIN_CAPACITY);
+  }
+
+  /**
+   * Creates an empty map with room for the given number of events.
+   *
+   * @param expected the number of events expected.
+   */
+  LongEventMap(int expected) {
+    int capacity = MIN_CAPACITY;
+    while (capacity < expected * 2) {
+      capacity <<= 1;
+    }
+    keys = new long[capacity];
+    values = new IEvent[capacity];
+  }
+
+  /**
+   * Number of stored events.
+   *
+   * @return the size.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Looks up an event by id.
+   *
+   * @param id the id.
+   * @return the event, or null if there is none.
+   */
+  IEvent get(long id) {
+    int mask = keys.length - 1;
+    for (int i = slot(id, mask); values[i] != null; i = (i + 1) & mask) {
+      if (keys[i] == id) {
+        return values[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Stores an event under an id, replacing any event already there.
+   *
+   * @param id    the id.
+   * @param event the event.
+   * @return the replaced event, or null.
+   */
+  IEvent put(long id, IEvent event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event must not be null");
+    }
+    int mask = keys.length - 1;
+    int i = slot(id, mask);
+    while (values[i] != null) {
+      if (keys[i] == id) {
+        IEvent old = values[i];
+        values[i] = event;
+        return old;
+      }
+      i = (i + 1) & mask;
+    }
+    keys[i] = id;
+    values[i] = event;
+    if (++size * 2 > keys.length) {
+      resize(keys.length << 1);
+    }
+    return null;
+  }
+
+  /**
+   * Removes the event stored under an id.
+   *
+   * @param id the id.
+   * @return the removed event, or null if there was none.
+   */
+  IEvent remove(long id) {
+    int mask = keys.length - 1;
+    int i = slot(id, mask);
+    while (values[i] != null && keys[i] != id) {
+      i = (i + 1) & mask;
+    }
+    IEvent removed = values[i];
+    if (removed == null) {
+      return null;
+    }
+    int gap = i;
+    for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+      int home = slot(keys[j], mask);
+      if (((j - home) & mask) >= ((j - gap) & mask)) {
+        keys[gap] = keys[j];
+        values[gap] = values[j];
+        gap = j;
+      }
+    }
+    values[gap] = null;
+    size--;
+    return removed;
+  }
+
+  /**
+   * Iterates every stored event, in no particular order.
+   * The map must not be changed while iterating.
+   *
+   * @return the iterator.
+   */
+  @Override
+  public Iterator<IEvent> iterator() {
+    IEvent[] table = values;
+    return new Iterator<IEvent>() {
+      private int next = advance(0);
+
+      private int advance(int from) {
+        int i = from;
+        while (i < table.length && table[i] == null) {
+          i++;
+        }
+        return i;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next < table.length;
+      }
+
+      @Override
+      public IEvent next() {
+        if (next >= table.length) {
+          throw new NoSuchElementException();
+        }
+        IEvent event = table[next];
+        next = advance(next + 1);
+        return event;
+      }
+    };
+  }
+
+  /**
+   * Removes every event.
+   */
+  void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    IEvent[] oldValues = values;
+    keys = new long[capacity];
+    values = new IEvent[capacity];
+    int mask = capacity - 1;
+    for (int k = 0; k < oldKeys.length; k++) {
+      if (oldValues[k] != null) {
+        int i = slot(oldKeys[k], mask);
+        while (values[i] != null) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[k];
+        values[i] = oldValues[k];
+      }
+    }
+  }
+
+  private static int slot(long id, int mask) {
+    long h = id * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+}
@@ -0,0 +1,98 @@
+package model;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of the hot calendar operations.
+ * There is one registry per program; recording never takes a lock.
+ */
+public final class MetricsRegistry {
+  private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+  private final Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+  private final AtomicBoolean registered = new AtomicBoolean();
+
+  private MetricsRegistry() {
+    for (Operation operation : Operation.values()) {
+      histograms.put(operation, new LatencyHistogram());
+    }
+  }
+
+  /**
+   * The registry that the model and controllers record into.
+   *
+   * @return the shared registry.
+   */
+  public static MetricsRegistry global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Records a call that started at the given System.nanoTime value.
+   *
+   * @param operation  the operation that was timed.
+   * @param startNanos the System.nanoTime value taken before the call.
+   */
+  public void record(Operation operation, long startNanos) {
+    histograms.get(operation).record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * The histogram of one operation.
+   *
+   * @param operation the operation.
+   * @return its histogram.
+   */
+  public LatencyHistogram histogram(Operation operation) {
+    return histograms.get(operation);
+  }
+
+  /**
+   * Clears all histograms.
+   */
+  public void reset() {
+    histograms.values().forEach(LatencyHistogram::reset);
+  }
+
+  /**
+   * Publishes every histogram as an MBean named calendar:type=Metrics,operation=label.
+   * Calling this more than once has no effect.
+   */
+  public void registerMBeans() {
+    if (!registered.compareAndSet(false, true)) {
+      return;
+    }
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      for (Map.Entry<Operation, LatencyHistogram> entry : histograms.entrySet()) {
+        server.registerMBean(entry.getValue(), new ObjectName(
+                "calendar:type=Metrics,operation=" + entry.getKey().getLabel()));
+      }
+    } catch (JMException e) {
+      throw new IllegalStateException("Cannot register metrics MBeans", e);
+    }
+  }
+
+  /**
+   * A table with the count and latencies of every operation.
+   *
+   * @return the report, one line per operation.
+   */
+  public String report() {
+    StringBuilder report = new StringBuilder(String.format("%-10s %10s %10s %10s %10s %10s%n",
+            "operation", "count", "mean(us)", "p50(us)", "p99(us)", "max(us)"));
+    for (Map.Entry<Operation, LatencyHistogram> entry : histograms.entrySet()) {
+      LatencyHistogram h = entry.getValue();
+      report.append(String.format("%-10s %10d %10.1f %10.1f %10.1f %10.1f%n",
+              entry.getKey().getLabel(), h.getCount(), h.getMeanMicros(),
+              h.getP50Micros(), h.getP99Micros(), h.getMaxMicros()));
+    }
+    return report.toString();
+  }
+}
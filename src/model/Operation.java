@@ -0,0 +1,29 @@
+package model;
+
+/**
+ * Operations of the calendar that are timed by the MetricsRegistry.
+ */
+public enum Operation {
+  ADD("add"),
+  REMOVE("remove"),
+  QUERY("query"),
+  BUSY_CHECK("busy"),
+  COPY("copy"),
+  SERIES_EXPANSION("series"),
+  COMMAND("command");
+
+  private final String label;
+
+  Operation(String label) {
+    this.label = label;
+  }
+
+  /**
+   * Short name used in reports and JMX object names.
+   *
+   * @return the label of the operation.
+   */
+  public String getLabel() {
+    return label;
+  }
+}
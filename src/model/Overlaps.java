@@ -0,0 +1,83 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds overlaps between a batch of new events and the events already in a calendar.
+ * Both lists are sorted by start and merged in one pass; only the events still
+ * running at the current start are kept, so a batch costs the size of both lists
+ * plus the overlaps found, instead of one query per new event.
+ */
+final class Overlaps {
+  static final Comparator<IEvent> BY_START = Comparator.comparing(IEvent::getStartDateTime);
+
+  private Overlaps() {
+  }
+
+  /**
+   * Checks whether two events share some time. Touching events do not overlap.
+   *
+   * @param a one event.
+   * @param b the other event.
+   * @return true if they overlap.
+   */
+  static boolean overlap(IEvent a, IEvent b) {
+    return a.getStartDateTime().isBefore(b.getEndDateTime())
+            && b.getStartDateTime().isBefore(a.getEndDateTime());
+  }
+
+  /**
+   * The events that conflict within a batch or with existing events.
+   * An existing event is reported if it overlaps a new one, and a new event if it
+   * overlaps an earlier new one.
+   *
+   * @param incoming the new events, sorted by start.
+   * @param existing the existing events around the batch, sorted by start.
+   * @param limit    stop after this many conflicts.
+   * @return the conflicting events, in the order found.
+   */
+  static List<IEvent> find(List<IEvent> incoming, List<IEvent> existing, int limit) {
+    Set<IEvent> found = new LinkedHashSet<>();
+    List<IEvent> runningNew = new ArrayList<>();
+    List<IEvent> runningOld = new ArrayList<>();
+    int i = 0;
+    int j = 0;
+    while (i < incoming.size() && found.size() < limit) {
+      boolean isNew = j == existing.size()
+              || !incoming.get(i).getStartDateTime().isAfter(existing.get(j).getStartDateTime());
+      IEvent next = isNew ? incoming.get(i++) : existing.get(j++);
+      runningNew.removeIf(e -> !e.getEndDateTime().isAfter(next.getStartDateTime()));
+      runningOld.removeIf(e -> !e.getEndDateTime().isAfter(next.getStartDateTime()));
+      for (IEvent e : runningNew) {
+        if (overlap(e, next)) {
+          found.add(next);
+        }
+      }
+      if (isNew) {
+        for (IEvent e : runningOld) {
+          if (overlap(e, next)) {
+            found.add(e);
+          }
+        }
+        runningNew.add(next);
+      } else {
+        runningOld.add(next);
+      }
+    }
+    while (j < existing.size() && found.size() < limit && !runningNew.isEmpty()) {
+      IEvent next = existing.get(j++);
+      runningNew.removeIf(e -> !e.getEndDateTime().isAfter(next.getStartDateTime()));
+      for (IEvent e : runningNew) {
+        if (overlap(e, next)) {
+          found.add(next);
+        }
+      }
+    }
+    List<IEvent> result = new ArrayList<>(found);
+    return result.size() > limit ? result.subList(0, limit) : result;
+  }
+}
@@ -0,0 +1,377 @@
+package model;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Immutable set of events stored as a persistent AVL tree ordered by start instant.
+ * Adding or removing an event copies only the O(log n) nodes on its path,
+ * so old versions stay valid and share every other node with the new one.
+ * Each node also keeps the latest end in its subtree, which makes the tree an
+ * interval tree: overlap queries skip subtrees that end before the window.
+ * A tree built from {@link #BY_ID} also carries a persistent id map, versioned
+ * together with the tree, for id lookups in O(log n). Its events must have distinct ids.
+ */
+final class PersistentEventTree implements Iterable<IEvent> {
+  static final PersistentEventTree EMPTY = new PersistentEventTree(null, null);
+  static final PersistentEventTree BY_ID =
+      new PersistentEventTree(null, PersistentIdMap.EMPTY);
+
+  static final Comparator<IEvent> ORDER =
+      Comparator.<IEvent>comparingLong(e -> e.getStartDateTime().toEpochSecond())
+              .thenComparingInt(e -> e.getStartDateTime().getNano())
+              .thenComparingLong(e -> e.getEndDateTime().toEpochSecond())
+              .thenComparingInt(e -> e.getEndDateTime().getNano())
+              .thenComparing(IEvent::getSubject);
+
+  private final Node root;
+  private final PersistentIdMap ids;
+
+  private PersistentEventTree(Node root, PersistentIdMap ids) {
+    this.root = root;
+    this.ids = ids;
+  }
+
+  /**
+   * Number of events in this version.
+   *
+   * @return the size.
+   */
+  int size() {
+    return size(root);
+  }
+
+  /**
+   * Checks if an equal event is stored.
+   *
+   * @param event the event to look for.
+   * @return true if it is in this version.
+   */
+  boolean contains(IEvent event) {
+    return find(event) != null;
+  }
+
+  /**
+   * The stored event equal to one, which carries the stored id.
+   *
+   * @param event the event to look for.
+   * @return the stored event, or null if there is none.
+   */
+  IEvent find(IEvent event) {
+    Node node = root;
+    while (node != null) {
+      int cmp = ORDER.compare(event, node.event);
+      if (cmp == 0) {
+        return node.event;
+      }
+      node = cmp < 0 ? node.left : node.right;
+    }
+    return null;
+  }
+
+  /**
+   * The event with an id.
+   *
+   * @param id the id.
+   * @return the event, or null if there is none.
+   * @throws IllegalStateException if the tree was not built from {@link #BY_ID}.
+   */
+  IEvent get(long id) {
+    if (ids == null) {
+      throw new IllegalStateException("Tree has no id map");
+    }
+    return ids.get(id);
+  }
+
+  /**
+   * A version with the event added.
+   *
+   * @param event the event to add.
+   * @return the new version, or this one if the event was already stored.
+   */
+  PersistentEventTree with(IEvent event) {
+    Node next = insert(root, event);
+    if (next == root) {
+      return this;
+    }
+    return new PersistentEventTree(next, ids == null ? null : ids.put(event));
+  }
+
+  /**
+   * A version with the event removed.
+   *
+   * @param event the event to remove.
+   * @return the new version, or this one if the event was not stored.
+   */
+  PersistentEventTree without(IEvent event) {
+    if (ids == null) {
+      Node next = delete(root, event);
+      return next == root ? this : new PersistentEventTree(next, null);
+    }
+    IEvent old = find(event);
+    if (old == null) {
+      return this;
+    }
+    return new PersistentEventTree(delete(root, old), ids.remove(old.getId()));
+  }
+
+  /**
+   * Adds every event that overlaps a window to a list, in start order.
+   * An event overlaps if it ends at or after from and starts at or before to.
+   *
+   * @param from   start of the window.
+   * @param to     end of the window.
+   * @param result the list the events are added to.
+   */
+  void overlapping(Instant from, Instant to, List<IEvent> result) {
+    walk(root, Instant.MIN, to, from, e -> {
+      result.add(e);
+      return true;
+    });
+  }
+
+  /**
+   * Hands the events starting between two instants and ending at or after a third
+   * one to a visitor, in start order, until the visitor returns false.
+   * Subtrees that start too early or end too soon are skipped, so the walk costs
+   * O(log n) plus O(log n) per event handed over.
+   *
+   * @param startFrom the earliest start.
+   * @param startTo   the latest start.
+   * @param endFrom   the earliest end.
+   * @param visitor   receives each event and returns false to stop.
+   */
+  void forEach(Instant startFrom, Instant startTo, Instant endFrom, Predicate<IEvent> visitor) {
+    walk(root, startFrom, startTo, endFrom, visitor);
+  }
+
+  private static boolean walk(Node node, Instant lo, Instant hi, Instant end,
+                              Predicate<IEvent> visitor) {
+    if (node == null || node.maxEnd.isBefore(end)) {
+      return true;
+    }
+    Instant start = node.event.getStartDateTime().toInstant();
+    boolean early = start.isBefore(lo);
+    if (!early && !walk(node.left, lo, hi, end, visitor)) {
+      return false;
+    }
+    if (start.isAfter(hi)) {
+      return false;
+    }
+    if (!early && !node.event.getEndDateTime().toInstant().isBefore(end)
+            && !visitor.test(node.event)) {
+      return false;
+    }
+    return walk(node.right, lo, hi, end, visitor);
+  }
+
+  /**
+   * Hands the events only in this version to one consumer and the events only in
+   * another version to a second one, each in start order. Both versions are walked
+   * together and a subtree they share is skipped whole, so versions k changes apart
+   * are compared in O(k log n) instead of O(n).
+   *
+   * @param other   the other version.
+   * @param removed receives the events missing from the other version.
+   * @param added   receives the events new in the other version.
+   */
+  void diff(PersistentEventTree other, Consumer<IEvent> removed, Consumer<IEvent> added) {
+    Deque<Object> left = new ArrayDeque<>();
+    Deque<Object> right = new ArrayDeque<>();
+    if (root != null) {
+      left.push(root);
+    }
+    if (other.root != null) {
+      right.push(other.root);
+    }
+    while (!left.isEmpty() && !right.isEmpty()) {
+      Object a = left.peek();
+      Object b = right.peek();
+      if (a == b) {
+        left.pop();
+        right.pop();
+      } else if (a instanceof Node
+              && (!(b instanceof Node) || ((Node) a).height >= ((Node) b).height)) {
+        expand(left);
+      } else if (b instanceof Node) {
+        expand(right);
+      } else {
+        int cmp = ORDER.compare((IEvent) a, (IEvent) b);
+        if (cmp <= 0) {
+          removed.accept((IEvent) left.pop());
+        }
+        if (cmp >= 0) {
+          added.accept((IEvent) right.pop());
+        }
+      }
+    }
+    drain(left, removed);
+    drain(right, added);
+  }
+
+  /**
+   * Replaces the subtree on top of a walk stack by its left subtree, its event and
+   * its right subtree, so the stack still pops in start order.
+   */
+  private static void expand(Deque<Object> stack) {
+    Node node = (Node) stack.pop();
+    if (node.right != null) {
+      stack.push(node.right);
+    }
+    stack.push(node.event);
+    if (node.left != null) {
+      stack.push(node.left);
+    }
+  }
+
+  private static void drain(Deque<Object> stack, Consumer<IEvent> sink) {
+    while (!stack.isEmpty()) {
+      if (stack.peek() instanceof Node) {
+        expand(stack);
+      } else {
+        sink.accept((IEvent) stack.pop());
+      }
+    }
+  }
+
+  /**
+   * Iterates every event in start order.
+   *
+   * @return the iterator.
+   */
+  @Override
+  public Iterator<IEvent> iterator() {
+    Deque<Node> path = new ArrayDeque<>();
+    for (Node n = root; n != null; n = n.left) {
+      path.push(n);
+    }
+    return new Iterator<IEvent>() {
+      @Override
+      public boolean hasNext() {
+        return !path.isEmpty();
+      }
+
+      @Override
+      public IEvent next() {
+        if (path.isEmpty()) {
+          throw new NoSuchElementException();
+        }
+        Node node = path.pop();
+        for (Node n = node.right; n != null; n = n.left) {
+          path.push(n);
+        }
+        return node.event;
+      }
+    };
+  }
+
+  private static Node insert(Node node, IEvent event) {
+    if (node == null) {
+      return new Node(event, null, null);
+    }
+    int cmp = ORDER.compare(event, node.event);
+    if (cmp == 0) {
+      return node;
+    }
+    if (cmp < 0) {
+      Node left = insert(node.left, event);
+      return left == node.left ? node : balance(node.event, left, node.right);
+    }
+    Node right = insert(node.right, event);
+    return right == node.right ? node : balance(node.event, node.left, right);
+  }
+
+  private static Node delete(Node node, IEvent event) {
+    if (node == null) {
+      return null;
+    }
+    int cmp = ORDER.compare(event, node.event);
+    if (cmp < 0) {
+      Node left = delete(node.left, event);
+      return left == node.left ? node : balance(node.event, left, node.right);
+    }
+    if (cmp > 0) {
+      Node right = delete(node.right, event);
+      return right == node.right ? node : balance(node.event, node.left, right);
+    }
+    if (node.left == null) {
+      return node.right;
+    }
+    if (node.right == null) {
+      return node.left;
+    }
+    Node successor = node.right;
+    while (successor.left != null) {
+      successor = successor.left;
+    }
+    return balance(successor.event, node.left, delete(node.right, successor.event));
+  }
+
+  private static Node balance(IEvent event, Node left, Node right) {
+    int diff = height(left) - height(right);
+    if (diff > 1) {
+      if (height(left.left) < height(left.right)) {
+        left = rotateLeft(left.event, left.left, left.right);
+      }
+      return rotateRight(event, left, right);
+    }
+    if (diff < -1) {
+      if (height(right.right) < height(right.left)) {
+        right = rotateRight(right.event, right.left, right.right);
+      }
+      return rotateLeft(event, left, right);
+    }
+    return new Node(event, left, right);
+  }
+
+  private static Node rotateRight(IEvent event, Node left, Node right) {
+    return new Node(left.event, left.left, new Node(event, left.right, right));
+  }
+
+  private static Node rotateLeft(IEvent event, Node left, Node right) {
+    return new Node(right.event, new Node(event, left, right.left), right.right);
+  }
+
+  private static int height(Node node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static int size(Node node) {
+    return node == null ? 0 : node.size;
+  }
+
+  /**
+   * Immutable tree node.
+   */
+  private static final class Node {
+    private final IEvent event;
+    private final Node left;
+    private final Node right;
+    private final int height;
+    private final int size;
+    private final Instant maxEnd;
+
+    private Node(IEvent event, Node left, Node right) {
+      this.event = event;
+      this.left = left;
+      this.right = right;
+      this.height = 1 + Math.max(height(left), height(right));
+      this.size = 1 + size(left) + size(right);
+      Instant end = event.getEndDateTime().toInstant();
+      if (left != null && left.maxEnd.isAfter(end)) {
+        end = left.maxEnd;
+      }
+      if (right != null && right.maxEnd.isAfter(end)) {
+        end = right.maxEnd;
+      }
+      this.maxEnd = end;
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package model;
+
+/**
+ * Immutable map from event id to event, stored as a hash array mapped trie.
+ * Ids are spread by a one-to-one mix and read five bits per level, so two ids
+ * always part within 13 levels and no collision lists are needed. A lookup touches
+ * one node per level and an update copies only the nodes on its path, so versions
+ * share everything else, like the event tree they sit next to.
+ */
+final class PersistentIdMap {
+  static final PersistentIdMap EMPTY = new PersistentIdMap(null);
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private final Node root;
+
+  private PersistentIdMap(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * The event with an id.
+   *
+   * @param id the id.
+   * @return the event, or null.
+   */
+  IEvent get(long id) {
+    long hash = mix(id);
+    Node node = root;
+    for (int shift = 0; node != null; shift += BITS) {
+      int bit = 1 << ((int) (hash >>> shift) & MASK);
+      if ((node.bitmap & bit) == 0) {
+        return null;
+      }
+      Object child = node.children[node.index(bit)];
+      if (child instanceof IEvent) {
+        IEvent event = (IEvent) child;
+        return event.getId() == id ? event : null;
+      }
+      node = (Node) child;
+    }
+    return null;
+  }
+
+  /**
+   * A version with an event stored under its id, replacing any event with that id.
+   *
+   * @param event the event.
+   * @return the new version.
+   */
+  PersistentIdMap put(IEvent event) {
+    Node next = put(root, event, mix(event.getId()), 0);
+    return next == root ? this : new PersistentIdMap(next);
+  }
+
+  /**
+   * A version without the event of an id.
+   *
+   * @param id the id.
+   * @return the new version, or this one if the id was not stored.
+   */
+  PersistentIdMap remove(long id) {
+    if (root == null) {
+      return this;
+    }
+    Object next = remove(root, id, mix(id), 0);
+    if (next == root) {
+      return this;
+    }
+    if (next instanceof IEvent) {
+      IEvent last = (IEvent) next;
+      return new PersistentIdMap(leaf(last, mix(last.getId()), 0));
+    }
+    return new PersistentIdMap((Node) next);
+  }
+
+  /**
+   * Spreads an id over all 64 bits. Both steps can be undone, so distinct ids
+   * never share a hash.
+   */
+  private static long mix(long id) {
+    long h = id * 0x9E3779B97F4A7C15L;
+    return h ^ (h >>> 29);
+  }
+
+  private static Node leaf(IEvent event, long hash, int shift) {
+    return new Node(1 << ((int) (hash >>> shift) & MASK), new Object[] {event});
+  }
+
+  private static Node put(Node node, IEvent event, long hash, int shift) {
+    if (node == null) {
+      return leaf(event, hash, shift);
+    }
+    int bit = 1 << ((int) (hash >>> shift) & MASK);
+    int at = node.index(bit);
+    if ((node.bitmap & bit) == 0) {
+      Object[] grown = new Object[node.children.length + 1];
+      System.arraycopy(node.children, 0, grown, 0, at);
+      grown[at] = event;
+      System.arraycopy(node.children, at, grown, at + 1, node.children.length - at);
+      return new Node(node.bitmap | bit, grown);
+    }
+    Object child = node.children[at];
+    Object replaced;
+    if (child instanceof Node) {
+      replaced = put((Node) child, event, hash, shift + BITS);
+    } else if (((IEvent) child).getId() == event.getId()) {
+      replaced = event;
+    } else {
+      IEvent other = (IEvent) child;
+      replaced = put(leaf(other, mix(other.getId()), shift + BITS), event, hash, shift + BITS);
+    }
+    if (replaced == child) {
+      return node;
+    }
+    Object[] copy = node.children.clone();
+    copy[at] = replaced;
+    return new Node(node.bitmap, copy);
+  }
+
+  /**
+   * Removes an id below a node.
+   *
+   * @return the new node, the only event left under it, or null if it is empty.
+   */
+  private static Object remove(Node node, long id, long hash, int shift) {
+    int bit = 1 << ((int) (hash >>> shift) & MASK);
+    if ((node.bitmap & bit) == 0) {
+      return node;
+    }
+    int at = node.index(bit);
+    Object child = node.children[at];
+    Object replaced;
+    if (child instanceof Node) {
+      replaced = remove((Node) child, id, hash, shift + BITS);
+      if (replaced == child) {
+        return node;
+      }
+    } else if (((IEvent) child).getId() == id) {
+      replaced = null;
+    } else {
+      return node;
+    }
+    if (replaced == null) {
+      if (node.children.length == 1) {
+        return null;
+      }
+      Object[] shrunk = new Object[node.children.length - 1];
+      System.arraycopy(node.children, 0, shrunk, 0, at);
+      System.arraycopy(node.children, at + 1, shrunk, at, shrunk.length - at);
+      if (shrunk.length == 1 && shrunk[0] instanceof IEvent) {
+        return shrunk[0];
+      }
+      return new Node(node.bitmap & ~bit, shrunk);
+    }
+    if (replaced instanceof IEvent && node.children.length == 1) {
+      return replaced;
+    }
+    Object[] copy = node.children.clone();
+    copy[at] = replaced;
+    return new Node(node.bitmap, copy);
+  }
+
+  /**
+   * Immutable trie node: a bitmap of the used slots and one entry per set bit,
+   * either an event or a child node.
+   */
+  private static final class Node {
+    private final int bitmap;
+    private final Object[] children;
+
+    private Node(int bitmap, Object[] children) {
+      this.bitmap = bitmap;
+      this.children = children;
+    }
+
+    private int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+  }
+}
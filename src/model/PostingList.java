@@ -0,0 +1,131 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Sorted event ids stored as variable-length deltas.
+ * Each id is written as its distance from the previous one, seven bits per byte,
+ * so ids handed out close together take one or two bytes instead of eight.
+ * Event ids only grow, so adding is almost always an append; removing rewrites
+ * the tail after the removed id.
+ */
+final class PostingList {
+  private byte[] data = new byte[4];
+  private int length;
+  private int count;
+  private long last = -1;
+
+  /**
+   * Number of ids.
+   *
+   * @return the count.
+   */
+  int size() {
+    return count;
+  }
+
+  /**
+   * Bytes held by this list, including unused capacity.
+   *
+   * @return the estimated size in bytes.
+   */
+  long bytes() {
+    return 40L + 16 + data.length;
+  }
+
+  /**
+   * Adds an id.
+   *
+   * @param id the id, not negative.
+   * @return true if it was not already in the list.
+   */
+  boolean add(long id) {
+    if (id > last) {
+      append(count == 0 ? id : id - last);
+      last = id;
+      count++;
+      return true;
+    }
+    long[] ids = toArray();
+    int at = Arrays.binarySearch(ids, id);
+    if (at >= 0) {
+      return false;
+    }
+    at = -at - 1;
+    long[] grown = new long[ids.length + 1];
+    System.arraycopy(ids, 0, grown, 0, at);
+    grown[at] = id;
+    System.arraycopy(ids, at, grown, at + 1, ids.length - at);
+    rewrite(grown, grown.length);
+    return true;
+  }
+
+  /**
+   * Removes an id.
+   *
+   * @param id the id.
+   * @return true if it was in the list.
+   */
+  boolean remove(long id) {
+    if (id > last) {
+      return false;
+    }
+    long[] ids = toArray();
+    int at = Arrays.binarySearch(ids, id);
+    if (at < 0) {
+      return false;
+    }
+    System.arraycopy(ids, at + 1, ids, at, ids.length - at - 1);
+    rewrite(ids, ids.length - 1);
+    return true;
+  }
+
+  /**
+   * Decodes the ids.
+   *
+   * @return the ids in ascending order.
+   */
+  long[] toArray() {
+    long[] ids = new long[count];
+    long id = 0;
+    int pos = 0;
+    for (int i = 0; i < count; i++) {
+      long delta = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = data[pos++];
+        delta |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      id += delta;
+      ids[i] = id;
+    }
+    return ids;
+  }
+
+  private void rewrite(long[] ids, int n) {
+    length = 0;
+    count = 0;
+    last = -1;
+    for (int i = 0; i < n; i++) {
+      append(count == 0 ? ids[i] : ids[i] - last);
+      last = ids[i];
+      count++;
+    }
+    if (data.length > 16 && length < data.length / 4) {
+      data = Arrays.copyOf(data, Math.max(4, length * 2));
+    }
+  }
+
+  private void append(long delta) {
+    if (length + 10 > data.length) {
+      data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+    }
+    while ((delta & ~0x7FL) != 0) {
+      data[length++] = (byte) ((delta & 0x7F) | 0x80);
+      delta >>>= 7;
+    }
+    data[length++] = (byte) delta;
+  }
+}
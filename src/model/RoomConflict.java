@@ -0,0 +1,51 @@
+package model;
+
+/**
+ * Two events booked in the same room at overlapping times.
+ * The events may belong to different calendars; first starts no later than second.
+ */
+public final class RoomConflict {
+  private final String location;
+  private final IEvent first;
+  private final IEvent second;
+
+  /**
+   * Creates a conflict.
+   *
+   * @param location the room, as written on the first event.
+   * @param first    the event starting first.
+   * @param second   the event overlapping it.
+   */
+  public RoomConflict(String location, IEvent first, IEvent second) {
+    this.location = location;
+    this.first = first;
+    this.second = second;
+  }
+
+  /**
+   * The room of the conflict.
+   *
+   * @return the location.
+   */
+  public String getLocation() {
+    return location;
+  }
+
+  /**
+   * The event starting first.
+   *
+   * @return the event.
+   */
+  public IEvent getFirst() {
+    return first;
+  }
+
+  /**
+   * The event overlapping the first one.
+   *
+   * @return the event.
+   */
+  public IEvent getSecond() {
+    return second;
+  }
+}
@@ -0,0 +1,157 @@
+package model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Finds time that is free in every one of a group of calendars.
+ * An event keeps its calendar busy from its start up to, but not including, its end.
+ */
+public final class SlotFinder {
+  private static final Comparator<IEvent> BY_START =
+      Comparator.comparing(e -> e.getStartDateTime().toInstant());
+
+  private SlotFinder() {
+  }
+
+  /**
+   * Finds the first free slot by merging the busy intervals of all calendars.
+   * Each calendar returns its events sorted by start, and a k-way merge walks them
+   * once while tracking the end of the busy time seen so far.
+   *
+   * @param calendars the calendars that must all be free.
+   * @param from      earliest start of the slot.
+   * @param to        latest end of the slot.
+   * @param length    length of the slot.
+   * @return the start of the first free slot, in the zone of from.
+   */
+  public static Optional<ZonedDateTime> firstFreeSlot(Collection<ICalendarModel> calendars,
+                                                      ZonedDateTime from, ZonedDateTime to,
+                                                      Duration length) {
+    checkArguments(from, to, length);
+    List<Iterator<IEvent>> busy = new ArrayList<>();
+    for (ICalendarModel calendar : calendars) {
+      busy.add(calendar.getEventsBetween(from, to).iterator());
+    }
+    Instant cursor = from.toInstant();
+    Instant last = to.toInstant();
+    Iterator<IEvent> merged = SortedMerge.merge(busy, BY_START);
+    while (merged.hasNext()) {
+      IEvent event = merged.next();
+      Instant start = event.getStartDateTime().toInstant();
+      if (!cursor.plus(length).isAfter(start)) {
+        break;
+      }
+      Instant end = event.getEndDateTime().toInstant();
+      if (end.isAfter(cursor)) {
+        cursor = end;
+      }
+      if (cursor.plus(length).isAfter(last)) {
+        return Optional.empty();
+      }
+    }
+    if (cursor.plus(length).isAfter(last)) {
+      return Optional.empty();
+    }
+    return Optional.of(ZonedDateTime.ofInstant(cursor, from.getZone()));
+  }
+
+  /**
+   * Finds the first free slot on a fixed grid, e.g. every 15 minutes from the start.
+   * Each calendar marks the grid cells it is busy in as bits of a long array,
+   * the arrays are OR-ed a word at a time, and the result is searched for a long
+   * enough run of clear bits. A cell counts as busy if any event touches it.
+   *
+   * @param calendars   the calendars that must all be free.
+   * @param from        start of the grid and earliest start of the slot.
+   * @param to          latest end of the slot.
+   * @param length      length of the slot.
+   * @param granularity size of one grid cell.
+   * @return the start of the first free slot on the grid, in the zone of from.
+   */
+  public static Optional<ZonedDateTime> firstFreeSlotOnGrid(Collection<ICalendarModel> calendars,
+                                                            ZonedDateTime from,
+                                                            ZonedDateTime to,
+                                                            Duration length,
+                                                            Duration granularity) {
+    checkArguments(from, to, length);
+    if (granularity.isNegative() || granularity.isZero()) {
+      throw new IllegalArgumentException("Granularity must be positive");
+    }
+    long cellNanos = granularity.toNanos();
+    long cells = Duration.between(from, to).toNanos() / cellNanos;
+    if (cells > Integer.MAX_VALUE - 64L) {
+      throw new IllegalArgumentException("Range has too many grid cells");
+    }
+    long[] union = new long[(int) ((cells + 63) / 64)];
+    long[] calendarBits = new long[union.length];
+    Instant origin = from.toInstant();
+    for (ICalendarModel calendar : calendars) {
+      Arrays.fill(calendarBits, 0L);
+      for (IEvent event : calendar.getEventsBetween(from, to)) {
+        long startNanos = Duration.between(origin, event.getStartDateTime()).toNanos();
+        long endNanos = Duration.between(origin, event.getEndDateTime()).toNanos();
+        long first = Math.max(0, Math.floorDiv(startNanos, cellNanos));
+        long last = Math.min(cells - 1, Math.floorDiv(endNanos - 1, cellNanos));
+        setRange(calendarBits, first, last);
+      }
+      for (int w = 0; w < union.length; w++) {
+        union[w] |= calendarBits[w];
+      }
+    }
+    long needed = (length.toNanos() + cellNanos - 1) / cellNanos;
+    long run = 0;
+    for (long cell = 0; cell < cells; cell++) {
+      int word = (int) (cell >>> 6);
+      if (union[word] == -1L && (cell & 63) == 0 && cell + 64 <= cells) {
+        run = 0;
+        cell += 63;
+        continue;
+      }
+      run = (union[word] & (1L << cell)) == 0 ? run + 1 : 0;
+      if (run >= needed) {
+        return Optional.of(from.plus(granularity.multipliedBy(cell - needed + 1)));
+      }
+    }
+    return Optional.empty();
+  }
+
+  private static void setRange(long[] bits, long first, long last) {
+    if (first > last) {
+      return;
+    }
+    int firstWord = (int) (first >>> 6);
+    int lastWord = (int) (last >>> 6);
+    long firstMask = -1L << first;
+    long lastMask = -1L >>> (63 - (last & 63));
+    if (firstWord == lastWord) {
+      bits[firstWord] |= firstMask & lastMask;
+      return;
+    }
+    bits[firstWord] |= firstMask;
+    for (int w = firstWord + 1; w < lastWord; w++) {
+      bits[w] = -1L;
+    }
+    bits[lastWord] |= lastMask;
+  }
+
+  private static void checkArguments(ZonedDateTime from, ZonedDateTime to, Duration length) {
+    if (from == null || to == null || length == null) {
+      throw new IllegalArgumentException("from, to and length are required");
+    }
+    if (to.isBefore(from)) {
+      throw new IllegalArgumentException("End must be after start");
+    }
+    if (length.isNegative() || length.isZero()) {
+      throw new IllegalArgumentException("Slot length must be positive");
+    }
+  }
+}
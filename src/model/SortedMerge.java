@@ -0,0 +1,77 @@
+package model;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Streaming k-way merge of sorted sequences.
+ * Only the head of each sequence is held in memory, so the merge costs
+ * O(log k) per element and never copies the inputs.
+ */
+public final class SortedMerge {
+
+  private SortedMerge() {
+  }
+
+  /**
+   * Merges sequences that are each sorted by the given order.
+   * Equal elements keep the order of their sources.
+   *
+   * @param sources iterators over the sorted sequences.
+   * @param order   the order every source is sorted by.
+   * @param <T>     the element type.
+   * @return an iterator over all elements in order.
+   */
+  public static <T> Iterator<T> merge(List<? extends Iterator<? extends T>> sources,
+                                      Comparator<? super T> order) {
+    PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+        (a, b) -> {
+          int cmp = order.compare(a.value, b.value);
+          return cmp != 0 ? cmp : Integer.compare(a.source, b.source);
+        });
+    for (int i = 0; i < sources.size(); i++) {
+      Iterator<? extends T> source = sources.get(i);
+      if (source.hasNext()) {
+        heads.add(new Head<>(source.next(), i, source));
+      }
+    }
+    return new Iterator<T>() {
+      @Override
+      public boolean hasNext() {
+        return !heads.isEmpty();
+      }
+
+      @Override
+      public T next() {
+        Head<T> head = heads.poll();
+        if (head == null) {
+          throw new NoSuchElementException();
+        }
+        T value = head.value;
+        if (head.rest.hasNext()) {
+          head.value = head.rest.next();
+          heads.add(head);
+        }
+        return value;
+      }
+    };
+  }
+
+  /**
+   * Current element of one source.
+   */
+  private static final class Head<T> {
+    private T value;
+    private final int source;
+    private final Iterator<? extends T> rest;
+
+    private Head(T value, int source, Iterator<? extends T> rest) {
+      this.value = value;
+      this.source = source;
+      this.rest = rest;
+    }
+  }
+}
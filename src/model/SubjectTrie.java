@@ -0,0 +1,275 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Radix trie from event subject to the sorted ids of the events with that subject.
+ * Edges carry whole substrings and nodes with a single child are merged back into
+ * their parent on removal, so the trie stays as small as the set of distinct subjects.
+ * Children are kept in arrays sorted by their first character, so subjects under a
+ * prefix come out in lexicographic order.
+ */
+final class SubjectTrie {
+  private final Node root = new Node("");
+  private int subjects;
+
+  /**
+   * Number of distinct subjects.
+   *
+   * @return the number of subjects.
+   */
+  int subjects() {
+    return subjects;
+  }
+
+  /**
+   * Records that an event has a subject.
+   *
+   * @param subject the subject.
+   * @param id      the id of the event.
+   */
+  void add(String subject, long id) {
+    Node node = root;
+    int pos = 0;
+    while (pos < subject.length()) {
+      int c = node.indexOf(subject.charAt(pos));
+      if (c < 0) {
+        node.insertChild(new Node(subject.substring(pos)));
+        node = node.children[node.indexOf(subject.charAt(pos))];
+        pos = subject.length();
+        break;
+      }
+      Node child = node.children[c];
+      int common = commonPrefix(child.label, subject, pos);
+      if (common < child.label.length()) {
+        child = split(node, c, common);
+      }
+      node = child;
+      pos += common;
+    }
+    if (node.count == 0) {
+      subjects++;
+    }
+    node.addId(id);
+  }
+
+  /**
+   * Forgets that an event has a subject.
+   *
+   * @param subject the subject.
+   * @param id      the id of the event.
+   * @return true if the id was recorded under that subject.
+   */
+  boolean remove(String subject, long id) {
+    Node parent = null;
+    Node node = root;
+    int pos = 0;
+    while (pos < subject.length()) {
+      int c = node.indexOf(subject.charAt(pos));
+      if (c < 0 || !subject.startsWith(node.children[c].label, pos)) {
+        return false;
+      }
+      parent = node;
+      node = node.children[c];
+      pos += node.label.length();
+    }
+    if (!node.removeId(id)) {
+      return false;
+    }
+    if (node.count == 0) {
+      subjects--;
+      if (parent != null) {
+        compact(parent, node);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Runs an action for every subject starting with a prefix, in lexicographic order.
+   * The action gets the subject and its sorted ids; the id array may be longer than
+   * the number of ids, which is passed separately.
+   *
+   * @param prefix the prefix; an empty prefix matches every subject.
+   * @param action receives each subject and its ids.
+   */
+  void withPrefix(String prefix, PostingAction action) {
+    Node node = root;
+    int pos = 0;
+    StringBuilder path = new StringBuilder();
+    while (pos < prefix.length()) {
+      int c = node.indexOf(prefix.charAt(pos));
+      if (c < 0) {
+        return;
+      }
+      Node child = node.children[c];
+      int common = commonPrefix(child.label, prefix, pos);
+      if (common < child.label.length() && pos + common < prefix.length()) {
+        return;
+      }
+      path.append(child.label);
+      node = child;
+      pos += common;
+    }
+    visit(node, path, action);
+  }
+
+  private static void visit(Node node, StringBuilder path, PostingAction action) {
+    if (node.count > 0) {
+      action.accept(path.toString(), node.ids, node.count);
+    }
+    for (int i = 0; i < node.childCount; i++) {
+      Node child = node.children[i];
+      int length = path.length();
+      path.append(child.label);
+      visit(child, path, action);
+      path.setLength(length);
+    }
+  }
+
+  /**
+   * Splits the edge to a child so its first characters get their own node.
+   */
+  private static Node split(Node parent, int index, int at) {
+    Node child = parent.children[index];
+    Node middle = new Node(child.label.substring(0, at));
+    child.label = child.label.substring(at);
+    middle.insertChild(child);
+    parent.children[index] = middle;
+    return middle;
+  }
+
+  /**
+   * Removes or merges a node that no longer holds ids.
+   */
+  private static void compact(Node parent, Node node) {
+    if (node.childCount == 0) {
+      parent.removeChild(node);
+      if (parent.count == 0 && parent.childCount == 1 && parent.label.length() > 0) {
+        Node only = parent.children[0];
+        parent.label = parent.label + only.label;
+        parent.adopt(only);
+      }
+    } else if (node.childCount == 1) {
+      Node only = node.children[0];
+      node.label = node.label + only.label;
+      node.adopt(only);
+    }
+  }
+
+  private static int commonPrefix(String label, String text, int from) {
+    int max = Math.min(label.length(), text.length() - from);
+    int i = 0;
+    while (i < max && label.charAt(i) == text.charAt(from + i)) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Receives one subject and its ids.
+   */
+  interface PostingAction {
+    /**
+     * Handles one subject.
+     *
+     * @param subject the subject.
+     * @param ids     the sorted ids, valid up to count.
+     * @param count   the number of ids.
+     */
+    void accept(String subject, long[] ids, int count);
+  }
+
+  /**
+   * Trie node: an edge label, sorted children and the ids of the subject ending here.
+   */
+  private static final class Node {
+    private String label;
+    private Node[] children = new Node[0];
+    private int childCount;
+    private long[] ids = new long[0];
+    private int count;
+
+    private Node(String label) {
+      this.label = label;
+    }
+
+    private int indexOf(char first) {
+      int lo = 0;
+      int hi = childCount - 1;
+      while (lo <= hi) {
+        int mid = (lo + hi) >>> 1;
+        char c = children[mid].label.charAt(0);
+        if (c < first) {
+          lo = mid + 1;
+        } else if (c > first) {
+          hi = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -1;
+    }
+
+    private void insertChild(Node child) {
+      if (childCount == children.length) {
+        children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+      }
+      char first = child.label.charAt(0);
+      int i = childCount;
+      while (i > 0 && children[i - 1].label.charAt(0) > first) {
+        children[i] = children[i - 1];
+        i--;
+      }
+      children[i] = child;
+      childCount++;
+    }
+
+    private void removeChild(Node child) {
+      int i = indexOf(child.label.charAt(0));
+      System.arraycopy(children, i + 1, children, i, childCount - i - 1);
+      children[--childCount] = null;
+    }
+
+    /**
+     * Takes over the ids and children of a node merged into this one.
+     */
+    private void adopt(Node only) {
+      ids = only.ids;
+      count = only.count;
+      children = only.children;
+      childCount = only.childCount;
+    }
+
+    private void addId(long id) {
+      if (count == ids.length) {
+        ids = Arrays.copyOf(ids, Math.max(4, count * 2));
+      }
+      if (count == 0 || ids[count - 1] < id) {
+        ids[count++] = id;
+        return;
+      }
+      int at = Arrays.binarySearch(ids, 0, count, id);
+      if (at >= 0) {
+        return;
+      }
+      at = -at - 1;
+      System.arraycopy(ids, at, ids, at + 1, count - at);
+      ids[at] = id;
+      count++;
+    }
+
+    private boolean removeId(long id) {
+      int at = Arrays.binarySearch(ids, 0, count, id);
+      if (at < 0) {
+        return false;
+      }
+      System.arraycopy(ids, at + 1, ids, at, count - at - 1);
+      count--;
+      if (count == 0) {
+        ids = new long[0];
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Inverted index from the words of event descriptions and locations to event ids.
+ * Words are lower-cased runs of letters and digits. Each field has its own map,
+ * so "room" in a description does not match a location query.
+ */
+final class TextIndex {
+  private final Map<String, PostingList> description = new HashMap<>();
+  private final Map<String, PostingList> location = new HashMap<>();
+
+  /**
+   * Indexes the description and location of an event.
+   *
+   * @param event the event.
+   */
+  void add(IEvent event) {
+    for (String token : tokens(event.getDescription())) {
+      description.computeIfAbsent(token, k -> new PostingList()).add(event.getId());
+    }
+    for (String token : tokens(event.getLocation())) {
+      location.computeIfAbsent(token, k -> new PostingList()).add(event.getId());
+    }
+  }
+
+  /**
+   * Removes an event from the index.
+   *
+   * @param event the event as it was indexed.
+   */
+  void remove(IEvent event) {
+    removeAll(description, event.getDescription(), event.getId());
+    removeAll(location, event.getLocation(), event.getId());
+  }
+
+  /**
+   * The ids of the events with a word in a field.
+   *
+   * @param field the field.
+   * @param token a lower-case word.
+   * @return the ids in ascending order, possibly empty.
+   */
+  long[] postings(TextQuery.Field field, String token) {
+    PostingList list = (field == TextQuery.Field.LOCATION ? location : description).get(token);
+    return list == null ? new long[0] : list.toArray();
+  }
+
+  /**
+   * Estimated bytes held by the index, not counting the events themselves.
+   *
+   * @return the estimate.
+   */
+  long bytes() {
+    return bytes(description) + bytes(location);
+  }
+
+  /**
+   * Splits text into lower-case words of letters and digits.
+   *
+   * @param text the text, may be null.
+   * @return the distinct words in order of first appearance.
+   */
+  static List<String> tokens(String text) {
+    List<String> tokens = new ArrayList<>();
+    if (text == null) {
+      return tokens;
+    }
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (word && start < 0) {
+        start = i;
+      } else if (!word && start >= 0) {
+        String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+        if (!tokens.contains(token)) {
+          tokens.add(token);
+        }
+        start = -1;
+      }
+    }
+    return tokens;
+  }
+
+  private static void removeAll(Map<String, PostingList> field, String text, long id) {
+    for (String token : tokens(text)) {
+      PostingList list = field.get(token);
+      if (list != null && list.remove(id) && list.size() == 0) {
+        field.remove(token);
+      }
+    }
+  }
+
+  /**
+   * Hash table of a field plus the entry, key string and posting list of every word.
+   */
+  private static long bytes(Map<String, PostingList> field) {
+    long total = 16L + 4L * field.size() * 2;
+    for (Map.Entry<String, PostingList> entry : field.entrySet()) {
+      total += 32 + 40 + 16 + entry.getKey().length() + entry.getValue().bytes();
+    }
+    return total;
+  }
+}
@@ -0,0 +1,195 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A boolean query over the words of event descriptions and locations.
+ * A leaf matches events having every word of its text in one field, in any order;
+ * leaves combine with and/or. Words are compared case-insensitively.
+ */
+public final class TextQuery {
+  /**
+   * The event field a leaf looks at.
+   */
+  public enum Field {
+    DESCRIPTION, LOCATION, ANY
+  }
+
+  private final Field field;
+  private final List<String> words;
+  private final List<TextQuery> children;
+  private final boolean all;
+
+  private TextQuery(Field field, List<String> words, List<TextQuery> children, boolean all) {
+    this.field = field;
+    this.words = words;
+    this.children = children;
+    this.all = all;
+  }
+
+  /**
+   * Events whose description has every word of the text.
+   *
+   * @param text the words.
+   * @return the query.
+   */
+  public static TextQuery description(String text) {
+    return leaf(Field.DESCRIPTION, text);
+  }
+
+  /**
+   * Events whose location has every word of the text.
+   *
+   * @param text the words.
+   * @return the query.
+   */
+  public static TextQuery location(String text) {
+    return leaf(Field.LOCATION, text);
+  }
+
+  /**
+   * Events whose description or location has every word of the text.
+   * Each word may come from either field.
+   *
+   * @param text the words.
+   * @return the query.
+   */
+  public static TextQuery anywhere(String text) {
+    return leaf(Field.ANY, text);
+  }
+
+  /**
+   * Events matching every one of the queries.
+   *
+   * @param queries the queries.
+   * @return the query.
+   */
+  public static TextQuery and(TextQuery... queries) {
+    return branch(queries, true);
+  }
+
+  /**
+   * Events matching at least one of the queries.
+   *
+   * @param queries the queries.
+   * @return the query.
+   */
+  public static TextQuery or(TextQuery... queries) {
+    return branch(queries, false);
+  }
+
+  private static TextQuery leaf(Field field, String text) {
+    List<String> words = TextIndex.tokens(text);
+    if (words.isEmpty()) {
+      throw new IllegalArgumentException("Query text has no words: " + text);
+    }
+    return new TextQuery(field, words, List.of(), true);
+  }
+
+  private static TextQuery branch(TextQuery[] queries, boolean all) {
+    if (queries.length == 0) {
+      throw new IllegalArgumentException("At least one query is needed");
+    }
+    return new TextQuery(null, List.of(), List.of(queries), all);
+  }
+
+  /**
+   * Checks an event directly, without an index.
+   *
+   * @param event the event.
+   * @return true if the event matches.
+   */
+  public boolean matches(IEvent event) {
+    if (field == null) {
+      return all ? children.stream().allMatch(q -> q.matches(event))
+              : children.stream().anyMatch(q -> q.matches(event));
+    }
+    List<String> description = TextIndex.tokens(event.getDescription());
+    List<String> location = TextIndex.tokens(event.getLocation());
+    for (String word : words) {
+      boolean found = (field != Field.LOCATION && description.contains(word))
+              || (field != Field.DESCRIPTION && location.contains(word));
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The ids of the matching events in an index.
+   * And-lists are intersected smallest first, so one rare word keeps the work small.
+   *
+   * @param index the index.
+   * @return the ids in ascending order.
+   */
+  long[] evaluate(TextIndex index) {
+    List<long[]> parts = new ArrayList<>();
+    if (field == null) {
+      for (TextQuery child : children) {
+        parts.add(child.evaluate(index));
+      }
+    } else {
+      for (String word : words) {
+        parts.add(field == Field.ANY
+                ? union(index.postings(Field.DESCRIPTION, word),
+                        index.postings(Field.LOCATION, word))
+                : index.postings(field, word));
+      }
+    }
+    if (all) {
+      parts.sort(Comparator.comparingInt(ids -> ids.length));
+      long[] result = parts.get(0);
+      for (int i = 1; i < parts.size() && result.length > 0; i++) {
+        result = intersect(result, parts.get(i));
+      }
+      return result;
+    }
+    long[] result = new long[0];
+    for (long[] part : parts) {
+      result = union(result, part);
+    }
+    return result;
+  }
+
+  private static long[] intersect(long[] a, long[] b) {
+    long[] out = new long[Math.min(a.length, b.length)];
+    int n = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        out[n++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(out, n);
+  }
+
+  private static long[] union(long[] a, long[] b) {
+    long[] out = new long[a.length + b.length];
+    int n = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.length || j < b.length) {
+      if (j == b.length || (i < a.length && a[i] < b[j])) {
+        out[n++] = a[i++];
+      } else if (i == a.length || b[j] < a[i]) {
+        out[n++] = b[j++];
+      } else {
+        out[n++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(out, n);
+  }
+}
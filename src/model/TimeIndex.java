@@ -0,0 +1,269 @@
+package model;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Index of events by start time.
+ * Events are bucketed by start epoch second in a sorted map, which serves every
+ * walk in start order. The events of a window are the ones starting inside it plus
+ * the ones that started earlier and are still running; the latter come from an
+ * interval tree whose nodes know the latest end below them. So a query costs
+ * O(log n) per reported event however long the longest event is, and never walks
+ * the buckets before the window.
+ */
+final class TimeIndex {
+  private static final Comparator<IEvent> PAGE_ORDER =
+      Comparator.comparing((IEvent e) -> e.getStartDateTime().getNano())
+          .thenComparingLong(IEvent::getId);
+  private static final Comparator<IEvent> START_THEN_ID =
+      Overlaps.BY_START.thenComparingLong(IEvent::getId);
+
+  private final NavigableMap<Long, List<IEvent>> byStart = new TreeMap<>();
+  private PersistentEventTree spans = PersistentEventTree.EMPTY;
+  private int size;
+
+  /**
+   * Number of indexed events.
+   *
+   * @return the size.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Adds an event to the index.
+   *
+   * @param event the event.
+   */
+  void add(IEvent event) {
+    byStart.computeIfAbsent(startOf(event), k -> new ArrayList<>(1)).add(event);
+    spans = spans.with(event);
+    size++;
+  }
+
+  /**
+   * Removes an event from the index.
+   *
+   * @param event the event, or an equal one.
+   * @return true if it was indexed.
+   */
+  boolean remove(IEvent event) {
+    long start = startOf(event);
+    List<IEvent> bucket = byStart.get(start);
+    if (bucket == null || !bucket.remove(event)) {
+      return false;
+    }
+    if (bucket.isEmpty()) {
+      byStart.remove(start);
+    }
+    spans = spans.without(event);
+    size--;
+    return true;
+  }
+
+  /**
+   * Adds the events overlapping a window to a list, in start order.
+   * An event overlaps if it ends at or after from and starts at or before to.
+   *
+   * @param from   start of the window.
+   * @param to     end of the window.
+   * @param result the list the events are added to.
+   */
+  void overlapping(ZonedDateTime from, ZonedDateTime to, List<IEvent> result) {
+    forEachOverlapping(from, to, result::add);
+  }
+
+  /**
+   * Hands the events overlapping a window to an action, in start order, without
+   * collecting them. Events that started before the window come first, from the
+   * interval tree; events starting in the same second of the window come in
+   * insertion order.
+   *
+   * @param from   start of the window.
+   * @param to     end of the window.
+   * @param action receives each event.
+   */
+  void forEachOverlapping(ZonedDateTime from, ZonedDateTime to, Consumer<IEvent> action) {
+    if (byStart.isEmpty() || to.isBefore(from)) {
+      return;
+    }
+    Instant start = from.toInstant();
+    spans.forEach(Instant.MIN, start.minusNanos(1), start, e -> {
+      action.accept(e);
+      return true;
+    });
+    for (List<IEvent> bucket
+            : byStart.subMap(from.toEpochSecond(), true, to.toEpochSecond(), true).values()) {
+      for (IEvent e : bucket) {
+        if (startsIn(e, from, to)) {
+          action.accept(e);
+        }
+      }
+    }
+  }
+
+  /**
+   * The events that started before a window and still run into it, in start order.
+   *
+   * @param from start of the window.
+   * @return the running events.
+   */
+  private List<IEvent> runningAt(ZonedDateTime from) {
+    List<IEvent> running = new ArrayList<>();
+    Instant start = from.toInstant();
+    spans.forEach(Instant.MIN, start.minusNanos(1), start, e -> {
+      running.add(e);
+      return true;
+    });
+    return running;
+  }
+
+  private static boolean startsIn(IEvent e, ZonedDateTime from, ZonedDateTime to) {
+    return !e.getStartDateTime().isBefore(from) && !e.getStartDateTime().isAfter(to);
+  }
+
+
+  /**
+   * Adds one page of the events overlapping a window to a list.
+   * The page is in start order and then id order, and starts after a cursor.
+   * Running events that started before the window come from the interval tree,
+   * from the cursor on, and the tree walk stops once it has the page; the buckets
+   * are walked from the later of the cursor and the window start, and that walk
+   * stops once the list holds limit events.
+   *
+   * @param from   start of the window.
+   * @param to     end of the window.
+   * @param after  the parsed cursor to start after, or null for the first page.
+   * @param limit  the most events to add.
+   * @param result the list the events are added to.
+   */
+  void page(ZonedDateTime from, ZonedDateTime to, long[] after, int limit, List<IEvent> result) {
+    if (byStart.isEmpty() || to.isBefore(from)) {
+      return;
+    }
+    int target = result.size() + limit;
+    Instant start = from.toInstant();
+    Instant cursor = after == null ? Instant.MIN : Instant.ofEpochSecond(after[0], after[1]);
+    if (cursor.isBefore(start)) {
+      List<IEvent> running = new ArrayList<>();
+      spans.forEach(cursor, start.minusNanos(1), start, e -> {
+        if (running.size() >= limit
+                && e.getStartDateTime().isAfter(running.get(running.size() - 1)
+                        .getStartDateTime())) {
+          return false;
+        }
+        if (after == null || EventPage.compare(e, after) > 0) {
+          running.add(e);
+        }
+        return true;
+      });
+      running.sort(START_THEN_ID);
+      for (IEvent e : running) {
+        if (result.size() == target) {
+          return;
+        }
+        result.add(e);
+      }
+    }
+    long lowest = Math.max(from.toEpochSecond(), after == null ? Long.MIN_VALUE : after[0]);
+    if (lowest > to.toEpochSecond()) {
+      return;
+    }
+    List<IEvent> second = new ArrayList<>();
+    for (List<IEvent> bucket : byStart.subMap(lowest, true, to.toEpochSecond(), true).values()) {
+      second.clear();
+      for (IEvent e : bucket) {
+        if (startsIn(e, from, to) && (after == null || EventPage.compare(e, after) > 0)) {
+          second.add(e);
+        }
+      }
+      if (second.size() > 1) {
+        second.sort(PAGE_ORDER);
+      }
+      for (IEvent e : second) {
+        if (result.size() == target) {
+          return;
+        }
+        result.add(e);
+      }
+    }
+  }
+
+  /**
+   * A lazy spliterator over the events overlapping a window, in start order.
+   * The events already running at the window start are looked up first; the
+   * buckets of the window are read lazily. Without a window it reports every event
+   * and knows its exact size.
+   *
+   * @param from start of the window, or null for every event.
+   * @param to   end of the window, or null for every event.
+   * @param view turns a stored event into the reported one.
+   * @return the spliterator.
+   */
+  Spliterator<IEvent> spliterator(ZonedDateTime from, ZonedDateTime to,
+                                  UnaryOperator<IEvent> view) {
+    if (from == null || to == null) {
+      return new IndexSpliterator(byStart, Long.MIN_VALUE, Long.MAX_VALUE, List.of(),
+          e -> true, view, size, true);
+    }
+    if (byStart.isEmpty() || to.isBefore(from)) {
+      return new IndexSpliterator(byStart, 1, 0, List.of(), e -> false, view, 0, true);
+    }
+    List<IEvent> running = runningAt(from);
+    running.sort(START_THEN_ID);
+    return new IndexSpliterator(byStart, from.toEpochSecond(), to.toEpochSecond(), running,
+        e -> startsIn(e, from, to), view, size, false);
+  }
+
+  /**
+   * Adds the events starting at or after a time to a list, in start order.
+   *
+   * @param from   the earliest start.
+   * @param result the list the events are added to.
+   */
+  void startingFrom(ZonedDateTime from, List<IEvent> result) {
+    for (Map.Entry<Long, List<IEvent>> bucket
+            : byStart.tailMap(from.toEpochSecond(), true).entrySet()) {
+      for (IEvent e : bucket.getValue()) {
+        if (!e.getStartDateTime().isBefore(from)) {
+          result.add(e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Events starting in the same second as a time.
+   *
+   * @param time the time.
+   * @return the events of that second, possibly empty.
+   */
+  List<IEvent> startingAt(ZonedDateTime time) {
+    List<IEvent> bucket = byStart.get(time.toEpochSecond());
+    return bucket == null ? List.of() : bucket;
+  }
+
+  /**
+   * Every indexed event in start order.
+   *
+   * @return the events.
+   */
+  Iterable<List<IEvent>> buckets() {
+    return byStart.values();
+  }
+
+  private static long startOf(IEvent event) {
+    return event.getStartDateTime().toEpochSecond();
+  }
+}
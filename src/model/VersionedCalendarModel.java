@@ -0,0 +1,1056 @@
+package model;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Calendar that keeps every version of its events.
+ * Events live in a persistent tree, so each change builds a new version in O(log n)
+ * that shares everything else with the previous one. Undo, redo, snapshot and copy
+ * only move a reference to a version and never copy events.
+ */
+public class VersionedCalendarModel implements ICalendarModel {
+  private PersistentEventTree events;
+  private final Deque<PersistentEventTree> undoStack = new ArrayDeque<>();
+  private final Deque<PersistentEventTree> redoStack = new ArrayDeque<>();
+  private final WindowMemo memo = new WindowMemo();
+  private ZoneId zoneId;
+  private String name;
+  private ConflictPolicy conflictPolicy = ConflictPolicy.ALLOW;
+  private ChangeSink changes = ChangeSink.NONE;
+  private final WriteGate gate = new WriteGate();
+  private AgendaViews agenda;
+
+  /**
+   * Creates an empty calendar.
+   *
+   * @param zoneId the zone of the calendar.
+   */
+  public VersionedCalendarModel(ZoneId zoneId) {
+    this(zoneId, PersistentEventTree.BY_ID);
+  }
+
+  private VersionedCalendarModel(ZoneId zoneId, PersistentEventTree events) {
+    this.zoneId = zoneId;
+    this.events = events;
+  }
+
+  /**
+   * Creates a calendar with the same name, zone and current events.
+   * The copy starts with an empty history and shares the current version.
+   *
+   * @return the copy.
+   */
+  @Override
+  public VersionedCalendarModel copy() {
+    VersionedCalendarModel copy = new VersionedCalendarModel(zoneId, events);
+    copy.name = name;
+    copy.conflictPolicy = conflictPolicy;
+    if (agenda != null) {
+      copy.agenda = agenda.emptyCopy();
+      copy.agenda.roll(zoneId, copy::loadDay);
+    }
+    return copy;
+  }
+
+  /**
+   * Read-only view of the calendar as it is now.
+   * Later changes to this calendar do not show up in the snapshot.
+   *
+   * @return the snapshot.
+   */
+  public ICalendarModel snapshot() {
+    return new Snapshot(copy());
+  }
+
+  /**
+   * Goes back to the version before the last change.
+   *
+   * @return true if there was a change to undo.
+   */
+  public boolean undo() {
+    return gate.write(c -> ((VersionedCalendarModel) c).undo(), this::undoInPlace);
+  }
+
+  private boolean undoInPlace() {
+    if (undoStack.isEmpty()) {
+      return false;
+    }
+    redoStack.push(events);
+    events = undoStack.pop();
+    memo.clear();
+    reloadAgenda();
+    report(redoStack.peek(), events);
+    return true;
+  }
+
+  /**
+   * Goes forward to the version that was last undone.
+   *
+   * @return true if there was a change to redo.
+   */
+  public boolean redo() {
+    return gate.write(c -> ((VersionedCalendarModel) c).redo(), this::redoInPlace);
+  }
+
+  private boolean redoInPlace() {
+    if (redoStack.isEmpty()) {
+      return false;
+    }
+    undoStack.push(events);
+    events = redoStack.pop();
+    memo.clear();
+    reloadAgenda();
+    report(undoStack.peek(), events);
+    return true;
+  }
+
+  /**
+   * Simple canUndo method.
+   *
+   * @return true if undo would change the calendar.
+   */
+  public boolean canUndo() {
+    return !undoStack.isEmpty();
+  }
+
+  /**
+   * Simple canRedo method.
+   *
+   * @return true if redo would change the calendar.
+   */
+  public boolean canRedo() {
+    return !redoStack.isEmpty();
+  }
+
+  /**
+   * Number of events in the current version.
+   *
+   * @return the number of events.
+   */
+  public int size() {
+    return events.size();
+  }
+
+  /**
+   * Name of the calendar, as known by the CalendarManager.
+   * Only used to label profiling events.
+   *
+   * @return the name, or null for a calendar outside a manager.
+   */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Sets the name used to label profiling events.
+   *
+   * @param name the calendar name.
+   */
+  void setName(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Sets where changes to this calendar are reported. Copies start with none.
+   *
+   * @param changes the sink.
+   */
+  void setChanges(ChangeSink changes) {
+    this.changes = changes;
+  }
+
+  /**
+   * The gate every write to this calendar passes.
+   *
+   * @return the gate.
+   */
+  WriteGate gate() {
+    return gate;
+  }
+
+  /**
+   * Reports the difference between two versions, for undo and redo.
+   * Only the subtrees the versions do not share are walked; an id that left and
+   * came back is an edit.
+   */
+  private void report(PersistentEventTree from, PersistentEventTree to) {
+    if (changes == ChangeSink.NONE) {
+      return;
+    }
+    Map<Long, IEvent> removed = new LinkedHashMap<>();
+    List<IEvent> added = new ArrayList<>();
+    from.diff(to, e -> removed.put(e.getId(), e), added::add);
+    for (IEvent event : added) {
+      IEvent old = removed.remove(event.getId());
+      changes.accept(old == null ? ChangeRecord.Type.EVENT_ADDED
+              : ChangeRecord.Type.EVENT_EDITED, name, null, old, event);
+    }
+    removed.values().forEach(old ->
+        changes.accept(ChangeRecord.Type.EVENT_REMOVED, name, null, old, null));
+  }
+
+  /**
+   * Makes a new version the current one and records the old one for undo.
+   * A new change discards everything that could be redone.
+   *
+   * @param next the new version.
+   * @return true if the version changed.
+   */
+  private boolean commit(PersistentEventTree next) {
+    if (next == events) {
+      return false;
+    }
+    undoStack.push(events);
+    redoStack.clear();
+    events = next;
+    memo.clear();
+    return true;
+  }
+
+  @Override
+  public boolean addEvent(IEvent event) {
+    return gate.write(c -> c.addEvent(event), () -> addInPlace(event));
+  }
+
+  private boolean addInPlace(IEvent event) {
+    long start = System.nanoTime();
+    IEvent kept = unique(events, event);
+    boolean added = (conflictPolicy != ConflictPolicy.REJECT
+            || conflicts(List.of(kept), 1).isEmpty()) && commit(events.with(kept));
+    if (added) {
+      patchAgenda(null, kept);
+      changes.accept(ChangeRecord.Type.EVENT_ADDED, name, null, null, kept);
+    }
+    MetricsRegistry.global().record(Operation.ADD, start);
+    return added;
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends IEvent> batch) {
+    return gate.write(c -> c.addAll(batch), () -> addAllInPlace(batch));
+  }
+
+  private boolean addAllInPlace(Collection<? extends IEvent> batch) {
+    long start = System.nanoTime();
+    PersistentEventTree next = events;
+    List<IEvent> kept = new ArrayList<>(batch.size());
+    for (IEvent event : batch) {
+      IEvent unique = event == null ? null : unique(next, event);
+      PersistentEventTree grown = unique == null ? next : next.with(unique);
+      if (grown == next) {
+        MetricsRegistry.global().record(Operation.ADD, start);
+        return false;
+      }
+      kept.add(unique);
+      next = grown;
+    }
+    if (conflictPolicy == ConflictPolicy.REJECT && !conflicts(kept, 1).isEmpty()) {
+      MetricsRegistry.global().record(Operation.ADD, start);
+      return false;
+    }
+    commit(next);
+    for (IEvent event : kept) {
+      patchAgenda(null, event);
+      changes.accept(ChangeRecord.Type.EVENT_ADDED, name, null, null, event);
+    }
+    MetricsRegistry.global().record(Operation.ADD, start);
+    return true;
+  }
+
+  @Override
+  public ConflictPolicy getConflictPolicy() {
+    return conflictPolicy;
+  }
+
+  /**
+   * Sets the conflict policy. The policy is a setting, not part of the history,
+   * so undo and redo do not change it.
+   */
+  @Override
+  public void setConflictPolicy(ConflictPolicy policy) {
+    gate.run(c -> c.setConflictPolicy(policy), () -> setPolicyInPlace(policy));
+  }
+
+  private void setPolicyInPlace(ConflictPolicy policy) {
+    if (policy == null) {
+      throw new IllegalArgumentException("policy must not be null");
+    }
+    this.conflictPolicy = policy;
+  }
+
+  @Override
+  public List<IEvent> getConflicts(Collection<? extends IEvent> batch) {
+    List<IEvent> found = conflicts(batch, Integer.MAX_VALUE);
+    found.replaceAll(e -> Event.inZone(e, zoneId));
+    return found;
+  }
+
+  private List<IEvent> conflicts(Collection<? extends IEvent> batch, int limit) {
+    return conflicts(batch, limit, Set.of());
+  }
+
+  /**
+   * Sweeps a batch against the events of the current version around it,
+   * leaving out the events the batch replaces.
+   */
+  private List<IEvent> conflicts(Collection<? extends IEvent> batch, int limit,
+                                 Set<IEvent> replaced) {
+    List<IEvent> incoming = new ArrayList<>(batch);
+    if (incoming.isEmpty()) {
+      return incoming;
+    }
+    incoming.sort(Overlaps.BY_START);
+    Instant to = incoming.get(0).getEndDateTime().toInstant();
+    for (IEvent e : incoming) {
+      if (e.getEndDateTime().toInstant().isAfter(to)) {
+        to = e.getEndDateTime().toInstant();
+      }
+    }
+    List<IEvent> existing = new ArrayList<>();
+    events.overlapping(incoming.get(0).getStartDateTime().toInstant(), to, existing);
+    existing.removeIf(replaced::contains);
+    return Overlaps.find(incoming, existing, limit);
+  }
+
+  @Override
+  public boolean removeEvent(IEvent event) {
+    return gate.write(c -> c.removeEvent(event), () -> removeInPlace(event));
+  }
+
+  private boolean removeInPlace(IEvent event) {
+    long start = System.nanoTime();
+    IEvent old = stored(event);
+    boolean removed = commit(events.without(event));
+    if (removed) {
+      patchAgenda(old, null);
+      changes.accept(ChangeRecord.Type.EVENT_REMOVED, name, null, old, null);
+    }
+    MetricsRegistry.global().record(Operation.REMOVE, start);
+    return removed;
+  }
+
+  /**
+   * The stored event equal to one, which carries the stored id.
+   */
+  private IEvent stored(IEvent event) {
+    IEvent found = events.find(event);
+    return found == null ? event : found;
+  }
+
+  /**
+   * An event to add to a version; one whose id is already taken there gets a new id,
+   * as in CalendarModel, so the id map of the version stays one to one.
+   */
+  private static IEvent unique(PersistentEventTree version, IEvent event) {
+    return version.get(event.getId()) == null
+            ? event : Event.withId(event, Event.nextId());
+  }
+
+  /**
+   * Events on a day of the calendar zone, sorted by start.
+   *
+   * @param date the date of the event.
+   * @return the events on that date, shown in the calendar zone.
+   */
+  @Override
+  public List<IEvent> getEventsOn(LocalDate date) {
+    long start = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("getEventsOn", name);
+    List<IEvent> result = new ArrayList<>(window(date.atStartOfDay(zoneId).toInstant(),
+            date.plusDays(1).atStartOfDay(zoneId).minusNanos(1).toInstant()));
+    MetricsRegistry.global().record(Operation.QUERY, start);
+    jfr.finish(result.size(), result.size());
+    return result;
+  }
+
+  @Override
+  public List<IEvent> getEventsBetween(ZonedDateTime start, ZonedDateTime end) {
+    long timer = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("getEventsBetween", name);
+    List<IEvent> result = new ArrayList<>(window(start.toInstant(), end.toInstant()));
+    MetricsRegistry.global().record(Operation.QUERY, timer);
+    jfr.finish(result.size(), result.size());
+    return result;
+  }
+
+  /**
+   * Events overlapping a window, shown in the calendar zone, as an unmodifiable list.
+   * Results are memoized until the version or the zone changes.
+   */
+  private List<IEvent> window(Instant from, Instant to) {
+    List<IEvent> cached = memo.get(from, to);
+    if (cached != null) {
+      return cached;
+    }
+    List<IEvent> result = new ArrayList<>();
+    events.overlapping(from, to, result);
+    result.replaceAll(e -> Event.inZone(e, zoneId));
+    return memo.put(from, to, result);
+  }
+
+  @Override
+  public ZoneId getZoneId() {
+    return zoneId;
+  }
+
+  /**
+   * Changes the zone events are shown in. Events are kept as instants,
+   * so this is O(1) and is not part of the undo history.
+   *
+   * @param zoneId the new zone.
+   */
+  @Override
+  public void setZoneId(ZoneId zoneId) {
+    gate.run(c -> c.setZoneId(zoneId), () -> setZoneInPlace(zoneId));
+  }
+
+  private void setZoneInPlace(ZoneId zoneId) {
+    boolean moved = !zoneId.equals(this.zoneId);
+    this.zoneId = zoneId;
+    memo.clear();
+    if (agenda != null) {
+      agenda.roll(zoneId, this::loadDay);
+    }
+    if (moved) {
+      changes.accept(ChangeRecord.Type.ZONE_CHANGED, name, zoneId.getId(), null, null);
+    }
+  }
+
+  @Override
+  public Optional<IEvent> findEvent(String subject, LocalDateTime startTime) {
+    long start = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("findEvent", name);
+    ZonedDateTime wanted = startTime.atZone(zoneId);
+    Optional<IEvent> found = Optional.empty();
+    for (IEvent e : events) {
+      if (!e.getSubject().equals(subject)) {
+        continue;
+      }
+      if (e.getStartDateTime().isEqual(wanted)) {
+        found = Optional.of(e);
+        break;
+      }
+      if (found.isEmpty() && e.getStartDateTime().toLocalDateTime().equals(startTime)) {
+        found = Optional.of(e);
+      }
+    }
+    MetricsRegistry.global().record(Operation.QUERY, start);
+    jfr.finish(events.size(), found.isPresent() ? 1 : 0);
+    return found;
+  }
+
+  /**
+   * Replaces an event; the removal and the addition are one version,
+   * so a single undo restores the old event.
+   *
+   * @param subject     name of event.
+   * @param startTime   start date of the event.
+   * @param replacement the new event.
+   * @return true if the event was replaced.
+   */
+  @Override
+  public boolean editEvent(String subject, ZonedDateTime startTime, IEvent replacement) {
+    return gate.write(c -> c.editEvent(subject, startTime, replacement),
+        () -> editInPlace(subject, startTime, replacement));
+  }
+
+  private boolean editInPlace(String subject, ZonedDateTime startTime, IEvent replacement) {
+    Optional<IEvent> old = findEvent(subject, startTime.toLocalDateTime());
+    if (old.isEmpty() || replacement == null) {
+      return false;
+    }
+    return replace(old.get(), replacement);
+  }
+
+  /**
+   * Swaps an event for a replacement that keeps its id, as one version.
+   *
+   * @param old         the stored event.
+   * @param replacement the new event.
+   * @return true if replaced, false if the replacement duplicates another event
+   *     or overlaps one while the policy is REJECT.
+   */
+  private boolean replace(IEvent old, IEvent replacement) {
+    if (replacement == null || (conflictPolicy == ConflictPolicy.REJECT
+            && !conflicts(List.of(replacement), 1, Set.of(old)).isEmpty())) {
+      return false;
+    }
+    PersistentEventTree removed = events.without(old);
+    IEvent kept = Event.withId(replacement, old.getId());
+    PersistentEventTree next = removed.with(kept);
+    if (next == removed || !commit(next)) {
+      return false;
+    }
+    patchAgenda(old, kept);
+    changes.accept(ChangeRecord.Type.EVENT_EDITED, name, null, old, kept);
+    return true;
+  }
+
+  /**
+   * Look up an event by id in the id map of the current version, in O(log n).
+   *
+   * @param id the id of the event.
+   * @return the event if the calendar has it.
+   */
+  @Override
+  public Optional<IEvent> getEvent(long id) {
+    return Optional.ofNullable(events.get(id));
+  }
+
+  @Override
+  public boolean removeEventById(long id) {
+    return gate.write(c -> c.removeEventById(id), () -> removeByIdInPlace(id));
+  }
+
+  private boolean removeByIdInPlace(long id) {
+    Optional<IEvent> old = getEvent(id);
+    return old.isPresent() && removeEvent(old.get());
+  }
+
+  @Override
+  public boolean editEventById(long id, IEvent replacement) {
+    return gate.write(c -> c.editEventById(id, replacement),
+        () -> editByIdInPlace(id, replacement));
+  }
+
+  private boolean editByIdInPlace(long id, IEvent replacement) {
+    Optional<IEvent> old = getEvent(id);
+    return old.isPresent() && replace(old.get(), replacement);
+  }
+
+  @Override
+  public int editEventBetween(ZonedDateTime from, ZonedDateTime to,
+                              UnaryOperator<IEvent> replacer) {
+    return gate.write(c -> c.editEventBetween(from, to, replacer),
+        () -> editBetweenInPlace(from, to, replacer));
+  }
+
+  private int editBetweenInPlace(ZonedDateTime from, ZonedDateTime to,
+                                 UnaryOperator<IEvent> replacer) {
+    List<IEvent> matches = new ArrayList<>();
+    events.overlapping(from.toInstant(), to.toInstant(), matches);
+    return replaceBatch(matches, replacer);
+  }
+
+  /**
+   * Replaces the events of a subject from a time on, as one version.
+   * There is no subject index here; the tree skips events that end before the time.
+   */
+  @Override
+  public int editSeriesFrom(String subject, ZonedDateTime from, UnaryOperator<IEvent> replacer) {
+    return gate.write(c -> c.editSeriesFrom(subject, from, replacer),
+        () -> editSeriesInPlace(subject, from, replacer));
+  }
+
+  private int editSeriesInPlace(String subject, ZonedDateTime from,
+                                UnaryOperator<IEvent> replacer) {
+    List<IEvent> later = new ArrayList<>();
+    events.overlapping(from.toInstant(), Instant.MAX, later);
+    List<IEvent> matches = new ArrayList<>();
+    for (IEvent e : later) {
+      if (e.getSubject().equals(subject) && !e.getStartDateTime().isBefore(from)) {
+        matches.add(e);
+      }
+    }
+    return replaceBatch(matches, replacer);
+  }
+
+  /**
+   * Replaces events as one version, or not at all if a replacement is a duplicate
+   * or, under REJECT, overlaps an event.
+   *
+   * @param matches  the stored events to edit.
+   * @param replacer builds the replacement of an event shown in the calendar zone.
+   * @return the number of replaced events, 0 on a duplicate or a rejected overlap.
+   */
+  private int replaceBatch(List<IEvent> matches, UnaryOperator<IEvent> replacer) {
+    List<IEvent> olds = new ArrayList<>();
+    List<IEvent> replacements = new ArrayList<>();
+    PersistentEventTree next = events;
+    for (IEvent old : matches) {
+      IEvent shown = Event.inZone(old, zoneId);
+      IEvent replacement = replacer.apply(shown);
+      if (replacement != null && replacement != shown && replacement != old) {
+        next = next.without(old);
+        olds.add(old);
+        replacements.add(Event.withId(replacement, old.getId()));
+      }
+    }
+    for (IEvent replacement : replacements) {
+      PersistentEventTree grown = next.with(replacement);
+      if (grown == next) {
+        return 0;
+      }
+      next = grown;
+    }
+    if (conflictPolicy == ConflictPolicy.REJECT
+            && !conflicts(replacements, 1, new HashSet<>(olds)).isEmpty()) {
+      return 0;
+    }
+    commit(next);
+    for (int i = 0; i < olds.size(); i++) {
+      patchAgenda(olds.get(i), replacements.get(i));
+      changes.accept(ChangeRecord.Type.EVENT_EDITED, name, null, olds.get(i),
+              replacements.get(i));
+    }
+    return replacements.size();
+  }
+
+  /**
+   * Events whose subject starts with a prefix.
+   * There is no subject index here, so this filters the window, or every event.
+   */
+  @Override
+  public List<IEvent> searchByPrefix(String prefix, ZonedDateTime from, ZonedDateTime to) {
+    long timer = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("searchByPrefix", name);
+    List<IEvent> result = new ArrayList<>();
+    if (from == null || to == null) {
+      events.forEach(result::add);
+    } else {
+      events.overlapping(from.toInstant(), to.toInstant(), result);
+    }
+    int scanned = result.size();
+    result.removeIf(e -> !e.getSubject().startsWith(prefix));
+    result.replaceAll(e -> Event.inZone(e, zoneId));
+    MetricsRegistry.global().record(Operation.QUERY, timer);
+    jfr.finish(scanned, result.size());
+    return result;
+  }
+
+  /**
+   * Events matching a text query.
+   * Versions share their trees, so there is no text index; this checks the window,
+   * or every event, against the query.
+   */
+  @Override
+  public List<IEvent> searchText(TextQuery query, ZonedDateTime from, ZonedDateTime to) {
+    long timer = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("searchText", name);
+    List<IEvent> result = new ArrayList<>();
+    if (from == null || to == null) {
+      events.forEach(result::add);
+    } else {
+      events.overlapping(from.toInstant(), to.toInstant(), result);
+    }
+    int scanned = result.size();
+    result.removeIf(e -> !query.matches(e));
+    result.replaceAll(e -> Event.inZone(e, zoneId));
+    MetricsRegistry.global().record(Operation.QUERY, timer);
+    jfr.finish(scanned, result.size());
+    return result;
+  }
+
+  /**
+   * One page of the events overlapping a window.
+   * The tree is walked in start order from the cursor and stops once the page is
+   * full and the start moves on, so a page costs O(log n + pageSize) plus the events
+   * sharing its last start. Pages are not memoized.
+   */
+  @Override
+  public EventPage query(ZonedDateTime from, ZonedDateTime to, int pageSize,
+                         String afterCursor) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("pageSize must be > 0");
+    }
+    long timer = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("query", name);
+    long[] after = afterCursor == null ? null : EventPage.parse(afterCursor);
+    Instant lo = after == null ? Instant.MIN : Instant.ofEpochSecond(after[0], after[1]);
+    List<IEvent> found = new ArrayList<>(pageSize + 1);
+    int[] scanned = new int[1];
+    events.forEach(lo, to.toInstant(), from.toInstant(), e -> {
+      scanned[0]++;
+      if (after != null && EventPage.compare(e, after) <= 0) {
+        return true;
+      }
+      if (found.size() > pageSize && e.getStartDateTime().toInstant()
+              .isAfter(found.get(found.size() - 1).getStartDateTime().toInstant())) {
+        return false;
+      }
+      found.add(e);
+      return true;
+    });
+    found.sort(Overlaps.BY_START.thenComparingLong(IEvent::getId));
+    String next = null;
+    if (found.size() > pageSize) {
+      next = EventPage.cursorAfter(found.get(pageSize - 1));
+      found.subList(pageSize, found.size()).clear();
+    }
+    found.replaceAll(e -> Event.inZone(e, zoneId));
+    MetricsRegistry.global().record(Operation.QUERY, timer);
+    jfr.finish(scanned[0], found.size());
+    return new EventPage(found, next);
+  }
+
+  /**
+   * Events overlapping a window, from the memoized window list, which is already
+   * sorted by start but does not report SORTED. Without a window the tree is walked
+   * lazily instead. Versions never change, so later edits do not disturb either one.
+   */
+  @Override
+  public Spliterator<IEvent> spliterator(ZonedDateTime from, ZonedDateTime to) {
+    if (from == null || to == null) {
+      ZoneId zone = zoneId;
+      Iterator<IEvent> all = events.iterator();
+      return Spliterators.spliterator(new Iterator<IEvent>() {
+        @Override
+        public boolean hasNext() {
+          return all.hasNext();
+        }
+
+        @Override
+        public IEvent next() {
+          return Event.inZone(all.next(), zone);
+        }
+      }, events.size(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+    return window(from.toInstant(), to.toInstant()).spliterator();
+  }
+
+  @Override
+  public Stream<IEvent> stream(ZonedDateTime from, ZonedDateTime to) {
+    return StreamSupport.stream(spliterator(from, to), false);
+  }
+
+  /**
+   * Statistics of a window, accumulated in one walk over the tree's overlapping events
+   * without collecting them.
+   */
+  @Override
+  public EventStats aggregate(ZonedDateTime from, ZonedDateTime to, Granularity by) {
+    long timer = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("aggregate", name);
+    EventStats.Accumulator acc = new EventStats.Accumulator(from, to, zoneId, by);
+    int[] scanned = new int[1];
+    events.forEach(Instant.MIN, to.toInstant(), from.toInstant(), e -> {
+      acc.accept(e);
+      scanned[0]++;
+      return true;
+    });
+    EventStats stats = acc.finish();
+    MetricsRegistry.global().record(Operation.QUERY, timer);
+    jfr.finish(scanned[0], stats.buckets());
+    return stats;
+  }
+
+  /**
+   * Keeps materialized agendas for today and the days around it.
+   *
+   * @param daysBefore days before today to keep.
+   * @param daysAfter  days after today to keep.
+   */
+  @Override
+  public void setAgendaWindow(int daysBefore, int daysAfter) {
+    setAgendaWindow(daysBefore, daysAfter, Clock.systemDefaultZone());
+  }
+
+  /**
+   * Keeps materialized agendas for the days around today by a given clock.
+   * Changes patch the days they touch; undo and redo can swap any number of
+   * events, so they reload the window from the new version instead.
+   *
+   * @param daysBefore days before today to keep.
+   * @param daysAfter  days after today to keep.
+   * @param clock      the clock telling the date, read in the calendar zone.
+   */
+  public void setAgendaWindow(int daysBefore, int daysAfter, Clock clock) {
+    gate.run(c -> ((VersionedCalendarModel) c).setAgendaWindow(daysBefore, daysAfter, clock),
+        () -> setAgendaInPlace(daysBefore, daysAfter, clock));
+  }
+
+  private void setAgendaInPlace(int daysBefore, int daysAfter, Clock clock) {
+    AgendaViews views = new AgendaViews(daysBefore, daysAfter, clock);
+    views.roll(zoneId, this::loadDay);
+    agenda = views;
+  }
+
+  @Override
+  public void clearAgendaWindow() {
+    gate.run(ICalendarModel::clearAgendaWindow, this::clearAgendaInPlace);
+  }
+
+  private void clearAgendaInPlace() {
+    agenda = null;
+  }
+
+  /**
+   * The agenda of a day; a materialized day is returned as is, other days go
+   * through the window memo.
+   */
+  @Override
+  public List<IEvent> getAgenda(LocalDate date) {
+    if (agenda != null) {
+      agenda.roll(zoneId, this::loadDay);
+      List<IEvent> materialized = agenda.get(date);
+      if (materialized != null) {
+        return materialized;
+      }
+    }
+    return window(date.atStartOfDay(zoneId).toInstant(),
+        date.plusDays(1).atStartOfDay(zoneId).minusNanos(1).toInstant());
+  }
+
+  /**
+   * The events of a day in the calendar zone, read from the tree, for the agenda.
+   */
+  private List<IEvent> loadDay(LocalDate date) {
+    List<IEvent> result = new ArrayList<>();
+    events.overlapping(date.atStartOfDay(zoneId).toInstant(),
+            date.plusDays(1).atStartOfDay(zoneId).minusNanos(1).toInstant(), result);
+    result.replaceAll(e -> Event.inZone(e, zoneId));
+    return result;
+  }
+
+  /**
+   * Moves one change into the materialized days.
+   *
+   * @param old the stored event that left, or null.
+   * @param now the stored event that came in, or null.
+   */
+  private void patchAgenda(IEvent old, IEvent now) {
+    if (agenda == null) {
+      return;
+    }
+    if (old != null) {
+      agenda.remove(old);
+    }
+    if (now != null) {
+      agenda.add(Event.inZone(now, zoneId));
+    }
+  }
+
+  /**
+   * Rebuilds the materialized days from the current version.
+   */
+  private void reloadAgenda() {
+    if (agenda != null) {
+      agenda = agenda.emptyCopy();
+      agenda.roll(zoneId, this::loadDay);
+    }
+  }
+
+  /**
+   * Events at a location overlapping a window, filtered from the window.
+   */
+  @Override
+  public List<IEvent> getEventsAt(String location, ZonedDateTime from, ZonedDateTime to) {
+    long timer = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("getEventsAt", name);
+    String room = CalendarModel.roomOf(location);
+    List<IEvent> result = new ArrayList<>();
+    int scanned = 0;
+    if (room != null) {
+      events.overlapping(from.toInstant(), to.toInstant(), result);
+      scanned = result.size();
+      result.removeIf(e -> !room.equals(CalendarModel.roomOf(e.getLocation())));
+      result.replaceAll(e -> Event.inZone(e, zoneId));
+    }
+    MetricsRegistry.global().record(Operation.QUERY, timer);
+    jfr.finish(scanned, result.size());
+    return result;
+  }
+
+  @Override
+  public long textIndexBytes() {
+    return 0;
+  }
+
+  @Override
+  public boolean busyDuring(ZonedDateTime time) {
+    long start = System.nanoTime();
+    CalendarOperationEvent jfr = CalendarOperationEvent.start("busyDuring", name);
+    List<IEvent> around = new ArrayList<>();
+    events.overlapping(time.toInstant(), time.toInstant(), around);
+    boolean busy = around.stream().anyMatch(ev -> ev.busyDuring(time));
+    MetricsRegistry.global().record(Operation.BUSY_CHECK, start);
+    jfr.finish(around.size(), busy ? 1 : 0);
+    return busy;
+  }
+
+  /**
+   * Read-only calendar frozen at one version.
+   * Queries go to a private copy; every change is rejected.
+   */
+  private static final class Snapshot implements ICalendarModel {
+    private final VersionedCalendarModel frozen;
+
+    private Snapshot(VersionedCalendarModel frozen) {
+      this.frozen = frozen;
+    }
+
+    @Override
+    public boolean addEvent(IEvent event) {
+      throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends IEvent> batch) {
+      throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public boolean removeEvent(IEvent event) {
+      throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public Optional<IEvent> getEvent(long id) {
+      return frozen.getEvent(id);
+    }
+
+    @Override
+    public boolean removeEventById(long id) {
+      throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public boolean editEventById(long id, IEvent replacement) {
+      throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public List<IEvent> getEventsOn(LocalDate date) {
+      return frozen.getEventsOn(date);
+    }
+
+    @Override
+    public List<IEvent> getEventsBetween(ZonedDateTime start, ZonedDateTime end) {
+      return frozen.getEventsBetween(start, end);
+    }
+
+    @Override
+    public ZoneId getZoneId() {
+      return frozen.getZoneId();
+    }
+
+    @Override
+    public void setZoneId(ZoneId zoneId) {
+      throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public Optional<IEvent> findEvent(String subject, LocalDateTime startTime) {
+      return frozen.findEvent(subject, startTime);
+    }
+
+    @Override
+    public boolean editEvent(String subject, ZonedDateTime startTime, IEvent replacement) {
+      throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public int editEventBetween(ZonedDateTime from, ZonedDateTime to,
+                                UnaryOperator<IEvent> replacer) {
+      throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public int editSeriesFrom(String subject, ZonedDateTime from,
+                              UnaryOperator<IEvent> replacer) {
+      throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public List<IEvent> searchByPrefix(String prefix, ZonedDateTime from, ZonedDateTime to) {
+      return frozen.searchByPrefix(prefix, from, to);
+    }
+
+    @Override
+    public List<IEvent> searchText(TextQuery query, ZonedDateTime from, ZonedDateTime to) {
+      return frozen.searchText(query, from, to);
+    }
+
+    @Override
+    public List<IEvent> getEventsAt(String location, ZonedDateTime from, ZonedDateTime to) {
+      return frozen.getEventsAt(location, from, to);
+    }
+
+    @Override
+    public long textIndexBytes() {
+      return 0;
+    }
+
+    @Override
+    public void setAgendaWindow(int daysBefore, int daysAfter) {
+      throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public void clearAgendaWindow() {
+      throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public List<IEvent> getAgenda(LocalDate date) {
+      return frozen.getAgenda(date);
+    }
+
+    @Override
+    public EventStats aggregate(ZonedDateTime from, ZonedDateTime to, Granularity by) {
+      return frozen.aggregate(from, to, by);
+    }
+
+    @Override
+    public Spliterator<IEvent> spliterator(ZonedDateTime from, ZonedDateTime to) {
+      return frozen.spliterator(from, to);
+    }
+
+    @Override
+    public Stream<IEvent> stream(ZonedDateTime from, ZonedDateTime to) {
+      return frozen.stream(from, to);
+    }
+
+    @Override
+    public EventPage query(ZonedDateTime from, ZonedDateTime to, int pageSize,
+                           String afterCursor) {
+      return frozen.query(from, to, pageSize, afterCursor);
+    }
+
+    @Override
+    public ConflictPolicy getConflictPolicy() {
+      return frozen.getConflictPolicy();
+    }
+
+    @Override
+    public void setConflictPolicy(ConflictPolicy policy) {
+      throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public List<IEvent> getConflicts(Collection<? extends IEvent> batch) {
+      return frozen.getConflicts(batch);
+    }
+
+    @Override
+    public boolean busyDuring(ZonedDateTime when) {
+      return frozen.busyDuring(when);
+    }
+
+    @Override
+    public ICalendarModel copy() {
+      return frozen.copy();
+    }
+  }
+}
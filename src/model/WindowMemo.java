@@ -0,0 +1,84 @@
+package model;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Remembers the results of recent time window queries of one calendar.
+ * Results are already converted to the calendar zone, so repeating a query,
+ * like a view redrawing the same day, neither scans nor converts again.
+ * The calendar clears it whenever its events or zone change.
+ */
+final class WindowMemo {
+  private static final int CAPACITY = 32;
+
+  private final Map<Window, List<IEvent>> results =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Window, List<IEvent>> eldest) {
+          return size() > CAPACITY;
+        }
+      };
+
+  /**
+   * The remembered result of a window.
+   *
+   * @param from start of the window.
+   * @param to   end of the window.
+   * @return the unmodifiable result, or null if it is not remembered.
+   */
+  synchronized List<IEvent> get(Instant from, Instant to) {
+    return results.get(new Window(from, to));
+  }
+
+  /**
+   * Remembers the result of a window.
+   *
+   * @param from   start of the window.
+   * @param to     end of the window.
+   * @param result the events in the window.
+   * @return the unmodifiable copy that was stored.
+   */
+  synchronized List<IEvent> put(Instant from, Instant to, List<IEvent> result) {
+    List<IEvent> stored = List.copyOf(result);
+    results.put(new Window(from, to), stored);
+    return stored;
+  }
+
+  /**
+   * Forgets every result.
+   */
+  synchronized void clear() {
+    results.clear();
+  }
+
+  /**
+   * Key of one query window.
+   */
+  private static final class Window {
+    private final Instant from;
+    private final Instant to;
+
+    private Window(Instant from, Instant to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Window)) {
+        return false;
+      }
+      Window window = (Window) other;
+      return from.equals(window.from) && to.equals(window.to);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(from, to);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Guards the in-place writes of one calendar against a transaction replacing it.
+ * Every write holds the lock, and a commit holds the locks of the calendars it
+ * copies from the copy until the new map is published, so no write falls between
+ * the copy and the publish. Once a calendar is replaced it is retired: writes to it,
+ * through any reference still held, go to its successor, while reads keep seeing
+ * the old calendar as an earlier snapshot does. Reads never take the lock.
+ * Gates are numbered as they are made, and a commit locks them in that order,
+ * which stays fixed while calendar names change.
+ */
+final class WriteGate {
+  private static final AtomicLong NEXT = new AtomicLong();
+
+  private final long order = NEXT.getAndIncrement();
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile ICalendarModel successor;
+
+  /**
+   * Runs a write here, or on the successor once this calendar is retired.
+   *
+   * @param forward the same write on the successor.
+   * @param here    the write on this calendar.
+   * @param <T>     the result type.
+   * @return the result of the write.
+   */
+  <T> T write(Function<ICalendarModel, T> forward, Supplier<T> here) {
+    lock.lock();
+    ICalendarModel next = successor;
+    if (next != null) {
+      lock.unlock();
+      return forward.apply(next);
+    }
+    try {
+      return here.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Runs a write without a result here, or on the successor once retired.
+   *
+   * @param forward the same write on the successor.
+   * @param here    the write on this calendar.
+   */
+  void run(Consumer<ICalendarModel> forward, Runnable here) {
+    write(c -> {
+      forward.accept(c);
+      return null;
+    }, () -> {
+      here.run();
+      return null;
+    });
+  }
+
+  /**
+   * Position of this gate in the order commits lock gates in.
+   *
+   * @return the number of the gate.
+   */
+  long order() {
+    return order;
+  }
+
+  /**
+   * Holds off writes while a transaction copies and replaces the calendar.
+   */
+  void lock() {
+    lock.lock();
+  }
+
+  /**
+   * Lets writes through again.
+   */
+  void unlock() {
+    lock.unlock();
+  }
+
+  /**
+   * Checks if the calendar was replaced.
+   *
+   * @return true if writes go to a successor.
+   */
+  boolean isRetired() {
+    return successor != null;
+  }
+
+  /**
+   * Sends every later write to the calendar that replaced this one.
+   * Called with the lock held.
+   *
+   * @param next the successor.
+   */
+  void retire(ICalendarModel next) {
+    successor = next;
+  }
+}
@@ -0,0 +1,114 @@
+package model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Converts instants to zoned date-times with cached zone offsets.
+ * For every zone it remembers the offset of recent UTC days that have no offset
+ * transition, so converting many instants into one zone is mostly epoch arithmetic.
+ * Days with a transition are marked and always go through the zone rules.
+ * Each cache entry packs the day and the offset into one long, so the table
+ * needs no locks.
+ */
+final class ZoneOffsetCache {
+  private static final int SLOTS = 1 << 10;
+  private static final long SECONDS_PER_DAY = 86_400L;
+  private static final int OFFSET_BITS = 24;
+  private static final int OFFSET_BIAS = 1 << 20;
+  private static final int TRANSITION = (1 << OFFSET_BITS) - 1;
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private static final ConcurrentMap<ZoneId, AtomicLongArray> DAYS = new ConcurrentHashMap<>();
+
+  private ZoneOffsetCache() {
+  }
+
+  /**
+   * Moves a date-time by a duration and converts it to another zone.
+   * Gives the same result as time.plus(duration).withZoneSameInstant(zone).
+   *
+   * @param time     the date-time.
+   * @param duration the amount to move it.
+   * @param zone     the zone of the result.
+   * @return the shifted date-time in that zone.
+   */
+  static ZonedDateTime shift(ZonedDateTime time, Duration duration, ZoneId zone) {
+    long seconds = time.toEpochSecond() + duration.getSeconds();
+    long nanos = (long) time.getNano() + duration.getNano();
+    if (nanos >= 1_000_000_000L) {
+      seconds++;
+      nanos -= 1_000_000_000L;
+    }
+    return atZone(seconds, (int) nanos, zone);
+  }
+
+  /**
+   * The date-time of an instant in a zone.
+   *
+   * @param epochSecond seconds since the epoch.
+   * @param nano        nanosecond of the second.
+   * @param zone        the zone.
+   * @return the date-time.
+   */
+  static ZonedDateTime atZone(long epochSecond, int nano, ZoneId zone) {
+    ZoneOffset offset = offsetAt(zone, epochSecond);
+    LocalDateTime local = LocalDateTime.ofEpochSecond(epochSecond, nano, offset);
+    return ZonedDateTime.ofInstant(local, offset, zone);
+  }
+
+  /**
+   * The offset of a zone at an instant.
+   *
+   * @param zone        the zone.
+   * @param epochSecond seconds since the epoch.
+   * @return the offset in effect.
+   */
+  static ZoneOffset offsetAt(ZoneId zone, long epochSecond) {
+    if (zone instanceof ZoneOffset) {
+      return (ZoneOffset) zone;
+    }
+    long day = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+    AtomicLongArray table = DAYS.computeIfAbsent(zone, z -> emptyTable());
+    int slot = (int) (day & (SLOTS - 1));
+    long entry = table.get(slot);
+    if (entry == EMPTY || (entry >> OFFSET_BITS) != day) {
+      entry = (day << OFFSET_BITS) | offsetCode(zone.getRules(), day);
+      table.set(slot, entry);
+    }
+    int code = (int) (entry & TRANSITION);
+    if (code == TRANSITION) {
+      return zone.getRules().getOffset(Instant.ofEpochSecond(epochSecond));
+    }
+    return ZoneOffset.ofTotalSeconds(code - OFFSET_BIAS);
+  }
+
+  /**
+   * Offset of a whole UTC day, or the transition marker if it changes that day.
+   */
+  private static int offsetCode(ZoneRules rules, long day) {
+    Instant start = Instant.ofEpochSecond(day * SECONDS_PER_DAY);
+    ZoneOffsetTransition next = rules.nextTransition(start);
+    if (next != null && next.toEpochSecond() < (day + 1) * SECONDS_PER_DAY) {
+      return TRANSITION;
+    }
+    return rules.getOffset(start).getTotalSeconds() + OFFSET_BIAS;
+  }
+
+  private static AtomicLongArray emptyTable() {
+    AtomicLongArray table = new AtomicLongArray(SLOTS);
+    for (int i = 0; i < SLOTS; i++) {
+      table.set(i, EMPTY);
+    }
+    return table;
+  }
+}
@@ -48,6 +48,8 @@ public class CalendarGUI extends JFrame implements ICalendarView {
   private final JComboBox<String> calendarBox = new JComboBox<>();
   private final JButton newCalBtn = new JButton("+");
   private final JButton saveButton = new JButton("Save");
+  private final JButton undoButton = new JButton("Undo");
+  private final JButton redoButton = new JButton("Redo");
   private final DefaultListModel<IEvent> eventListModel = new DefaultListModel<>();
   private final JList<IEvent> eventList = new JList<>(eventListModel);
 
@@ -136,6 +138,8 @@ public class CalendarGUI extends JFrame implements ICalendarView {
     bottomPanel.add(addButton);
     bottomPanel.add(saveButton);
     bottomPanel.add(refreshButton);
+    bottomPanel.add(undoButton);
+    bottomPanel.add(redoButton);
     bottomPanel.add(messageLabel);
 
     saveButton.setEnabled(false);
@@ -158,12 +162,30 @@ public class CalendarGUI extends JFrame implements ICalendarView {
       }
     });
 
+    undoButton.addActionListener(e -> {
+      if (controller != null) {
+        controller.handleUndo();
+      }
+    });
+
+    redoButton.addActionListener(e -> {
+      if (controller != null) {
+        controller.handleRedo();
+      }
+    });
+
     calendarBox.addActionListener(e -> {
       if (controller != null) {
         controller.handleSwitchCalendar((String) calendarBox.getSelectedItem());
       }
     });
 
+    dateFilterSpinner.addChangeListener(e -> {
+      if (controller != null) {
+        controller.handleDateChanged();
+      }
+    });
+
     newCalBtn.addActionListener(e -> {
       if (controller != null) {
         controller.handleCreateCalendar();
@@ -17,7 +17,9 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -301,5 +303,155 @@ public class CalendarTests {
     assertEquals(1, cm.getEventsOn(day, day.plusDays(1).minusNanos(1)).size());
   }
 
+  @Test
+  public void eventsBetweenAllCalendarsMergedByStart() {
+    CalendarManager manager = new CalendarManager();
+    ZoneId ny = ZoneId.of("America/New_York");
+    ZoneId la = ZoneId.of("America/Los_Angeles");
+    manager.createCalendar("east", ny);
+    manager.createCalendar("west", la);
+    ZonedDateTime nine = ZonedDateTime.of(2025, 4, 7, 9, 0, 0, 0, ny);
+
+    manager.useCalendar("east");
+    manager.addEvent(new Event("e1", nine, nine.plusHours(1), "", Status.Public, ""));
+    manager.addEvent(new Event("e2", nine.plusHours(2), nine.plusHours(3), "",
+            Status.Public, ""));
+    manager.useCalendar("west");
+    ZonedDateTime westNine = ZonedDateTime.of(2025, 4, 7, 9, 0, 0, 0, la);
+    manager.addEvent(new Event("w1", westNine, westNine.plusHours(1), "", Status.Public, ""));
+
+    List<IEvent> all = manager.getEventsBetweenAll(nine.minusHours(1), nine.plusHours(12));
+    assertEquals(List.of("e1", "e2", "w1"),
+            all.stream().map(IEvent::getSubject).collect(Collectors.toList()));
+    assertEquals(3, manager.getEventsOnAll(LocalDate.of(2025, 4, 7)).size());
+    assertTrue(manager.getEventsOnAll(LocalDate.of(2025, 4, 8)).isEmpty());
+  }
 
+  @Test
+  public void editEventsCommandEditsFutureSeries() {
+    CalendarManager mgr = new CalendarManager();
+    CommandController ctrl = new CommandController(mgr);
+    ctrl.handle("create calendar --name team --timezone America/New_York");
+    ctrl.handle("use calendar --name team");
+    ctrl.handle("create event Standup from 2025-06-02T09:00 to 2025-06-02T09:15 "
+            + "repeats MTWRF for 5 times");
+    ctrl.handle("edit events location Standup from 2025-06-04T09:00 with Zoom");
+
+    ZoneId ny = ZoneId.of("America/New_York");
+    List<IEvent> week = mgr.getEventsBetween(ZonedDateTime.of(2025, 6, 2, 0, 0, 0, 0, ny),
+            ZonedDateTime.of(2025, 6, 7, 0, 0, 0, 0, ny));
+    assertEquals(5, week.size());
+    assertEquals(3, week.stream().filter(e -> "Zoom".equals(e.getLocation())).count());
+  }
+
+  @Test
+  public void searchEventsCommandPrintsMatches() {
+    CalendarManager mgr = new CalendarManager();
+    CommandController ctrl = new CommandController(mgr);
+    ctrl.handle("create calendar --name team --timezone America/New_York");
+    ctrl.handle("use calendar --name team");
+    ctrl.handle("create event \"Sprint planning\" from 2025-06-02T09:00 to 2025-06-02T10:00");
+    ctrl.handle("create event \"Sprint review\" from 2025-06-13T15:00 to 2025-06-13T16:00");
+    ctrl.handle("create event Standup from 2025-06-02T10:00 to 2025-06-02T10:15");
+
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    PrintStream oldOut = System.out;
+    System.setOut(new PrintStream(bout));
+    try {
+      ctrl.handle("search events \"Sprint\" from 2025-06-01T00:00 to 2025-06-07T00:00");
+    } finally {
+      System.setOut(oldOut);
+    }
+    String out = bout.toString();
+    assertTrue(out.contains("Sprint planning"));
+    assertFalse(out.contains("Sprint review"));
+    assertFalse(out.contains("Standup"));
+  }
+
+  @Test
+  public void searchTextCommandSearchesAllCalendars() {
+    CalendarManager mgr = new CalendarManager();
+    CommandController ctrl = new CommandController(mgr);
+    ctrl.handle("create calendar --name work --timezone America/New_York");
+    ctrl.handle("create calendar --name home --timezone America/New_York");
+    ctrl.handle("use calendar --name work");
+    ctrl.handle("create event Review from 2025-06-02T09:00 to 2025-06-02T10:00");
+    ctrl.handle("edit events location Review from 2025-06-02T09:00 with Room4");
+    ctrl.handle("edit events description Review from 2025-06-02T09:00 with budget");
+    ctrl.handle("use calendar --name home");
+    ctrl.handle("create event Bills from 2025-06-03T19:00 to 2025-06-03T20:00");
+    ctrl.handle("edit events description Bills from 2025-06-03T19:00 with budget");
+
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    PrintStream oldOut = System.out;
+    System.setOut(new PrintStream(bout));
+    try {
+      ctrl.handle("search text budget");
+      ctrl.handle("search text budget at Room4");
+    } finally {
+      System.setOut(oldOut);
+    }
+    String[] lines = bout.toString().trim().split("\\R");
+    assertEquals(3, lines.length);
+    assertTrue(lines[0].contains("Review"));
+    assertTrue(lines[1].contains("Bills"));
+    assertTrue(lines[2].contains("Review") && lines[2].endsWith("@ Room4"));
+  }
+
+  @Test
+  public void conflictsPropertyControlsOverlappingEvents() {
+    CalendarManager mgr = new CalendarManager();
+    CommandController ctrl = new CommandController(mgr);
+    ctrl.handle("create calendar --name team --timezone America/New_York");
+    ctrl.handle("use calendar --name team");
+    ctrl.handle("create event Standup from 2025-06-02T09:00 to 2025-06-02T10:00");
+
+    ctrl.handle("edit calendar --name team --property conflicts warn");
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    PrintStream oldOut = System.out;
+    System.setOut(new PrintStream(bout));
+    try {
+      ctrl.handle("create event Review from 2025-06-02T09:30 to 2025-06-02T10:30");
+    } finally {
+      System.setOut(oldOut);
+    }
+    assertTrue(bout.toString().contains("Warning: event overlaps Standup"));
+
+    ctrl.handle("edit calendar --name team --property conflicts reject");
+    assertThrows(IllegalArgumentException.class, () ->
+            CommandController.handle(
+                    "create event Retro from 2025-06-02T09:45 to 2025-06-02T11:00"));
+    assertThrows(IllegalStateException.class, () ->
+            CommandController.handle("create event Sync from 2025-06-02T09:15 to 2025-06-02T09:45"
+                    + " repeats MTWRF for 3 times"));
+    assertEquals(2, mgr.getEventsBetween(
+            ZonedDateTime.of(2025, 6, 1, 0, 0, 0, 0, ZoneId.of("America/New_York")),
+            ZonedDateTime.of(2025, 6, 8, 0, 0, 0, 0, ZoneId.of("America/New_York"))).size());
+  }
+
+  @Test
+  public void statsEventsCommandPrintsHistogram() {
+    CalendarManager mgr = new CalendarManager();
+    CommandController ctrl = new CommandController(mgr);
+    ctrl.handle("create calendar --name team --timezone America/New_York");
+    ctrl.handle("use calendar --name team");
+    ctrl.handle("create event Standup from 2025-06-02T09:00 to 2025-06-02T10:00");
+    ctrl.handle("create event Review from 2025-06-02T09:30 to 2025-06-02T11:00");
+    ctrl.handle("create event Retro from 2025-06-04T15:00 to 2025-06-04T15:30");
+
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    PrintStream oldOut = System.out;
+    System.setOut(new PrintStream(bout));
+    try {
+      ctrl.handle("stats events from 2025-06-02T00:00 to 2025-06-09T00:00 by weekday");
+    } finally {
+      System.setOut(oldOut);
+    }
+    String out = bout.toString();
+    assertTrue(out.contains("Events: 3"));
+    assertTrue(out.contains("Total: 3h 00m"));
+    assertTrue(out.contains("Busy: 2h 30m"));
+    assertTrue(out.contains("MONDAY: 2 events, 2h 30m"));
+    assertTrue(out.contains("WEDNESDAY: 1 events, 0h 30m"));
+  }
 }
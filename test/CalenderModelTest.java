@@ -2,18 +2,31 @@ import model.IEvent;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import model.Event;
+import model.EventPage;
+import model.EventStats;
+import model.Granularity;
 import model.CalendarModel;
+import model.ConflictPolicy;
 import model.Status;
+import model.TextQuery;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 
@@ -92,4 +105,559 @@ public class CalenderModelTest {
     assertTrue(calendar.busyDuring(insideTime));
     assertFalse(calendar.busyDuring(boundaryTime));
   }
+
+  /**
+   * Tests a batch with a duplicate changes nothing.
+   */
+  @Test
+  public void addAllIsAllOrNothing() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 10, 9, 0).atZone(zone);
+    Event existing = new Event("A", nine, nine.plusHours(1), null, Status.Public, null);
+    Event fresh = new Event("B", nine.plusHours(2), nine.plusHours(3), null, Status.Public, null);
+    Event other = new Event("C", nine.plusHours(4), nine.plusHours(5), null, Status.Public, null);
+    calendar.addEvent(existing);
+
+    assertFalse(calendar.addAll(List.of(fresh, existing)));
+    assertFalse(calendar.addAll(List.of(fresh, other, fresh)));
+    assertEquals(1, calendar.getEventsOn(LocalDate.of(2025, 6, 10)).size());
+
+    assertTrue(calendar.addAll(List.of(fresh, other)));
+    assertEquals(List.of(existing, fresh, other),
+            calendar.getEventsOn(LocalDate.of(2025, 6, 10)));
+  }
+
+  /**
+   * Tests that an edited event keeps its id and can be found by it.
+   */
+  @Test
+  public void editByIdKeepsId() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 10, 9, 0).atZone(zone);
+    Event standup = new Event("Standup", nine, nine.plusMinutes(15), "", Status.Public, "");
+    calendar.addEvent(standup);
+    long id = standup.getId();
+
+    Event moved = new Event("Standup", nine.plusHours(1), nine.plusHours(1).plusMinutes(15),
+            "Room 2", Status.Public, "");
+    assertTrue(calendar.editEventById(id, moved));
+    assertEquals("Room 2", calendar.getEvent(id).get().getLocation());
+    assertTrue(calendar.editEvent("Standup", nine.plusHours(1), standup));
+    assertEquals(nine, calendar.getEvent(id).get().getStartDateTime());
+    assertTrue(calendar.removeEventById(id));
+    assertFalse(calendar.getEvent(id).isPresent());
+    assertTrue(calendar.getEventsOn(LocalDate.of(2025, 6, 10)).isEmpty());
+  }
+
+  /**
+   * Tests that a failed edit leaves the old event in place.
+   */
+  @Test
+  public void editOntoDuplicateChangesNothing() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 10, 9, 0).atZone(zone);
+    Event a = new Event("A", nine, nine.plusHours(1), "", Status.Public, "");
+    Event b = new Event("B", nine, nine.plusHours(1), "", Status.Public, "");
+    calendar.addEvent(a);
+    calendar.addEvent(b);
+    assertFalse(calendar.editEventById(a.getId(),
+            new Event("B", nine, nine.plusHours(1), "", Status.Public, "")));
+    assertEquals(2, calendar.getEventsOn(LocalDate.of(2025, 6, 10)).size());
+    assertTrue(calendar.getEvent(a.getId()).isPresent());
+  }
+
+  /**
+   * Tests lookups by id while many events come and go.
+   */
+  @Test
+  public void idLookupsSurviveChurn() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 10, 9, 0).atZone(zone);
+    List<Event> added = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      Event e = new Event("E" + i, nine.plusMinutes(i), nine.plusMinutes(i + 30),
+              "", Status.Public, "");
+      added.add(e);
+      calendar.addEvent(e);
+    }
+    for (int i = 0; i < 2000; i += 2) {
+      assertTrue(calendar.removeEventById(added.get(i).getId()));
+    }
+    for (int i = 0; i < 2000; i++) {
+      assertEquals(i % 2 == 1, calendar.getEvent(added.get(i).getId()).isPresent());
+    }
+  }
+
+  /**
+   * Tests that changing the zone shows stored events in the new zone.
+   */
+  @Test
+  public void zoneChangeIsAView() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 10, 9, 0).atZone(zone);
+    Event standup = new Event("Standup", nine, nine.plusMinutes(15), "", Status.Public, "");
+    calendar.addEvent(standup);
+    assertEquals(9, calendar.getEventsOn(LocalDate.of(2025, 6, 10))
+            .get(0).getStartDateTime().getHour());
+
+    calendar.setZoneId(ZoneId.of("Asia/Tokyo"));
+    IEvent shown = calendar.getEventsOn(LocalDate.of(2025, 6, 10)).get(0);
+    assertEquals(22, shown.getStartDateTime().getHour());
+    assertEquals(standup, shown);
+    assertEquals(standup.getId(), shown.getId());
+    assertTrue(calendar.findEvent("Standup", LocalDateTime.of(2025, 6, 10, 22, 0)).isPresent());
+    assertTrue(calendar.removeEvent(shown));
+  }
+
+  /**
+   * Tests that repeated queries see later changes.
+   */
+  @Test
+  public void repeatedQuerySeesChanges() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 10, 9, 0).atZone(zone);
+    LocalDate day = LocalDate.of(2025, 6, 10);
+    calendar.addEvent(new Event("A", nine, nine.plusHours(1), "", Status.Public, ""));
+    assertEquals(1, calendar.getEventsOn(day).size());
+    calendar.getEventsOn(day).clear();
+    assertEquals(1, calendar.getEventsOn(day).size());
+    calendar.addEvent(new Event("B", nine, nine.plusHours(1), "", Status.Public, ""));
+    assertEquals(2, calendar.getEventsOn(day).size());
+  }
+
+  /**
+   * Tests that a series edit only replaces later events of that subject.
+   */
+  @Test
+  public void editSeriesFromReplacesLaterEvents() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 2, 9, 0).atZone(zone);
+    List<Event> standups = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Event e = new Event("Standup", nine.plusDays(i), nine.plusDays(i).plusMinutes(15),
+              "Room 1", Status.Public, "");
+      standups.add(e);
+      calendar.addEvent(e);
+    }
+    calendar.addEvent(new Event("Lunch", nine.plusDays(3), nine.plusDays(3).plusHours(1),
+            "Room 1", Status.Public, ""));
+
+    int edited = calendar.editSeriesFrom("Standup", nine.plusDays(2),
+        e -> new Event(e.getSubject(), e.getStartDateTime(), e.getEndDateTime(),
+                "Room 2", e.getStatus(), e.getDescription()));
+    assertEquals(3, edited);
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i < 2 ? "Room 1" : "Room 2",
+              calendar.getEvent(standups.get(i).getId()).get().getLocation());
+    }
+    assertEquals("Room 1", calendar.getEventsOn(LocalDate.of(2025, 6, 5)).stream()
+            .filter(e -> e.getSubject().equals("Lunch")).findFirst().get().getLocation());
+  }
+
+  /**
+   * Tests that a range edit creating a duplicate changes nothing.
+   */
+  @Test
+  public void editBetweenIsAllOrNothing() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 2, 9, 0).atZone(zone);
+    calendar.addEvent(new Event("A", nine, nine.plusHours(1), "", Status.Public, ""));
+    calendar.addEvent(new Event("B", nine.plusHours(2), nine.plusHours(3), "",
+            Status.Public, ""));
+    int edited = calendar.editEventBetween(nine, nine.plusHours(3),
+        e -> new Event("Same", nine, nine.plusHours(1), "", Status.Public, ""));
+    assertEquals(0, edited);
+    assertTrue(calendar.findEvent("A", nine.toLocalDateTime()).isPresent());
+    assertEquals(2, calendar.editEventBetween(nine, nine.plusHours(3),
+        e -> new Event(e.getSubject(), e.getStartDateTime(), e.getEndDateTime(), "",
+                Status.Private, "")));
+    assertTrue(calendar.getEventsOn(LocalDate.of(2025, 6, 2)).stream()
+            .allMatch(e -> e.getStatus() == Status.Private));
+  }
+
+  /**
+   * Tests prefix search with and without a window, after removals.
+   */
+  @Test
+  public void searchByPrefix() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 2, 9, 0).atZone(zone);
+    String[] subjects = {"Sprint planning", "Sprint review", "Spring party", "Standup",
+        "Sprint", "S", "Retro"};
+    List<Event> added = new ArrayList<>();
+    for (int i = 0; i < subjects.length; i++) {
+      for (int day = 0; day < 3; day++) {
+        ZonedDateTime start = nine.plusDays(day).plusHours(i);
+        Event e = new Event(subjects[i], start, start.plusMinutes(30), "", Status.Public, "");
+        added.add(e);
+        calendar.addEvent(e);
+      }
+    }
+    assertEquals(9, calendar.searchByPrefix("Sprint", null, null).size());
+    assertEquals(12, calendar.searchByPrefix("Sprin", null, null).size());
+    assertEquals(18, calendar.searchByPrefix("S", null, null).size());
+    assertEquals(0, calendar.searchByPrefix("Sprints", null, null).size());
+    assertEquals(21, calendar.searchByPrefix("", null, null).size());
+
+    List<IEvent> monday = calendar.searchByPrefix("Sprint", nine, nine.plusHours(23));
+    assertEquals(List.of("Sprint planning", "Sprint review", "Sprint"),
+            monday.stream().map(IEvent::getSubject).collect(Collectors.toList()));
+
+    for (Event e : added) {
+      if (e.getSubject().equals("Sprint") || e.getSubject().equals("Sprint review")) {
+        calendar.removeEvent(e);
+      }
+    }
+    assertEquals(3, calendar.searchByPrefix("Sprint", null, null).size());
+    assertEquals(3, calendar.searchByPrefix("Sprint p", null, null).size());
+    assertEquals(6, calendar.searchByPrefix("Spri", null, null).size());
+  }
+
+  /**
+   * Tests text search by field, with and/or, a window, and after edits.
+   */
+  @Test
+  public void searchTextUsesDescriptionAndLocation() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 2, 9, 0).atZone(zone);
+    Event budget = new Event("Finance", nine, nine.plusHours(1), "Room 4",
+            Status.Public, "Q3 budget review");
+    Event forecast = new Event("Finance sync", nine.plusDays(1), nine.plusDays(1).plusHours(1),
+            "Room 12", Status.Public, "Budget and forecast");
+    Event lunch = new Event("Lunch", nine.plusHours(3), nine.plusHours(4), "Cafe",
+            Status.Public, "Team lunch near room 4");
+    calendar.addEvent(budget);
+    calendar.addEvent(forecast);
+    calendar.addEvent(lunch);
+
+    assertEquals(2, calendar.searchText(TextQuery.description("BUDGET"), null, null).size());
+    List<IEvent> atRoom4 = calendar.searchText(
+            TextQuery.and(TextQuery.description("budget"), TextQuery.location("Room 4")),
+            null, null);
+    assertEquals(1, atRoom4.size());
+    assertEquals("Finance", atRoom4.get(0).getSubject());
+    assertEquals(1, calendar.searchText(TextQuery.location("room 4"), null, null).size());
+    assertEquals(3, calendar.searchText(
+            TextQuery.or(TextQuery.anywhere("forecast"), TextQuery.anywhere("room 4")),
+            null, null).size());
+    assertEquals(1, calendar.searchText(TextQuery.description("budget"),
+            nine.plusDays(1), nine.plusDays(2)).size());
+
+    long before = calendar.textIndexBytes();
+    assertTrue(calendar.editEventById(lunch.getId(), new Event("Lunch", nine.plusHours(3),
+            nine.plusHours(4), "Cafe", Status.Public, "Budget lunch")));
+    assertEquals(3, calendar.searchText(TextQuery.description("budget"), null, null).size());
+    assertEquals(0, calendar.searchText(TextQuery.description("team"), null, null).size());
+
+    calendar.removeEventById(lunch.getId());
+    calendar.removeEventById(forecast.getId());
+    assertEquals(List.of("Finance"), calendar.searchText(TextQuery.anywhere("budget"),
+            null, null).stream().map(IEvent::getSubject).collect(Collectors.toList()));
+    assertTrue(calendar.textIndexBytes() < before);
+    calendar.removeEventById(budget.getId());
+    assertEquals(0, calendar.searchText(TextQuery.anywhere("budget"), null, null).size());
+  }
+
+  /**
+   * Tests the reject policy on single inserts and batches, and conflict listing.
+   */
+  @Test
+  public void conflictPolicyRejectsOverlaps() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 2, 9, 0).atZone(zone);
+    calendar.addEvent(new Event("Standup", nine, nine.plusHours(1), "", Status.Public, ""));
+    Event overlapping = new Event("Review", nine.plusMinutes(30), nine.plusHours(2), "",
+            Status.Public, "");
+    Event touching = new Event("Lunch", nine.plusHours(1), nine.plusHours(2), "",
+            Status.Public, "");
+
+    assertEquals(ConflictPolicy.ALLOW, calendar.getConflictPolicy());
+    assertEquals(List.of("Standup"), calendar.getConflicts(List.of(overlapping)).stream()
+            .map(IEvent::getSubject).collect(Collectors.toList()));
+    assertTrue(calendar.getConflicts(List.of(touching)).isEmpty());
+
+    calendar.setConflictPolicy(ConflictPolicy.REJECT);
+    assertFalse(calendar.addEvent(overlapping));
+    assertTrue(calendar.addEvent(touching));
+
+    List<Event> week = new ArrayList<>();
+    for (int day = 1; day < 5; day++) {
+      week.add(new Event("Sync", nine.plusDays(day), nine.plusDays(day).plusMinutes(30), "",
+              Status.Public, ""));
+    }
+    List<Event> clashing = new ArrayList<>(week);
+    clashing.add(new Event("Sync", nine.plusMinutes(45), nine.plusHours(1).plusMinutes(15),
+            "", Status.Public, ""));
+    assertFalse(calendar.addAll(clashing));
+    assertEquals(2, calendar.getEventsBetween(nine, nine.plusDays(7)).size());
+    assertTrue(calendar.addAll(week));
+
+    List<Event> selfOverlap = List.of(
+            new Event("A", nine.plusDays(8), nine.plusDays(8).plusHours(1), "", Status.Public, ""),
+            new Event("B", nine.plusDays(8).plusMinutes(10), nine.plusDays(8).plusHours(2), "",
+                    Status.Public, ""));
+    assertFalse(calendar.addAll(selfOverlap));
+    assertEquals(1, calendar.getConflicts(selfOverlap).size());
+    assertEquals(ConflictPolicy.REJECT, calendar.copy().getConflictPolicy());
+  }
+
+  /**
+   * Tests that edits under the reject policy cannot move an event into another one,
+   * while an event may still be edited in place.
+   */
+  @Test
+  public void conflictPolicyRejectsEditsIntoOverlaps() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 2, 9, 0).atZone(zone);
+    Event standup = new Event("Standup", nine, nine.plusHours(1), "", Status.Public, "");
+    Event review = new Event("Review", nine.plusHours(2), nine.plusHours(3), "",
+            Status.Public, "");
+    calendar.addEvent(standup);
+    calendar.addEvent(review);
+    calendar.setConflictPolicy(ConflictPolicy.REJECT);
+
+    assertFalse(calendar.editEventById(review.getId(), new Event("Review",
+            nine.plusMinutes(30), nine.plusHours(2), "", Status.Public, "")));
+    assertFalse(calendar.editEvent("Review", nine.plusHours(2), new Event("Review",
+            nine.plusMinutes(59), nine.plusHours(3), "", Status.Public, "")));
+    assertEquals(nine.plusHours(2), calendar.getEvent(review.getId()).get().getStartDateTime());
+    assertEquals(0, calendar.editEventBetween(nine, nine.plusHours(4),
+        e -> new Event(e.getSubject(), nine, nine.plusHours(1), "", Status.Public, "late")));
+    assertEquals(0, calendar.editSeriesFrom("Review", nine, e -> new Event("Review",
+            nine.plusMinutes(15), nine.plusHours(3), "", Status.Public, "")));
+
+    assertTrue(calendar.editEventById(review.getId(), new Event("Review",
+            nine.plusHours(2).plusMinutes(30), nine.plusHours(3), "", Status.Public, "")));
+    assertEquals(2, calendar.editEventBetween(nine, nine.plusHours(4),
+        e -> new Event(e.getSubject(), e.getStartDateTime(), e.getEndDateTime(),
+                "Room 1", Status.Public, "")));
+  }
+
+  /**
+   * Tests walking a window page by page with cursors.
+   */
+  @Test
+  public void queryPagesThroughWindow() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 2, 9, 0).atZone(zone);
+    for (int i = 0; i < 25; i++) {
+      ZonedDateTime start = nine.plusHours(i / 2);
+      calendar.addEvent(new Event("E" + i, start, start.plusMinutes(20), "", Status.Public, ""));
+    }
+    ZonedDateTime to = nine.plusDays(1);
+    List<String> seen = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      EventPage page = calendar.query(nine, to, 10, cursor);
+      page.getEvents().forEach(e -> seen.add(e.getSubject()));
+      cursor = page.getNextCursor();
+      pages++;
+      if (pages == 1) {
+        calendar.addEvent(new Event("Early", nine.minusHours(1), nine.minusMinutes(30), "",
+                Status.Public, ""));
+      }
+    } while (cursor != null);
+    assertEquals(3, pages);
+    assertEquals(25, seen.size());
+    assertEquals(List.of("E0", "E1", "E2"), seen.subList(0, 3));
+    assertEquals("E24", seen.get(24));
+    assertEquals(calendar.getEventsBetween(nine, to).size(), seen.size());
+
+    EventPage all = calendar.query(nine.minusHours(2), to, 100, null);
+    assertEquals(26, all.getEvents().size());
+    assertFalse(all.hasNext());
+    assertThrows(IllegalArgumentException.class, () -> calendar.query(nine, to, 0, null));
+    assertThrows(IllegalArgumentException.class, () -> calendar.query(nine, to, 5, "nope"));
+  }
+
+  /**
+   * Tests streams and spliterators against the list queries.
+   */
+  @Test
+  public void streamMatchesListQueries() {
+    ZonedDateTime nine = LocalDateTime.of(2025, 6, 2, 9, 0).atZone(zone);
+    for (int i = 0; i < 500; i++) {
+      ZonedDateTime start = nine.plusMinutes(37L * i);
+      calendar.addEvent(new Event("E" + i, start, start.plusMinutes(50), "", Status.Public, ""));
+    }
+    ZonedDateTime from = nine.plusDays(2);
+    ZonedDateTime to = nine.plusDays(5);
+    List<IEvent> expected = calendar.getEventsBetween(from, to);
+    assertEquals(expected, calendar.stream(from, to).collect(Collectors.toList()));
+    assertEquals(expected.size(), calendar.stream(from, to).parallel().count());
+    assertEquals(expected.subList(0, 3),
+            calendar.stream(from, to).limit(3).collect(Collectors.toList()));
+
+    Spliterator<IEvent> window = calendar.spliterator(from, to);
+    assertTrue(window.hasCharacteristics(Spliterator.SORTED | Spliterator.ORDERED));
+    assertFalse(window.hasCharacteristics(Spliterator.SIZED));
+    Spliterator<IEvent> all = calendar.spliterator(null, null);
+    assertTrue(all.hasCharacteristics(Spliterator.SIZED));
+    assertEquals(500, all.getExactSizeIfKnown());
+    Spliterator<IEvent> prefix = all.trySplit();
+    List<IEvent> joined = new ArrayList<>();
+    prefix.forEachRemaining(joined::add);
+    all.forEachRemaining(joined::add);
+    assertEquals(calendar.getEventsBetween(nine.minusDays(1), nine.plusDays(30)), joined);
+  }
+
+  /**
+   * Tests counts, clipped and merged durations, and the three histograms.
+   */
+  @Test
+  public void aggregateCountsAndMergesBusyTime() {
+    ZonedDateTime monday = LocalDateTime.of(2025, 6, 2, 0, 0).atZone(zone);
+    calendar.addEvent(new Event("Late", monday.minusHours(1), monday.plusHours(1), "",
+            Status.Public, ""));
+    calendar.addEvent(new Event("A", monday.plusHours(9), monday.plusHours(10), "",
+            Status.Public, ""));
+    calendar.addEvent(new Event("B", monday.plusMinutes(570), monday.plusHours(11), "",
+            Status.Public, ""));
+    calendar.addEvent(new Event("C", monday.plusDays(1).plusHours(14),
+            monday.plusDays(1).plusMinutes(870), "", Status.Public, ""));
+    calendar.addEvent(new Event("D", monday.plusDays(6).plusHours(23),
+            monday.plusDays(7).plusHours(1), "", Status.Public, ""));
+    ZonedDateTime to = monday.plusDays(7);
+
+    EventStats days = calendar.aggregate(monday, to, Granularity.DAY);
+    assertEquals(5, days.getCount());
+    assertEquals(Duration.ofMinutes(300), days.getTotalDuration());
+    assertEquals(Duration.ofMinutes(270), days.getBusyDuration());
+    assertEquals(Duration.ofMinutes(60), days.getAverageDuration());
+    assertEquals(8, days.buckets());
+    assertArrayEquals(new long[] {3, 1, 0, 0, 0, 0, 1, 0}, days.getCounts());
+    assertEquals("2025-06-02", days.label(0));
+    assertEquals(Duration.ofMinutes(210), days.getDuration(0));
+
+    EventStats weekdays = calendar.aggregate(monday, to, Granularity.WEEKDAY);
+    assertArrayEquals(new long[] {3, 1, 0, 0, 0, 0, 1}, weekdays.getCounts());
+    assertEquals("SUNDAY", weekdays.label(6));
+
+    long[] hours = calendar.aggregate(monday, to, Granularity.HOUR).getCounts();
+    assertEquals(1, hours[0]);
+    assertEquals(2, hours[9]);
+    assertEquals(1, hours[14]);
+    assertEquals(1, hours[23]);
+    assertEquals(0, calendar.aggregate(to.plusDays(1), to.plusDays(2), Granularity.DAY)
+            .getCount());
+  }
+
+  /**
+   * Tests that events started long before a window are still found, once, by every
+   * kind of window query, in start and id order.
+   */
+  @Test
+  public void longRunningEventsJoinEveryWindow() {
+    ZonedDateTime monday = LocalDateTime.of(2025, 6, 2, 0, 0).atZone(zone);
+    calendar.addEvent(new Event("Quarter", monday.minusDays(60), monday.plusDays(30), "",
+            Status.Public, ""));
+    calendar.addEvent(new Event("Leave", monday.minusDays(2), monday.plusDays(2), "",
+            Status.Public, ""));
+    calendar.addEvent(new Event("Trip", monday.minusDays(2), monday.plusDays(1), "",
+            Status.Public, ""));
+    for (int i = -59; i < 30; i++) {
+      calendar.addEvent(new Event("Daily", monday.plusDays(i).plusHours(9),
+              monday.plusDays(i).plusHours(10), "", Status.Public, ""));
+    }
+    ZonedDateTime from = monday.plusHours(8);
+    ZonedDateTime to = monday.plusHours(12);
+    assertWindow(calendar.getEventsBetween(from, to));
+    assertWindow(calendar.stream(from, to).collect(Collectors.toList()));
+    assertEquals(4, calendar.aggregate(from, to, Granularity.DAY).getCount());
+    assertTrue(calendar.busyDuring(from));
+
+    List<IEvent> paged = new ArrayList<>();
+    String cursor = null;
+    do {
+      EventPage page = calendar.query(from, to, 1, cursor);
+      paged.addAll(page.getEvents());
+      cursor = page.getNextCursor();
+    } while (cursor != null);
+    assertEquals(4, paged.size());
+    assertEquals("Quarter", paged.get(0).getSubject());
+    assertTrue(paged.get(1).getId() < paged.get(2).getId());
+    assertEquals("Daily", paged.get(3).getSubject());
+
+    Spliterator<IEvent> all = calendar.spliterator(from, to);
+    Spliterator<IEvent> prefix = all.trySplit();
+    List<IEvent> split = new ArrayList<>();
+    prefix.forEachRemaining(split::add);
+    all.forEachRemaining(split::add);
+    assertWindow(split);
+  }
+
+  private static void assertWindow(List<IEvent> events) {
+    assertEquals(List.of("Daily", "Leave", "Quarter", "Trip"), events.stream()
+            .map(IEvent::getSubject).sorted().collect(Collectors.toList()));
+    for (int i = 1; i < events.size(); i++) {
+      assertFalse(events.get(i).getStartDateTime()
+              .isBefore(events.get(i - 1).getStartDateTime()));
+    }
+  }
+
+  /**
+   * Tests that materialized agendas follow adds, edits and removes, and that a list
+   * handed out earlier does not change.
+   */
+  @Test
+  public void agendaFollowsChanges() {
+    ZonedDateTime monday = LocalDateTime.of(2025, 6, 2, 0, 0).atZone(zone);
+    LocalDate today = monday.toLocalDate();
+    calendar.addEvent(new Event("B", monday.plusHours(11), monday.plusHours(12), "",
+            Status.Public, ""));
+    calendar.setAgendaWindow(1, 7, Clock.fixed(monday.plusHours(8).toInstant(), zone));
+    List<IEvent> before = calendar.getAgenda(today);
+    assertEquals(1, before.size());
+
+    calendar.addEvent(new Event("A", monday.plusHours(9), monday.plusHours(10), "",
+            Status.Public, ""));
+    calendar.addEvent(new Event("Trip", monday.plusHours(20), monday.plusDays(2), "",
+            Status.Public, ""));
+    assertEquals(1, before.size());
+    assertEquals(List.of("A", "B", "Trip"), subjects(calendar.getAgenda(today)));
+    assertEquals(List.of("Trip"), subjects(calendar.getAgenda(today.plusDays(1))));
+    assertEquals(subjects(calendar.getEventsOn(today.plusDays(2))),
+            subjects(calendar.getAgenda(today.plusDays(2))));
+
+    IEvent a = calendar.getAgenda(today).get(0);
+    calendar.editEventById(a.getId(), new Event("A", monday.plusHours(13),
+            monday.plusHours(14), "", Status.Public, ""));
+    assertEquals(List.of("B", "A", "Trip"), subjects(calendar.getAgenda(today)));
+    calendar.removeEventById(a.getId());
+    assertEquals(List.of("B", "Trip"), subjects(calendar.getAgenda(today)));
+    assertEquals(subjects(calendar.getEventsOn(today)), subjects(calendar.getAgenda(today)));
+    assertThrows(UnsupportedOperationException.class,
+        () -> calendar.getAgenda(today).clear());
+  }
+
+  /**
+   * Tests that the window rolls with the clock and that days outside it still answer.
+   */
+  @Test
+  public void agendaRollsWithClock() {
+    ZonedDateTime monday = LocalDateTime.of(2025, 6, 2, 0, 0).atZone(zone);
+    Instant[] now = {monday.plusHours(8).toInstant()};
+    Clock clock = new Clock() {
+      @Override
+      public ZoneId getZone() {
+        return zone;
+      }
+
+      @Override
+      public Clock withZone(ZoneId other) {
+        return this;
+      }
+
+      @Override
+      public Instant instant() {
+        return now[0];
+      }
+    };
+    calendar.setAgendaWindow(0, 0, clock);
+    LocalDate next = monday.toLocalDate().plusDays(3);
+    calendar.addEvent(new Event("Later", monday.plusDays(3).plusHours(9),
+            monday.plusDays(3).plusHours(10), "", Status.Public, ""));
+    assertEquals(List.of("Later"), subjects(calendar.getAgenda(next)));
+    now[0] = monday.plusDays(3).plusHours(8).toInstant();
+    assertEquals(List.of("Later"), subjects(calendar.getAgenda(next)));
+    calendar.addEvent(new Event("Sooner", monday.plusDays(3).plusHours(7),
+            monday.plusDays(3).plusHours(8), "", Status.Public, ""));
+    assertEquals(List.of("Sooner", "Later"), subjects(calendar.getAgenda(next)));
+    calendar.clearAgendaWindow();
+    assertEquals(List.of("Sooner", "Later"), subjects(calendar.getAgenda(next)));
+    assertThrows(UnsupportedOperationException.class,
+        () -> calendar.getAgenda(next.plusDays(9)).clear());
+  }
+
+  private static List<String> subjects(List<IEvent> events) {
+    return events.stream().map(IEvent::getSubject).collect(Collectors.toList());
+  }
 }
@@ -0,0 +1,214 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import model.CalendarManager;
+import model.ChangeFeed;
+import model.ChangeRecord;
+import model.Event;
+import model.IEvent;
+import model.Status;
+import model.VersionedCalendarModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing the change feed of the calendar manager and its ring buffer.
+ */
+public class ChangeFeedTest {
+  private final ZoneId ny = ZoneId.of("America/New_York");
+  private final ZonedDateTime day = ZonedDateTime.of(2025, 6, 2, 9, 0, 0, 0, ny);
+  private CalendarManager manager;
+  private ChangeFeed.Subscription feed;
+
+  /**
+   * A manager with a work calendar in use, followed from after its creation.
+   */
+  @Before
+  public void setUp() {
+    manager = new CalendarManager();
+    manager.createCalendar("work", ny);
+    manager.useCalendar("work");
+    feed = manager.changes().subscribe();
+  }
+
+  private List<ChangeRecord> drain() {
+    List<ChangeRecord> records = new ArrayList<>();
+    feed.drain(records::add, Integer.MAX_VALUE);
+    return records;
+  }
+
+  private static List<ChangeRecord.Type> types(List<ChangeRecord> records) {
+    return records.stream().map(ChangeRecord::getType).collect(Collectors.toList());
+  }
+
+  @Test
+  public void recordsEventAndCalendarChangesInOrder() {
+    manager.addEvent(new Event("Standup", day, day.plusHours(1), "", Status.Public, ""));
+    IEvent standup = manager.getEventsBetween(day, day.plusHours(1)).get(0);
+    manager.editEventById(standup.getId(), new Event("Sync", day, day.plusHours(1), "",
+            Status.Public, ""));
+    manager.removeEventById(standup.getId());
+    manager.editTimeZones("work", ZoneId.of("Europe/Paris"));
+    manager.changingCalendarName("work", "office");
+    manager.deleteCalendar("office");
+
+    List<ChangeRecord> records = drain();
+    assertEquals(List.of(ChangeRecord.Type.EVENT_ADDED, ChangeRecord.Type.EVENT_EDITED,
+            ChangeRecord.Type.EVENT_REMOVED, ChangeRecord.Type.ZONE_CHANGED,
+            ChangeRecord.Type.CALENDAR_RENAMED, ChangeRecord.Type.CALENDAR_DELETED),
+            types(records));
+    for (int i = 1; i < records.size(); i++) {
+      assertEquals(records.get(i - 1).getSequence() + 1, records.get(i).getSequence());
+    }
+    assertEquals("Standup", records.get(1).getBefore().getSubject());
+    assertEquals("Sync", records.get(1).getAfter().getSubject());
+    assertEquals(standup.getId(), records.get(2).getBefore().getId());
+    assertEquals("Europe/Paris", records.get(3).getDetail());
+    assertEquals("work", records.get(4).getDetail());
+    assertEquals("office", records.get(4).getCalendar());
+    assertNull(feed.poll());
+  }
+
+  @Test
+  public void replaysFromSequence() {
+    long first = manager.changes().lastSequence() + 1;
+    manager.addEvent(new Event("A", day, day.plusHours(1), "", Status.Public, ""));
+    manager.addEvent(new Event("B", day.plusHours(2), day.plusHours(3), "", Status.Public,
+            ""));
+    ChangeFeed.Subscription replay = manager.changes().subscribe(1);
+    List<ChangeRecord> all = new ArrayList<>();
+    replay.drain(all::add, Integer.MAX_VALUE);
+    assertEquals(ChangeRecord.Type.CALENDAR_CREATED, all.get(0).getType());
+    assertEquals("default", all.get(0).getCalendar());
+    assertEquals("B", all.get(all.size() - 1).getAfter().getSubject());
+    assertEquals(first + 1, all.get(all.size() - 1).getSequence());
+    assertThrows(IllegalArgumentException.class,
+        () -> manager.changes().subscribe(manager.changes().lastSequence() + 2));
+  }
+
+  @Test
+  public void transactionReportsOnlyWhenCommitted() {
+    manager.begin().add("work", new Event("A", day, day.plusHours(1), "", Status.Public, ""))
+            .abort();
+    assertTrue(drain().isEmpty());
+    manager.begin().add("work", new Event("A", day, day.plusHours(1), "", Status.Public, ""))
+            .add("work", new Event("B", day.plusHours(1), day.plusHours(2), "",
+                    Status.Public, "")).commit();
+    assertEquals(2, drain().size());
+    manager.addEvent(new Event("C", day.plusHours(3), day.plusHours(4), "", Status.Public,
+            ""));
+    assertEquals(List.of(ChangeRecord.Type.EVENT_ADDED), types(drain()));
+  }
+
+  @Test
+  public void undoReportsTheDifference() {
+    CalendarManager history = new CalendarManager(true);
+    history.createCalendar("work", ny);
+    history.useCalendar("work");
+    ChangeFeed.Subscription changes = history.changes().subscribe();
+    history.addEvent(new Event("A", day, day.plusHours(1), "", Status.Public, ""));
+    IEvent a = history.getEventsBetween(day, day.plusHours(1)).get(0);
+    history.editEventById(a.getId(), new Event("A", day.plusHours(2), day.plusHours(3), "",
+            Status.Public, ""));
+    ((VersionedCalendarModel) history.getCurrentCalendar()).undo();
+    List<ChangeRecord> records = new ArrayList<>();
+    changes.drain(records::add, Integer.MAX_VALUE);
+    assertEquals(List.of(ChangeRecord.Type.EVENT_ADDED, ChangeRecord.Type.EVENT_EDITED,
+            ChangeRecord.Type.EVENT_EDITED), types(records));
+    assertEquals(day, records.get(2).getAfter().getStartDateTime());
+  }
+
+  /**
+   * Undo over a large calendar reports just the changed events, including an edit
+   * that keeps the times and subject.
+   */
+  @Test
+  public void undoReportsOnlyChangedEvents() {
+    CalendarManager history = new CalendarManager(true);
+    history.createCalendar("work", ny);
+    history.useCalendar("work");
+    for (int i = 0; i < 500; i++) {
+      history.addEvent(new Event("E" + i, day.plusHours(i), day.plusHours(i).plusMinutes(30),
+              "", Status.Public, ""));
+    }
+    IEvent e7 = history.getEventsBetween(day.plusHours(7), day.plusHours(7)).get(0);
+    history.editEventById(e7.getId(), new Event("E7", e7.getStartDateTime(),
+            e7.getEndDateTime(), "Room 2", Status.Public, "moved rooms"));
+    ChangeFeed.Subscription changes = history.changes().subscribe();
+    VersionedCalendarModel calendar = (VersionedCalendarModel) history.getCurrentCalendar();
+    calendar.undo();
+    calendar.undo();
+    List<ChangeRecord> records = new ArrayList<>();
+    changes.drain(records::add, Integer.MAX_VALUE);
+    assertEquals(List.of(ChangeRecord.Type.EVENT_EDITED, ChangeRecord.Type.EVENT_REMOVED),
+            types(records));
+    assertEquals("Room 2", records.get(0).getBefore().getLocation());
+    assertEquals("", records.get(0).getAfter().getLocation());
+    assertEquals("E499", records.get(1).getBefore().getSubject());
+  }
+
+  /**
+   * More changes than the ring holds; the writer must wait instead of overwriting.
+   */
+  @Test
+  public void writersWaitForSlowSubscriber() throws InterruptedException {
+    assertThrows(IllegalArgumentException.class, () -> new ChangeFeed(6));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ChangeFeed(8, Duration.ofMillis(-1)));
+    CalendarManager small = new CalendarManager();
+    ChangeFeed.Subscription slow = small.changes().subscribe();
+    Thread writer = new Thread(() -> {
+      for (int i = 0; i < 5000; i++) {
+        small.addEvent(new Event("E" + i, day.plusHours(i), day.plusHours(i).plusMinutes(30),
+                "", Status.Public, ""));
+      }
+    });
+    writer.setDaemon(true);
+    writer.start();
+    long expected = slow.position();
+    int read = 0;
+    while (read < 5000) {
+      ChangeRecord record = slow.poll();
+      if (record != null) {
+        assertEquals(expected++, record.getSequence());
+        read++;
+      }
+    }
+    writer.join();
+    assertEquals(0, slow.lag());
+    slow.close();
+  }
+
+  /**
+   * A batch larger than the ring, reported on the thread that owns the subscription;
+   * the writer must give up on it after a bounded wait instead of deadlocking.
+   */
+  @Test(timeout = 10_000)
+  public void batchOnSubscriberThreadDropsIt() {
+    List<IEvent> batch = new ArrayList<>();
+    for (int i = 0; i < manager.changes().capacity() + 100; i++) {
+      batch.add(new Event("E" + i, day.plusHours(i), day.plusHours(i).plusMinutes(30), "",
+              Status.Public, ""));
+    }
+    assertTrue(manager.getCurrentCalendar().addAll(batch));
+
+    assertTrue(feed.isDropped());
+    assertThrows(IllegalStateException.class, feed::poll);
+    ChangeFeed.Subscription fresh = manager.changes().subscribe();
+    manager.addEvent(new Event("After", day.minusHours(2), day.minusHours(1), "",
+            Status.Public, ""));
+    assertEquals("After", fresh.poll().getAfter().getSubject());
+    assertFalse(fresh.isDropped());
+  }
+}
@@ -1,15 +1,18 @@
 import org.junit.Test;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import model.Event;
+import model.IEvent;
 import model.Status;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -75,4 +78,36 @@ public class EventTest {
 
     assertFalse(e.occursDate(LocalDate.of(2025, 6, 11)));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void repeatedFieldsShareOneInstance() {
+    ZonedDateTime start = ZonedDateTime.of(2025, 6, 10, 9, 0, 0, 0, ZoneId.of("Europe/Paris"));
+    Event a = new Event(new String("Standup"), start, start.plusMinutes(15),
+            new String("Room 1"), Status.Public, new String("Daily sync"));
+    Event b = new Event(new String("Standup "), start.plusDays(1),
+            start.plusDays(1).plusMinutes(15), new String("Room 1"), Status.Public,
+            new String("Daily sync"));
+    assertSame(a.getSubject(), b.getSubject());
+    assertSame(a.getLocation(), b.getLocation());
+    assertSame(a.getDescription(), b.getDescription());
+    assertSame(a.getStartDateTime().getZone(), b.getEndDateTime().getZone());
+    assertEquals(start, a.getStartDateTime());
+  }
+
+  @Test
+  public void shiftCopyMatchesZoneRulesAcrossTransitions() {
+    ZoneId[] zones = {ZoneId.of("Europe/London"), ZoneId.of("Australia/Lord_Howe"),
+        ZoneId.of("Asia/Kolkata"), ZoneId.of("UTC")};
+    ZonedDateTime start = ZonedDateTime.of(2025, 3, 1, 0, 30, 0, 0, zone);
+    for (int h = 0; h < 24 * 300; h += 7) {
+      ZonedDateTime s = start.plusHours(h);
+      Event e = new Event("Shift", s, s.plusMinutes(90), "", Status.Public, "");
+      Duration d = Duration.ofMinutes(h * 13L % 5000);
+      for (ZoneId to : zones) {
+        IEvent copy = e.shiftCopy(d, to);
+        assertEquals(s.plus(d).withZoneSameInstant(to), copy.getStartDateTime());
+        assertEquals(s.plusMinutes(90).plus(d).withZoneSameInstant(to), copy.getEndDateTime());
+      }
+    }
+  }
+}
@@ -0,0 +1,65 @@
+import org.junit.Test;
+
+import model.LatencyHistogram;
+import model.MetricsRegistry;
+import model.Operation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing the latency histogram used by the metrics registry.
+ */
+public class LatencyHistogramTest {
+
+  @Test
+  public void emptyHistogram() {
+    LatencyHistogram h = new LatencyHistogram();
+    assertEquals(0, h.getCount());
+    assertEquals(0, h.percentile(0.5));
+    assertEquals(0.0, h.getMeanMicros(), 0.0);
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    LatencyHistogram h = new LatencyHistogram();
+    for (int i = 1; i <= 10; i++) {
+      h.record(i);
+    }
+    assertEquals(10, h.getCount());
+    assertEquals(5, h.percentile(0.5));
+    assertEquals(10, h.percentile(1.0));
+  }
+
+  @Test
+  public void percentilesWithinBucketPrecision() {
+    LatencyHistogram h = new LatencyHistogram();
+    for (long i = 1; i <= 1000; i++) {
+      h.record(i * 1000);
+    }
+    long p50 = h.percentile(0.5);
+    long p99 = h.percentile(0.99);
+    assertTrue("p50 was " + p50, p50 >= 500_000 && p50 <= 500_000 * 107 / 100);
+    assertTrue("p99 was " + p99, p99 >= 990_000 && p99 <= 1_000_000);
+    assertEquals(1000.0, h.getMaxMicros(), 0.0);
+    assertEquals(500.5, h.getMeanMicros(), 0.001);
+  }
+
+  @Test
+  public void resetClearsValues() {
+    LatencyHistogram h = new LatencyHistogram();
+    h.record(123);
+    h.reset();
+    assertEquals(0, h.getCount());
+    assertEquals(0.0, h.getMaxMicros(), 0.0);
+  }
+
+  @Test
+  public void registryReportsEveryOperation() {
+    MetricsRegistry.global().record(Operation.ADD, System.nanoTime());
+    String report = MetricsRegistry.global().report();
+    for (Operation operation : Operation.values()) {
+      assertTrue(report.contains(operation.getLabel()));
+    }
+  }
+}
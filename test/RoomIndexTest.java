@@ -0,0 +1,133 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.CalendarManager;
+import model.Event;
+import model.IEvent;
+import model.RoomConflict;
+import model.Status;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing room availability, conflicts and occupancy across calendars.
+ */
+public class RoomIndexTest {
+  private final ZoneId ny = ZoneId.of("America/New_York");
+  private final ZoneId la = ZoneId.of("America/Los_Angeles");
+  private final ZonedDateTime day = ZonedDateTime.of(2025, 6, 2, 9, 0, 0, 0, ny);
+  private CalendarManager manager;
+
+  /**
+   * Alice books Room 4 9-10 and 11-12; bob books "room  4" 9:30-10:30 New York time
+   * from Los Angeles, and Room 7 9-10.
+   */
+  @Before
+  public void setUp() {
+    manager = new CalendarManager();
+    manager.createCalendar("alice", ny);
+    manager.createCalendar("bob", la);
+    manager.useCalendar("alice");
+    manager.addEvent(new Event("a1", day, day.plusHours(1), "Room 4", Status.Public, ""));
+    manager.addEvent(new Event("a2", day.plusHours(2), day.plusHours(3), "Room 4",
+            Status.Public, ""));
+    manager.useCalendar("bob");
+    ZonedDateTime bobStart = day.plusMinutes(30).withZoneSameInstant(la);
+    manager.addEvent(new Event("b1", bobStart, bobStart.plusHours(1), "room  4",
+            Status.Public, ""));
+    manager.addEvent(new Event("b2", day.withZoneSameInstant(la), day.plusHours(1)
+            .withZoneSameInstant(la), "Room 7", Status.Public, ""));
+  }
+
+  @Test
+  public void roomFreeAcrossCalendars() {
+    assertFalse(manager.isRoomFree("Room 4", day.plusMinutes(75)));
+    assertTrue(manager.isRoomFree("ROOM 4", day.plusMinutes(90)));
+    assertFalse(manager.isRoomFree("Room 7", day));
+    assertTrue(manager.isRoomFree("Room 9", day));
+  }
+
+  @Test
+  public void conflictsPairOverlappingBookings() {
+    List<RoomConflict> conflicts = manager.roomConflicts("Room 4", day, day.plusDays(30));
+    assertEquals(1, conflicts.size());
+    assertEquals("a1", conflicts.get(0).getFirst().getSubject());
+    assertEquals("b1", conflicts.get(0).getSecond().getSubject());
+    assertTrue(manager.roomConflicts("Room 7", day, day.plusDays(30)).isEmpty());
+  }
+
+  @Test
+  public void conflictsFollowEdits() {
+    manager.useCalendar("bob");
+    IEvent b1 = manager.getEventsBetween(day, day.plusHours(1)).stream()
+            .filter(e -> e.getSubject().equals("b1")).findFirst().get();
+    assertTrue(manager.editEventById(b1.getId(), new Event("b1", b1.getStartDateTime(),
+            b1.getEndDateTime(), "Room 9", Status.Public, "")));
+    assertTrue(manager.roomConflicts("Room 4", day, day.plusDays(1)).isEmpty());
+    assertTrue(manager.roomConflicts("Room 9", day, day.plusDays(1)).isEmpty());
+    assertFalse(manager.isRoomFree("Room 9", day.plusMinutes(45)));
+  }
+
+  @Test
+  public void occupancyCountsOverlapsOnce() {
+    Map<String, Double> occupancy = manager.roomOccupancy(day, day.plusHours(4));
+    assertEquals(2, occupancy.size());
+    assertEquals(62.5, occupancy.get("Room 4"), 1e-9);
+    assertEquals(25.0, occupancy.get("Room 7"), 1e-9);
+  }
+
+  @Test
+  public void checkedAddRefusesTakenRoom() {
+    manager.useCalendar("alice");
+    assertFalse(manager.addEvent(new Event("a3", day.plusMinutes(150), day.plusHours(4),
+            "room 4", Status.Public, ""), true));
+    assertTrue(manager.addEvent(new Event("a4", day.plusHours(3), day.plusHours(4),
+            "Room 4", Status.Public, ""), true));
+    assertTrue(manager.addEvent(new Event("a5", day.plusMinutes(150), day.plusHours(4),
+            "room 4", Status.Public, ""), false));
+  }
+
+  /**
+   * Callers racing to book the same free slot of a room; only one may win each time.
+   */
+  @Test(timeout = 20_000)
+  public void racingCheckedAddsBookOnce() throws InterruptedException {
+    manager.useCalendar("alice");
+    for (int i = 0; i < 200; i++) {
+      ZonedDateTime start = day.plusDays(1 + i);
+      AtomicInteger booked = new AtomicInteger();
+      CountDownLatch go = new CountDownLatch(1);
+      Thread[] callers = new Thread[4];
+      for (int c = 0; c < callers.length; c++) {
+        Event event = new Event("r" + c, start, start.plusHours(1), "Room 9", Status.Public,
+                "");
+        callers[c] = new Thread(() -> {
+          try {
+            go.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          if (manager.addEvent(event, true)) {
+            booked.incrementAndGet();
+          }
+        });
+        callers[c].setDaemon(true);
+        callers[c].start();
+      }
+      go.countDown();
+      for (Thread caller : callers) {
+        caller.join();
+      }
+      assertEquals(1, booked.get());
+    }
+  }
+}
@@ -0,0 +1,79 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import model.CalendarManager;
+import model.Event;
+import model.Status;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Testing the free slot search across calendars.
+ */
+public class SlotFinderTest {
+  private final ZoneId ny = ZoneId.of("America/New_York");
+  private final ZoneId la = ZoneId.of("America/Los_Angeles");
+  private final ZonedDateTime day = ZonedDateTime.of(2025, 6, 2, 9, 0, 0, 0, ny);
+  private CalendarManager manager;
+
+  /**
+   * Two calendars: alice is busy 9-10 and 11-12, bob is busy 10:00-10:45 (in LA time).
+   */
+  @Before
+  public void setUp() {
+    manager = new CalendarManager();
+    manager.createCalendar("alice", ny);
+    manager.createCalendar("bob", la);
+    manager.useCalendar("alice");
+    manager.addEvent(new Event("a1", day, day.plusHours(1), "", Status.Public, ""));
+    manager.addEvent(new Event("a2", day.plusHours(2), day.plusHours(3), "", Status.Public, ""));
+    manager.useCalendar("bob");
+    ZonedDateTime bobStart = day.plusHours(1).withZoneSameInstant(la);
+    manager.addEvent(new Event("b1", bobStart, bobStart.plusMinutes(45),
+            "", Status.Public, ""));
+  }
+
+  @Test
+  public void firstCommonGap() {
+    Optional<ZonedDateTime> slot = manager.findFreeSlot(List.of("alice", "bob"),
+            day, day.plusHours(8), Duration.ofMinutes(15));
+    assertEquals(day.plusMinutes(105), slot.get());
+  }
+
+  @Test
+  public void longerSlotSkipsShortGaps() {
+    Optional<ZonedDateTime> slot = manager.findFreeSlot(List.of("alice", "bob"),
+            day, day.plusHours(8), Duration.ofMinutes(30));
+    assertEquals(day.plusHours(3), slot.get());
+  }
+
+  @Test
+  public void noSlotInsideBusyRange() {
+    assertFalse(manager.findFreeSlot(List.of("alice"), day, day.plusHours(1),
+            Duration.ofMinutes(30)).isPresent());
+  }
+
+  @Test
+  public void gridMatchesMerge() {
+    Optional<ZonedDateTime> grid = manager.findFreeSlot(List.of(), day, day.plusHours(8),
+            Duration.ofMinutes(30), Duration.ofMinutes(15));
+    assertEquals(day.plusHours(3), grid.get());
+    Optional<ZonedDateTime> quarter = manager.findFreeSlot(List.of(), day, day.plusHours(8),
+            Duration.ofMinutes(15), Duration.ofMinutes(15));
+    assertEquals(day.plusMinutes(105), quarter.get());
+  }
+
+  @Test
+  public void unknownCalendar() {
+    assertThrows(IllegalArgumentException.class, () -> manager.findFreeSlot(
+            List.of("nobody"), day, day.plusHours(1), Duration.ofMinutes(15)));
+  }
+}
@@ -0,0 +1,179 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+
+import model.CalendarManager;
+import model.Event;
+import model.ICalendarModel;
+import model.IEventSeries;
+import model.Status;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing transactions across calendars.
+ */
+public class TransactionTest {
+  private final ZoneId zone = ZoneId.of("America/New_York");
+  private final ZonedDateTime nine = ZonedDateTime.of(2025, 6, 2, 9, 0, 0, 0, zone);
+  private CalendarManager manager;
+  private Event standup;
+
+  /**
+   * Two calendars, work already holding a standup.
+   */
+  @Before
+  public void setUp() {
+    manager = new CalendarManager();
+    manager.createCalendar("work", zone);
+    manager.createCalendar("home", zone);
+    manager.useCalendar("work");
+    standup = new Event("Standup", nine, nine.plusMinutes(15), "", Status.Public, "");
+    manager.addEvent(standup);
+  }
+
+  private int count(Map<String, ICalendarModel> calendars, String name) {
+    return calendars.get(name).getEventsBetween(nine.minusDays(1), nine.plusDays(1)).size();
+  }
+
+  @Test
+  public void commitAppliesEveryStep() {
+    Event gym = new Event("Gym", nine.plusHours(9), nine.plusHours(10), "", Status.Private, "");
+    Event review = new Event("Review", nine.plusHours(2), nine.plusHours(3), "",
+            Status.Public, "");
+    manager.begin()
+            .add("home", gym)
+            .add("work", review)
+            .remove("work", standup)
+            .commit();
+
+    Map<String, ICalendarModel> now = manager.snapshot();
+    assertEquals(1, count(now, "home"));
+    assertEquals(1, count(now, "work"));
+  }
+
+  @Test
+  public void failedStepChangesNothing() {
+    Event gym = new Event("Gym", nine.plusHours(9), nine.plusHours(10), "", Status.Private, "");
+    CalendarManager.Transaction tx = manager.begin()
+            .add("home", gym)
+            .add("work", standup);
+    assertThrows(IllegalStateException.class, tx::commit);
+
+    Map<String, ICalendarModel> now = manager.snapshot();
+    assertEquals(0, count(now, "home"));
+    assertEquals(1, count(now, "work"));
+  }
+
+  @Test
+  public void oldSnapshotIsUnchanged() {
+    Map<String, ICalendarModel> before = manager.snapshot();
+    Event gym = new Event("Gym", nine.plusHours(9), nine.plusHours(10), "", Status.Private, "");
+    manager.begin().add("work", gym).commit();
+
+    assertEquals(1, count(before, "work"));
+    assertEquals(2, count(manager.snapshot(), "work"));
+    assertEquals(2, manager.getEventsBetween(nine.minusDays(1), nine.plusDays(1)).size());
+  }
+
+  @Test
+  public void unknownCalendarAborts() {
+    Event gym = new Event("Gym", nine.plusHours(9), nine.plusHours(10), "", Status.Private, "");
+    assertThrows(IllegalArgumentException.class,
+        () -> manager.begin().add("nowhere", gym).commit());
+    CalendarManager.Transaction tx = manager.begin();
+    tx.abort();
+    assertThrows(IllegalStateException.class, tx::commit);
+    assertTrue(manager.snapshot().containsKey("work"));
+  }
+
+  /**
+   * An add on the live calendar while a commit is copying it must land in the copy.
+   */
+  @Test(timeout = 10_000)
+  public void writeDuringCommitIsKept() throws InterruptedException {
+    Event gym = new Event("Gym", nine.plusHours(9), nine.plusHours(10), "", Status.Private, "");
+    Event lunch = new Event("Lunch", nine.plusHours(3), nine.plusHours(4), "", Status.Public,
+            "");
+    Thread[] writer = new Thread[1];
+    IEventSeries slow = new IEventSeries() {
+      @Override
+      public List<Event> generateEvents(ZoneId zoneId) {
+        return List.of(gym);
+      }
+
+      @Override
+      public int addTo(ICalendarModel calendar) {
+        writer[0] = new Thread(() -> manager.addEvent(lunch));
+        writer[0].start();
+        try {
+          writer[0].join(200);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return calendar.addEvent(gym) ? 1 : 0;
+      }
+    };
+    manager.begin().addSeries("work", slow).commit();
+    writer[0].join();
+
+    assertEquals(3, count(manager.snapshot(), "work"));
+    assertEquals(3, manager.getEventsBetween(nine.minusDays(1), nine.plusDays(1)).size());
+  }
+
+  @Test
+  public void writeThroughReplacedCalendarReachesCopy() {
+    Map<String, ICalendarModel> before = manager.snapshot();
+    Event gym = new Event("Gym", nine.plusHours(9), nine.plusHours(10), "", Status.Private, "");
+    Event lunch = new Event("Lunch", nine.plusHours(3), nine.plusHours(4), "", Status.Public,
+            "");
+    manager.begin().add("work", gym).commit();
+
+    assertTrue(before.get("work").addEvent(lunch));
+    assertEquals(1, count(before, "work"));
+    assertEquals(3, count(manager.snapshot(), "work"));
+  }
+
+  /**
+   * Renames change which calendar sorts first; commits racing them must not deadlock.
+   */
+  @Test(timeout = 20_000)
+  public void commitsRacingRenamesFinish() throws InterruptedException {
+    AtomicInteger tick = new AtomicInteger();
+    AtomicInteger committed = new AtomicInteger();
+    Runnable committer = () -> {
+      for (int i = 0; i < 500; i++) {
+        String home = manager.snapshot().containsKey("home") ? "home" : "zhome";
+        ZonedDateTime at = nine.plusDays(2).plusMinutes(tick.getAndIncrement());
+        Event event = new Event("E", at, at.plusMinutes(1), "", Status.Public, "");
+        try {
+          manager.begin().add(home, event).add("work", event).commit();
+          committed.incrementAndGet();
+        } catch (IllegalArgumentException renamedMeanwhile) {
+          // the calendar was renamed between the lookup and the commit
+        }
+      }
+    };
+    Thread first = new Thread(committer);
+    Thread second = new Thread(committer);
+    first.setDaemon(true);
+    second.setDaemon(true);
+    first.start();
+    second.start();
+    for (int i = 0; i < 500; i++) {
+      manager.changingCalendarName("home", "zhome");
+      manager.changingCalendarName("zhome", "home");
+    }
+    first.join();
+    second.join();
+    assertEquals(committed.get() + 1,
+        manager.snapshot().get("work").getEventsBetween(nine, nine.plusDays(4)).size());
+  }
+}
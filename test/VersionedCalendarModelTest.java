@@ -0,0 +1,304 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.CalendarManager;
+import model.ConflictPolicy;
+import model.Event;
+import model.EventPage;
+import model.EventStats;
+import model.Granularity;
+import model.ICalendarModel;
+import model.IEvent;
+import model.Status;
+import model.VersionedCalendarModel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing the versioned calendar: undo, redo and snapshots.
+ */
+public class VersionedCalendarModelTest {
+  private final ZoneId zone = ZoneId.of("America/New_York");
+  private final ZonedDateTime nine = ZonedDateTime.of(2025, 6, 2, 9, 0, 0, 0, zone);
+  private VersionedCalendarModel calendar;
+
+  @Before
+  public void setUp() {
+    calendar = new VersionedCalendarModel(zone);
+  }
+
+  private Event at(String subject, ZonedDateTime start) {
+    return new Event(subject, start, start.plusHours(1), "", Status.Public, "");
+  }
+
+  @Test
+  public void undoAndRedoWalkThroughVersions() {
+    Event a = at("A", nine);
+    Event b = at("B", nine.plusHours(2));
+    assertTrue(calendar.addEvent(a));
+    assertTrue(calendar.addEvent(b));
+    assertFalse(calendar.addEvent(a));
+
+    assertTrue(calendar.undo());
+    assertEquals(List.of(a), calendar.getEventsOn(nine.toLocalDate()));
+    assertTrue(calendar.undo());
+    assertEquals(0, calendar.size());
+    assertFalse(calendar.undo());
+
+    assertTrue(calendar.redo());
+    assertTrue(calendar.redo());
+    assertEquals(List.of(a, b), calendar.getEventsOn(nine.toLocalDate()));
+    assertFalse(calendar.redo());
+  }
+
+  @Test
+  public void newChangeClearsRedo() {
+    calendar.addEvent(at("A", nine));
+    calendar.undo();
+    calendar.addEvent(at("B", nine));
+    assertFalse(calendar.canRedo());
+  }
+
+  @Test
+  public void editIsOneUndoStep() {
+    Event a = at("A", nine);
+    Event moved = at("A", nine.plusHours(3));
+    calendar.addEvent(a);
+    assertTrue(calendar.editEvent("A", nine, moved));
+    assertTrue(calendar.findEvent("A", moved.getStartDateTime().toLocalDateTime()).isPresent());
+    calendar.undo();
+    assertTrue(calendar.findEvent("A", nine.toLocalDateTime()).isPresent());
+    assertEquals(1, calendar.size());
+  }
+
+  @Test
+  public void snapshotIsFrozenAndReadOnly() {
+    calendar.addEvent(at("A", nine));
+    ICalendarModel snapshot = calendar.snapshot();
+    calendar.addEvent(at("B", nine.plusHours(1)));
+    calendar.removeEvent(at("A", nine));
+
+    assertEquals(1, snapshot.getEventsOn(nine.toLocalDate()).size());
+    assertEquals("A", snapshot.getEventsOn(nine.toLocalDate()).get(0).getSubject());
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.addEvent(at("C", nine)));
+  }
+
+  @Test
+  public void queriesMatchAPlainScan() {
+    List<IEvent> all = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      Event e = new Event("E" + i, nine.plusMinutes(37L * i),
+              nine.plusMinutes(37L * i + (i % 7) * 45 + 10), "", Status.Public, "");
+      all.add(e);
+    }
+    assertTrue(calendar.addAll(all));
+    for (int i = 0; i < 500; i += 3) {
+      calendar.removeEvent(all.get(i));
+    }
+    ZonedDateTime from = nine.plusHours(20);
+    ZonedDateTime to = nine.plusHours(50);
+    long expected = all.stream()
+            .filter(e -> all.indexOf(e) % 3 != 0)
+            .filter(e -> !e.getEndDateTime().isBefore(from) && !e.getStartDateTime().isAfter(to))
+            .count();
+    assertEquals(expected, calendar.getEventsBetween(from, to).size());
+    assertTrue(calendar.busyDuring(all.get(1).getStartDateTime()));
+    assertFalse(calendar.busyDuring(nine.minusHours(1)));
+  }
+
+  @Test
+  public void addAllIsAllOrNothing() {
+    Event a = at("A", nine);
+    calendar.addEvent(a);
+    assertFalse(calendar.addAll(List.of(at("B", nine), a)));
+    assertEquals(1, calendar.size());
+    assertTrue(calendar.addAll(List.of(at("B", nine), at("C", nine))));
+    calendar.undo();
+    assertEquals(1, calendar.size());
+  }
+
+  @Test
+  public void managerCanCreateVersionedCalendars() {
+    CalendarManager manager = new CalendarManager(true);
+    assertTrue(manager.getCurrentCalendar() instanceof VersionedCalendarModel);
+    manager.addEvent(at("A", nine));
+    assertEquals(1, manager.getCurrentCalendar()
+            .getEventsOn(LocalDate.of(2025, 6, 2)).size());
+  }
+
+  @Test
+  public void rejectPolicyKeepsHistoryClean() {
+    calendar.setConflictPolicy(ConflictPolicy.REJECT);
+    assertTrue(calendar.addEvent(at("a", nine)));
+    assertFalse(calendar.addEvent(at("b", nine.plusMinutes(30))));
+    assertFalse(calendar.addAll(List.of(at("c", nine.plusHours(3)),
+            at("d", nine.plusMinutes(59)))));
+    assertEquals(1, calendar.size());
+    assertTrue(calendar.undo());
+    assertFalse(calendar.canUndo());
+    assertEquals(ConflictPolicy.REJECT, calendar.snapshot().getConflictPolicy());
+  }
+
+  @Test
+  public void rejectPolicyChecksEdits() {
+    Event a = at("a", nine);
+    Event b = at("b", nine.plusHours(2));
+    calendar.addEvent(a);
+    calendar.addEvent(b);
+    calendar.setConflictPolicy(ConflictPolicy.REJECT);
+
+    assertFalse(calendar.editEventById(b.getId(), at("b", nine.plusMinutes(30))));
+    assertEquals(0, calendar.editSeriesFrom("b", nine, e -> at("b", nine.plusMinutes(59))));
+    assertEquals(2, calendar.size());
+    assertEquals(nine.plusHours(2), calendar.getEvent(b.getId()).get().getStartDateTime());
+    assertTrue(calendar.editEventById(b.getId(), at("b", nine.plusHours(1))));
+    assertTrue(calendar.editEventById(a.getId(), at("a", nine.minusMinutes(30))));
+  }
+
+  @Test
+  public void agendaFollowsEditsAndUndo() {
+    LocalDate today = nine.toLocalDate();
+    calendar.addEvent(at("B", nine.plusHours(2)));
+    calendar.setAgendaWindow(1, 3, Clock.fixed(nine.toInstant(), zone));
+    List<IEvent> before = calendar.getAgenda(today);
+
+    Event a = at("A", nine);
+    calendar.addEvent(a);
+    assertEquals(1, before.size());
+    assertEquals(List.of("A", "B"), subjects(calendar.getAgenda(today)));
+    assertTrue(calendar.editEventById(a.getId(), at("A", nine.plusDays(1))));
+    assertEquals(List.of("B"), subjects(calendar.getAgenda(today)));
+    assertEquals(List.of("A"), subjects(calendar.getAgenda(today.plusDays(1))));
+
+    calendar.undo();
+    assertEquals(List.of("A", "B"), subjects(calendar.getAgenda(today)));
+    assertTrue(calendar.getAgenda(today.plusDays(1)).isEmpty());
+    calendar.redo();
+    assertTrue(calendar.removeEvent(at("B", nine.plusHours(2))));
+    assertTrue(calendar.getAgenda(today).isEmpty());
+    assertEquals(subjects(calendar.getEventsOn(today.plusDays(1))),
+            subjects(calendar.getAgenda(today.plusDays(1))));
+    assertThrows(UnsupportedOperationException.class,
+        () -> calendar.getAgenda(today.plusDays(1)).clear());
+  }
+
+  private static List<String> subjects(List<IEvent> events) {
+    List<String> result = new ArrayList<>();
+    events.forEach(e -> result.add(e.getSubject()));
+    return result;
+  }
+
+  @Test
+  public void queryPagesMatchWindow() {
+    for (int i = 0; i < 7; i++) {
+      calendar.addEvent(at("e" + i, nine.plusHours(i)));
+    }
+    EventPage first = calendar.query(nine, nine.plusDays(1), 4, null);
+    EventPage second = calendar.query(nine, nine.plusDays(1), 4, first.getNextCursor());
+    assertEquals(4, first.getEvents().size());
+    assertEquals(3, second.getEvents().size());
+    assertFalse(second.hasNext());
+    assertEquals("e4", second.getEvents().get(0).getSubject());
+  }
+
+  @Test
+  public void pagesWalkTiesAndRunningEvents() {
+    Event quarter = new Event("Quarter", nine.minusDays(30), nine.plusDays(60), "",
+            Status.Public, "");
+    calendar.addEvent(quarter);
+    for (int i = 0; i < 5; i++) {
+      calendar.addEvent(at("tie" + i, nine));
+      calendar.addEvent(at("late" + i, nine.plusHours(3 + i)));
+    }
+    calendar.addEvent(at("outside", nine.plusDays(3)));
+
+    List<IEvent> paged = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      EventPage page = calendar.query(nine, nine.plusDays(1), 3, cursor);
+      assertTrue(page.getEvents().size() <= 3);
+      paged.addAll(page.getEvents());
+      cursor = page.getNextCursor();
+      pages++;
+    } while (cursor != null);
+
+    assertEquals(4, pages);
+    assertEquals(11, paged.size());
+    assertEquals("Quarter", paged.get(0).getSubject());
+    for (int i = 1; i < 5; i++) {
+      assertTrue(paged.get(i).getId() < paged.get(i + 1).getId());
+    }
+    List<IEvent> window = calendar.getEventsBetween(nine, nine.plusDays(1));
+    assertEquals(window.size(), paged.size());
+    assertTrue(paged.containsAll(window));
+  }
+
+  @Test
+  public void idLookupsFollowTheVersion() {
+    Event a = at("A", nine);
+    Event b = at("B", nine.plusHours(2));
+    calendar.addEvent(a);
+    calendar.addEvent(b);
+    assertTrue(calendar.editEventById(a.getId(), at("A", nine.plusHours(5))));
+    assertEquals(nine.plusHours(5), calendar.getEvent(a.getId()).get().getStartDateTime());
+
+    calendar.undo();
+    assertEquals(nine, calendar.getEvent(a.getId()).get().getStartDateTime());
+    assertTrue(calendar.removeEventById(b.getId()));
+    assertFalse(calendar.getEvent(b.getId()).isPresent());
+    assertFalse(calendar.removeEventById(b.getId()));
+    calendar.undo();
+    assertEquals("B", calendar.getEvent(b.getId()).get().getSubject());
+  }
+
+  @Test
+  public void takenIdGetsANewOne() {
+    Event a = at("A", nine);
+    calendar.addEvent(a);
+    assertTrue(calendar.editEventById(a.getId(), at("A", nine.plusHours(1))));
+    assertTrue(calendar.addEvent(a));
+
+    assertEquals(2, calendar.size());
+    assertEquals(nine.plusHours(1), calendar.getEvent(a.getId()).get().getStartDateTime());
+    IEvent readded = calendar.findEvent("A", nine.toLocalDateTime()).get();
+    assertTrue(readded.getId() != a.getId());
+    assertEquals(readded, calendar.getEvent(readded.getId()).get());
+    assertTrue(calendar.removeEventById(readded.getId()));
+    assertTrue(calendar.getEvent(a.getId()).isPresent());
+  }
+
+  /**
+   * Aggregates walk the window of the current version, including events that start
+   * before it and run into it.
+   */
+  @Test
+  public void aggregateFollowsTheVersion() {
+    ZonedDateTime monday = nine.minusHours(9);
+    calendar.addEvent(at("Late", monday.minusMinutes(30)));
+    calendar.addEvent(at("A", nine));
+    calendar.addEvent(at("B", nine.plusDays(1)));
+    calendar.addEvent(at("Out", monday.plusDays(3)));
+
+    EventStats days = calendar.aggregate(monday, monday.plusDays(2), Granularity.DAY);
+    assertEquals(3, days.getCount());
+    assertEquals(Duration.ofMinutes(150), days.getBusyDuration());
+    assertArrayEquals(new long[] {2, 1, 0}, days.getCounts());
+    calendar.undo();
+    calendar.undo();
+    assertEquals(2, calendar.aggregate(monday, monday.plusDays(2), Granularity.DAY)
+            .getCount());
+  }
+}
@@ -0,0 +1,132 @@
+package controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import model.CalendarManager;
+import model.Event;
+import model.IEvent;
+import model.Status;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Testing the LRU bound of the GUI agenda cache and its invalidation through
+ * the change feed.
+ */
+public class AgendaCacheTest {
+  private final ZoneId zone = ZoneId.of("America/New_York");
+  private final LocalDate monday = LocalDate.of(2025, 6, 2);
+  private CalendarManager manager;
+  private AgendaCache cache;
+  private int loads;
+
+  @Before
+  public void setUp() {
+    manager = new CalendarManager();
+    manager.createCalendar("work", zone);
+    manager.createCalendar("home", zone);
+    manager.useCalendar("work");
+    cache = new AgendaCache(3, manager.changes());
+  }
+
+  /**
+   * Reads a day through the cache, loading it from the calendar in use like the GUI.
+   */
+  private List<IEvent> get(String calendar, LocalDate day) {
+    return cache.get(calendar, zone, day, () -> {
+      loads++;
+      return manager.getCurrentCalendar().getEventsOn(day);
+    });
+  }
+
+  private Event at(String subject, LocalDate day) {
+    ZonedDateTime start = day.atTime(9, 0).atZone(zone);
+    return new Event(subject, start, start.plusHours(1), "", Status.Public, "");
+  }
+
+  @Test
+  public void keepsTheMostRecentlyUsedDays() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new AgendaCache(0, manager.changes()));
+    List<IEvent> first = get("work", monday);
+    get("work", monday.plusDays(1));
+    get("work", monday.plusDays(2));
+    assertSame(first, get("work", monday));
+    assertEquals(3, loads);
+
+    get("work", monday.plusDays(3));
+    assertEquals(3, cache.size());
+    get("work", monday);
+    assertEquals(4, loads);
+    get("work", monday.plusDays(1));
+    assertEquals(5, loads);
+  }
+
+  @Test
+  public void prefetchDoesNotRefreshAnEntry() {
+    get("work", monday);
+    get("work", monday.plusDays(1));
+    cache.prefetch("work", zone, monday, () -> List.of());
+    get("work", monday.plusDays(2));
+    get("work", monday.plusDays(3));
+    assertEquals(4, loads);
+    get("work", monday);
+    assertEquals(5, loads);
+  }
+
+  @Test
+  public void changesFromAnyPathDropTheCalendar() {
+    get("work", monday);
+    manager.useCalendar("home");
+    get("home", monday);
+    manager.useCalendar("work");
+    manager.addEvent(at("Standup", monday));
+    assertEquals(1, cache.size());
+    assertEquals(List.of("Standup"), subjects(get("work", monday)));
+
+    IEvent standup = get("work", monday).get(0);
+    manager.removeEventById(standup.getId());
+    assertEquals(0, get("work", monday).size());
+    assertEquals(4, loads);
+
+    manager.begin().add("home", at("Dentist", monday)).commit();
+    manager.useCalendar("home");
+    assertEquals(List.of("Dentist"), subjects(get("home", monday)));
+    manager.useCalendar("work");
+
+    manager.changingCalendarName("home", "house");
+    assertEquals(1, cache.size());
+    manager.deleteCalendar("house");
+    get("work", monday);
+    assertEquals(5, loads);
+  }
+
+  @Test
+  public void fallingBehindTheFeedDropsEveryDay() {
+    get("work", monday);
+    List<IEvent> batch = new ArrayList<>();
+    for (int i = 0; i <= manager.changes().capacity(); i++) {
+      batch.add(at("E" + i, monday.plusDays(1 + i)));
+    }
+    manager.getCurrentCalendar().addAll(batch);
+    assertEquals(0, cache.size());
+    get("work", monday);
+    assertEquals(2, loads);
+    manager.addEvent(at("Standup", monday));
+    assertEquals(List.of("Standup"), subjects(get("work", monday)));
+  }
+
+  private static List<String> subjects(List<IEvent> events) {
+    return events.stream().map(IEvent::getSubject).collect(Collectors.toList());
+  }
+}